@@ -6,7 +6,7 @@ import javafx.scene.control.Pagination;
 import javafx.scene.layout.VBox;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.scify.jedai.datamodel.EntityProfile;
-import org.scify.jedai.gui.nodes.EntityProfileNode;
+import org.scify.jedai.gui.nodes.EntityProfileNodePool;
 import org.scify.jedai.gui.utilities.DataReader;
 
 import java.util.List;
@@ -19,10 +19,21 @@ public class DatasetExplorationController {
     private String datasetType = null;
     private List<MutablePair<String, Object>> datasetParams = null;
 
+    // Profile nodes are moved from the previous page to the new one instead of being created again
+    private final EntityProfileNodePool nodePool = new EntityProfileNodePool();
+    private VBox currentPage = null;
+
     @FXML
     public void initialize() {
     }
 
+    /**
+     * Release the profile nodes and the cached profile attributes of the window, when it is closed
+     */
+    public void close() {
+        nodePool.clear();
+    }
+
     /**
      * Show the entities in the window.
      */
@@ -47,8 +58,12 @@ public class DatasetExplorationController {
         // Setup pagination
         entityPagination.setPageCount(pagesNum);
         entityPagination.setPageFactory(pageIndex -> {
-            // Create node that we will add entities to
+            // Create node that we will add entities to, taking the profile nodes of the previous page
+            if (currentPage != null) {
+                nodePool.releaseAll(currentPage.getChildren());
+            }
             VBox vBox = new VBox();
+            currentPage = vBox;
 
             // Check that we have entities
             if (entities != null) {
@@ -61,7 +76,7 @@ public class DatasetExplorationController {
                 int entityId = firstEntity + 1;
                 for (EntityProfile ep : pageEntities) {
                     // Add the new entity profile node to the page
-                    vBox.getChildren().add(new EntityProfileNode(entityId, ep));
+                    vBox.getChildren().add(nodePool.acquire(entityId, ep));
 
                     // Increment the entity ID counter
                     entityId++;
@@ -1,33 +1,64 @@
 package org.scify.jedai.gui.controllers;
 
 import gnu.trove.iterator.TIntIterator;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
-import javafx.scene.control.Pagination;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.control.TextField;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import org.scify.jedai.datamodel.EntityProfile;
 import org.scify.jedai.datamodel.EquivalenceCluster;
 import org.scify.jedai.gui.nodes.EntityProfileNode;
+import org.scify.jedai.gui.nodes.EntityProfileNodePool;
+import org.scify.jedai.gui.utilities.ClusterSizeIndex;
 import org.scify.jedai.gui.utilities.DialogHelper;
+import org.scify.jedai.gui.utilities.EntitySearchIndex;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class EntityClusterExplorationController {
-    private final int pageSize = 5;
-    public Pagination entityPagination;
+    // Number of largest clusters to sort before the window shows them, the rest are sorted while scrolling
+    private static final int INITIAL_CLUSTERS = 100;
+
+    public ListView<Integer> clustersList;
     public VBox containerVBox;
     public Label titleLabel;
+    public HBox searchBox;
+    public TextField searchField;
+    public Label searchStatusLabel;
 
     private boolean dirtyEr = true;
     private List<EquivalenceCluster> duplicates = null;
+    private ClusterSizeIndex clusterIndex = null;
+    private Future<EntitySearchIndex> searchIndex = null;
     private List<EntityProfile> entitiesD1 = null;
     private List<EntityProfile> entitiesD2 = null;
 
+    // Profile nodes of clusters that scrolled out of view, to reuse for the ones that scroll in
+    private final EntityProfileNodePool nodePool = new EntityProfileNodePool(280);
+
     @FXML
     public void initialize() {
+        clustersList.setPlaceholder(new Label("Loading clusters..."));
+
+        // The list is virtualized, so nodes are only created for the visible clusters and reused while scrolling
+        clustersList.setCellFactory(lst -> new ClusterCell());
+    }
+
+    /**
+     * Release the profile nodes and the cached profile attributes of the window, when it is closed
+     */
+    public void close() {
+        nodePool.clear();
     }
 
     /**
@@ -40,89 +71,137 @@ public class EntityClusterExplorationController {
     }
 
     /**
-     * Get a formatted EntityProfileNode for the specified entity ID
+     * Get a formatted EntityProfileNode for the specified entity ID, from the pool of reusable nodes
      *
      * @param entities Entities list
      * @param entityId Entity ID
      * @return EntityProfileNode with customized attributes for ground truth exploration (e.g. width)
      */
     private EntityProfileNode getEntityNode(List<EntityProfile> entities, int entityId) {
-        // Find the entity in the dataset
-        EntityProfile entity = entities.get(entityId);
+        // Find the entity in the dataset and show it in a pooled node
+        return nodePool.acquire(entityId, entities.get(entityId));
+    }
 
-        // Add node for this entity
-        EntityProfileNode entityProfileNode = new EntityProfileNode(entityId, entity);
-        entityProfileNode.setPrefWidth(280);
+    /**
+     * Show the clusters in the window. The list items are the indices of the clusters, which are looked up (from
+     * largest to smallest) on request instead of being stored.
+     */
+    private void updateView() {
+        final int size = clusterIndex.size();
+        clustersList.setPlaceholder(new Label("No clusters to show"));
+        clustersList.setItems(FXCollections.observableList(new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                return clusterIndex.getClusterIndex(index);
+            }
 
-        return entityProfileNode;
+            @Override
+            public int size() {
+                return size;
+            }
+        }));
     }
 
     /**
-     * Show the entities in the window.
+     * Show only the given clusters
+     *
+     * @param clusterIds Indices of the clusters to show
      */
-    private void updateView() {
-        // Find how many pages we need
-        int pagesNum = duplicates.size() / pageSize;
-        if (duplicates.size() % pageSize > 0) {
-            pagesNum++;
+    private void showClusters(final int[] clusterIds) {
+        clustersList.setPlaceholder(new Label("No matching clusters"));
+        clustersList.setItems(FXCollections.observableList(new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                return clusterIds[index];
+            }
+
+            @Override
+            public int size() {
+                return clusterIds.length;
+            }
+        }));
+    }
+
+    /**
+     * Show the clusters that contain entities matching the text of the search field
+     *
+     * @param actionEvent Search button click or Enter in the search field
+     */
+    public void search(ActionEvent actionEvent) {
+        if (clusterIndex == null || searchIndex == null) {
+            return;
         }
 
-        // Setup pagination
-        entityPagination.setPageCount(pagesNum);
-        entityPagination.setPageFactory(pageIndex -> {
-            // Create node that we will add entities to
-            VBox vBox = new VBox();
-
-            // Get entities to add to this page
-            int firstCluster = pageIndex * pageSize;
-            int lastCluster = Math.min((pageIndex + 1) * pageSize, duplicates.size());
-            List<EquivalenceCluster> duplicatesToShow = duplicates.subList(firstCluster, lastCluster);
-
-            for (EquivalenceCluster dup : duplicatesToShow) {
-                // Create nodes that will hold the entities (HBox into ScrollPane)
-                ScrollPane entitiesPane = new ScrollPane();
-                entitiesPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
-                entitiesPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
-
-                HBox entitiesContainer = new HBox();
-
-                // Add nodes that show duplicates depending on ER type
-                if (dirtyEr) {
-                    // Iterate on the list of entities for the 1st dataset (there is no 2nd)
-                    TIntIterator iter = dup.getEntityIdsD1().iterator();
-                    while (iter.hasNext()) {
-                        // Add a node for this entity
-                        entitiesContainer.getChildren().add(
-                                getEntityNode(entitiesD1, iter.next())
-                        );
-                    }
-                } else {
-                    // Check that lists aren't empty
-                    if (dup.getEntityIdsD1().isEmpty() || dup.getEntityIdsD2().isEmpty()) {
-                        DialogHelper.showError("Ground Truth Exploration", "Ground Truth file error!",
-                                "One or both of the clean-clean ground truth entity ID lists are empty!");
-                    }
-
-                    // Get the two entities and add them manually (there are always exactly two)
-                    entitiesContainer.getChildren().addAll(
-                            getEntityNode(entitiesD1, dup.getEntityIdsD1().get(0)),
-                            getEntityNode(entitiesD2, dup.getEntityIdsD2().get(0))
-                    );
-                }
+        if (!searchIndex.isDone()) {
+            searchStatusLabel.setText("The search index is still being built, please try again shortly.");
+            return;
+        }
 
-                // Fix sizes
-                entitiesContainer.setFillHeight(true);
-                entitiesPane.setFitToHeight(true);
+        try {
+            long startTime = System.currentTimeMillis();
+            int[] clusterIds = searchIndex.get().search(searchField.getText());
+            long searchTime = System.currentTimeMillis() - startTime;
 
-                // Put the HBox in the scrolling entities pane
-                entitiesPane.setContent(entitiesContainer);
+            showClusters(clusterIds);
+            searchStatusLabel.setText(clusterIds.length + " clusters found in " + searchTime + " ms"
+                    + (clusterIds.length == EntitySearchIndex.MAX_RESULTS ? " (first ones shown)" : ""));
+        } catch (InterruptedException | ExecutionException e) {
+            searchStatusLabel.setText("The search index could not be built: " + e.getMessage());
+        }
+    }
 
-                // Put the entities pane to the window
-                vBox.getChildren().add(entitiesPane);
-            }
+    /**
+     * Show all clusters again, after a search
+     *
+     * @param actionEvent Button click
+     */
+    public void showAll(ActionEvent actionEvent) {
+        if (clusterIndex == null) {
+            return;
+        }
+
+        searchField.clear();
+        searchStatusLabel.setText("");
+        updateView();
+    }
 
-            return vBox;
+    /**
+     * Set the index to search clusters with, and show the search box. The index can still be building, in which
+     * case searches are refused until it is done.
+     *
+     * @param searchIndex Search index of the clusters
+     */
+    public void setSearchIndex(Future<EntitySearchIndex> searchIndex) {
+        this.searchIndex = searchIndex;
+        searchBox.setVisible(true);
+        searchBox.setManaged(true);
+    }
+
+    /**
+     * Index and partially sort the clusters in a background thread, and show them when done
+     *
+     * @param duplicates Clusters to show
+     */
+    private void loadClusters(List<EquivalenceCluster> duplicates) {
+        this.duplicates = duplicates;
+        Task<ClusterSizeIndex> loadTask = new Task<ClusterSizeIndex>() {
+            @Override
+            protected ClusterSizeIndex call() {
+                ClusterSizeIndex index = new ClusterSizeIndex(duplicates, !dirtyEr);
+                index.ensureSorted(INITIAL_CLUSTERS);
+                return index;
+            }
+        };
+        loadTask.setOnSucceeded(event -> {
+            clusterIndex = loadTask.getValue();
+            updateView();
         });
+        loadTask.setOnFailed(event -> DialogHelper.showError("Cluster Exploration", "Could not load the clusters!",
+                "Details: " + loadTask.getException()));
+
+        Thread loadThread = new Thread(loadTask);
+        loadThread.setDaemon(true);
+        loadThread.start();
     }
 
     /**
@@ -135,17 +214,7 @@ public class EntityClusterExplorationController {
         this.dirtyEr = true;
         this.entitiesD1 = entities;
 
-        // Find and keep only non-empty clusters
-        List<EquivalenceCluster> filteredDuplicates = new ArrayList<>();
-        for (EquivalenceCluster ec : duplicates) {
-            // For Dirty ER, we only have to check the list for the 1st dataset
-            if (!ec.getEntityIdsD1().isEmpty()) {
-                filteredDuplicates.add(ec);
-            }
-        }
-        this.duplicates = filteredDuplicates;
-
-        updateView();
+        loadClusters(duplicates);
     }
 
     /**
@@ -161,16 +230,58 @@ public class EntityClusterExplorationController {
         this.entitiesD1 = entitiesD1;
         this.entitiesD2 = entitiesD2;
 
-        // Find and keep only non-empty clusters
-        List<EquivalenceCluster> filteredDuplicates = new ArrayList<>();
-        for (EquivalenceCluster ec : duplicates) {
-            // For Dirty ER, we only have to check the list for the 1st dataset
-            if (!ec.getEntityIdsD1().isEmpty() && !ec.getEntityIdsD2().isEmpty()) {
-                filteredDuplicates.add(ec);
-            }
+        loadClusters(duplicates);
+    }
+
+    /**
+     * List cell that shows the entities of one cluster, given its index
+     */
+    private class ClusterCell extends ListCell<Integer> {
+        private final ScrollPane entitiesPane = new ScrollPane();
+        private final HBox entitiesContainer = new HBox();
+
+        ClusterCell() {
+            // Create nodes that will hold the entities (HBox into ScrollPane)
+            entitiesPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
+            entitiesPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
+
+            // Fix sizes
+            entitiesContainer.setFillHeight(true);
+            entitiesPane.setFitToHeight(true);
+
+            // Put the HBox in the scrolling entities pane
+            entitiesPane.setContent(entitiesContainer);
+
+            // Make the cell follow the list's width instead of its content's
+            setPrefWidth(0);
         }
-        this.duplicates = filteredDuplicates;
 
-        updateView();
+        @Override
+        protected void updateItem(Integer clusterId, boolean empty) {
+            super.updateItem(clusterId, empty);
+            nodePool.releaseAll(entitiesContainer.getChildren());
+
+            if (empty || clusterId == null) {
+                setGraphic(null);
+                return;
+            }
+
+            EquivalenceCluster dup = duplicates.get(clusterId);
+
+            // Add a node for each entity of the 1st dataset, and of the 2nd one for Clean-Clean ER (search results
+            // can include clusters with entities from only one of the datasets)
+            TIntIterator iter = dup.getEntityIdsD1().iterator();
+            while (iter.hasNext()) {
+                entitiesContainer.getChildren().add(getEntityNode(entitiesD1, iter.next()));
+            }
+            if (!dirtyEr) {
+                iter = dup.getEntityIdsD2().iterator();
+                while (iter.hasNext()) {
+                    entitiesContainer.getChildren().add(getEntityNode(entitiesD2, iter.next()));
+                }
+            }
+
+            setGraphic(entitiesPane);
+        }
     }
 }
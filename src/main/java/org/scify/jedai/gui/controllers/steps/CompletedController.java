@@ -6,51 +6,83 @@ import eu.hansolo.medusa.Gauge;
 import eu.hansolo.medusa.Gauge.SkinType;
 import eu.hansolo.medusa.GaugeBuilder;
 import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.IntegerProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.chart.BarChart;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.TreeItemPropertyValueFactory;
+import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.StringConverter;
 import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.EntityProfile;
 import org.scify.jedai.datamodel.EquivalenceCluster;
-import org.scify.jedai.datawriter.ClustersPerformanceWriter;
+import org.scify.jedai.datamodel.SimilarityPairs;
 import org.scify.jedai.gui.controllers.EntityClusterExplorationController;
+import org.scify.jedai.gui.model.TrialRecord;
 import org.scify.jedai.gui.model.WorkflowResult;
 import org.scify.jedai.gui.nodes.DetailsTreeCell;
+import org.scify.jedai.gui.nodes.EntityProfileNodePool;
 import org.scify.jedai.gui.nodes.NonNegativeTreeTableCell;
+import org.scify.jedai.gui.utilities.ClusterAssignment;
+import org.scify.jedai.gui.utilities.ClusterAssignmentDiff;
+import org.scify.jedai.gui.utilities.ClusterStatistics;
+import org.scify.jedai.gui.utilities.ClustersExporter;
 import org.scify.jedai.gui.utilities.DialogHelper;
+import org.scify.jedai.gui.utilities.EntitySearchIndex;
+import org.scify.jedai.gui.utilities.ErrorAnalysis;
 import org.scify.jedai.gui.utilities.JedaiOptions;
 import org.scify.jedai.gui.utilities.RadioButtonHelper;
+import org.scify.jedai.gui.utilities.RunStore;
+import org.scify.jedai.gui.utilities.StageArtifacts;
+import org.scify.jedai.gui.utilities.TrialLog;
 import org.scify.jedai.gui.utilities.WorkflowManager;
 import org.scify.jedai.gui.utilities.console_area.ConsoleArea;
-import org.scify.jedai.gui.utilities.console_area.MultiOutputStream;
+import org.scify.jedai.gui.utilities.console_area.LogFanOut;
+import org.scify.jedai.gui.utilities.console_area.RollingLogFile;
 import org.scify.jedai.gui.wizard.WizardData;
 import org.scify.jedai.utilities.ClustersPerformance;
+import org.scify.jedai.utilities.datastructures.AbstractDuplicatePropagation;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
 
 public class CompletedController {
     public Button runBtn;
     public Button exportBtn;
+    public CheckBox gzipCheckBox;
+    public CheckBox keepArtifactsCheckBox;
+    public CheckBox blockLogCheckBox;
+    public CheckBox logFileCheckBox;
+    public ProgressBar exportProgressBar;
     public VBox containerVBox;
     public Label numOfInstancesLabel;
     public Label numOfClustersLabel;
@@ -60,10 +92,19 @@ public class CompletedController {
     public TabPane resultsTabPane;
     public Button exploreBtn;
     public Button showPlotBtn;
+    public Button showTrialsBtn;
+    public Button compareRunsBtn;
     public VBox autoConfigContainer;
     public ComboBox<String> outputFormatCombobox;
     public Label statusLabel;
     public TreeTableView<WorkflowResult> resultsTable;  // Tree table with results
+    public GridPane clusterStatsGrid;
+    public BarChart<String, Number> clusterSizeChart;
+    public NumberAxis clusterCountAxis;
+    public ComboBox<String> errorTypeCombobox;
+    public ComboBox<String> errorGroupCombobox;
+    public Label errorSummaryLabel;
+    public Pagination errorPagination;
 
     private final ObservableList<WorkflowResult> tableData = FXCollections.observableArrayList();
 
@@ -71,10 +112,32 @@ public class CompletedController {
     private Gauge recallGauge;
     private Gauge precisionGauge;
 
+    // Configuration, clusters and run store ID of each Workbench run (configurations and clusters of runs from
+    // earlier sessions are null until they are read from the run store)
     private List<WizardData> previousRunConfigs;
+    private final List<ClusterAssignment> previousRunClusters = new ArrayList<>();
+    private final List<Integer> storedRunIds = new ArrayList<>();
+    private final RunStore runStore = new RunStore();
     private EquivalenceCluster[] entityClusters;
 
     private WorkflowManager workflowMgr;
+    private Task<Boolean> exportTask;
+    private Task<EntitySearchIndex> searchIndexTask;
+
+    // Error analysis of the last run, with the errors of the selected kind and group, and the group of each item of
+    // the group combobox (-1 for all groups)
+    private static final int ERRORS_PER_PAGE = 5;
+    private ErrorAnalysis errorAnalysis;
+    private long[] shownErrors = new long[0];
+    private int[] errorGroupIds = new int[0];
+    private final EntityProfileNodePool errorNodePool = new EntityProfileNodePool(280);
+    private VBox currentErrorPage = null;
+
+    // Names of the sinks that the controller adds to the log fan-out, which all its instances share
+    private static final String LOG_AREA_SINK = "log area";
+    private static final String LOG_FILE_SINK = "log file";
+    private ConsoleArea consoleArea;
+    private LogFanOut logFanOut;
 
     @Inject
     private Injector injector;
@@ -87,6 +150,15 @@ public class CompletedController {
         // Initialize list of detailed run data
         previousRunConfigs = new ArrayList<>();
 
+        // Error analysis controls
+        errorTypeCombobox.getItems().addAll("False positives", "False negatives");
+        errorTypeCombobox.getSelectionModel().select(0);
+        errorTypeCombobox.getSelectionModel().selectedIndexProperty().addListener(
+                (observable, oldValue, newValue) -> updateErrorGroups());
+        errorGroupCombobox.getSelectionModel().selectedIndexProperty().addListener(
+                (observable, oldValue, newValue) -> updateErrorPages());
+        errorPagination.setPageFactory(this::createErrorPage);
+
         // Create gauges
         recallGauge = newGauge("Recall");
         gaugesHBox.getChildren().add(recallGauge);
@@ -97,18 +169,31 @@ public class CompletedController {
         f1Gauge = newGauge("F1-measure");
         gaugesHBox.getChildren().add(f1Gauge);
 
-        // Setup text area as log
-        ConsoleArea ca = new ConsoleArea(logTextArea);
-        PrintStream ps = new PrintStream(ca, true);
-
-        MultiOutputStream multiOut = new MultiOutputStream(System.out, ps);
-        MultiOutputStream multiErr = new MultiOutputStream(System.err, ps);
+        // The cluster size histogram shows log10(count) + 1, so label the ticks with the counts they stand for
+        clusterCountAxis.setAutoRanging(false);
+        clusterCountAxis.setMinorTickVisible(false);
+        clusterCountAxis.setTickUnit(1);
+        clusterCountAxis.setTickLabelFormatter(new StringConverter<Number>() {
+            @Override
+            public String toString(Number value) {
+                return (value.doubleValue() < 1) ? "0" : String.format("%,.0f", Math.pow(10, value.doubleValue() - 1));
+            }
 
-        PrintStream out = new PrintStream(multiOut);
-        PrintStream err = new PrintStream(multiErr);
+            @Override
+            public Number fromString(String string) {
+                return null;
+            }
+        });
 
-        System.setOut(out);
-        System.setErr(err);
+        // Setup text area as log. The output goes to the original console and the text area (and optionally a log
+        // file) through the fan-out of the standard streams, which replaces the text area of a previous controller.
+        consoleArea = new ConsoleArea(logTextArea);
+        logFanOut = LogFanOut.install();
+        logFanOut.addSink(LOG_AREA_SINK, consoleArea);
+        blockLogCheckBox.setSelected(logFanOut.getOverflowPolicy() == LogFanOut.OverflowPolicy.BLOCK);
+        logFileCheckBox.setSelected(logFanOut.hasSink(LOG_FILE_SINK));
+        logFileCheckBox.setTooltip(new Tooltip("Also write the output to " + RollingLogFile.DEFAULT_FILE +
+                ", which rolls over every 10MB"));
 
         // Save the TabPane's selection model to use it for resetting the selected tab later
         SingleSelectionModel<Tab> tabSelectionModel = resultsTabPane.getSelectionModel();
@@ -129,44 +214,111 @@ public class CompletedController {
         autoConfigContainer.getChildren().add(l);
         List<String> searchTypes = Arrays.asList(
                 JedaiOptions.AUTOCONFIG_RANDOMSEARCH,
-                JedaiOptions.AUTOCONFIG_GRIDSEARCH
+                JedaiOptions.AUTOCONFIG_GRIDSEARCH,
+                JedaiOptions.AUTOCONFIG_ADAPTIVEGRIDSEARCH,
+                JedaiOptions.AUTOCONFIG_SUCCESSIVEHALVING
         );
         RadioButtonHelper.createButtonGroup(autoConfigContainer, searchTypes, model.searchTypeProperty());
 
-        // Get the last 2 radio buttons of the container, which are the search types, in order to be able to disable
-        // them later
+        // Get the search type radio buttons, in order to be able to disable them later
         List<Node> searchRadioBtns = new ArrayList<>();
-        List<Node> autoConfigNodes = autoConfigContainer.getChildren();
-        for (Node n : autoConfigNodes) {
-            if (n instanceof RadioButton) {
-                if (autoConfigNodes.indexOf(n) > autoConfigNodes.size() - 3) {
-                    searchRadioBtns.add(n);
-                }
+        for (Node n : autoConfigContainer.getChildren()) {
+            if (n instanceof RadioButton && searchTypes.contains(n.getUserData())) {
+                searchRadioBtns.add(n);
             }
         }
 
-        // Add listener to disable search type selection for holistic auto configuration
-        model.autoConfigTypeProperty().addListener((observable, oldValue, newValue) -> {
-            // If the new selection is holistic search, select random search
-            if (newValue.equals(JedaiOptions.AUTOCONFIG_HOLISTIC)) {
-                model.setSearchType(JedaiOptions.AUTOCONFIG_RANDOMSEARCH);
-            }
-
-            // Enable or disable the radio buttons
-            toggleNodes(searchRadioBtns, newValue.equals(JedaiOptions.AUTOCONFIG_HOLISTIC));
-        });
+        // Add listener to enable only the search types that the selected auto configuration type supports
+        model.autoConfigTypeProperty().addListener((observable, oldValue, newValue) ->
+                updateSearchTypes(searchRadioBtns, newValue));
 
         // Enable or disable the radio buttons depending on the initially selected auto-config. type
-        toggleNodes(searchRadioBtns, model.getAutoConfigType().equals(JedaiOptions.AUTOCONFIG_HOLISTIC));
+        updateSearchTypes(searchRadioBtns, model.getAutoConfigType());
+
+        // Add search budget inputs, per workflow step and for the whole automatic configuration
+        autoConfigContainer.getChildren().add(new Separator());
+        l = new Label("Search Budget");
+        l.setFont(Font.font("System", FontWeight.BOLD, 12));
+        l.setTooltip(new Tooltip("The search stops when any budget runs out and keeps the best configuration found " +
+                "so far (0 means no limit). Trials per step is the number of random search trials, and also limits " +
+                "the configurations that grid search evaluates."));
+        autoConfigContainer.getChildren().add(l);
+
+        GridPane budgetGrid = new GridPane();
+        budgetGrid.setHgap(5);
+        budgetGrid.setVgap(5);
+        budgetGrid.addRow(0, new Label(), new Label("Per step"), new Label("Total"));
+        budgetGrid.addRow(1, new Label("Trials"),
+                newBudgetSpinner(model.stageTrialBudgetProperty(), 1),
+                newBudgetSpinner(model.totalTrialBudgetProperty(), 0));
+        budgetGrid.addRow(2, new Label("Time (sec.)"),
+                newBudgetSpinner(model.stageTimeBudgetProperty(), 0),
+                newBudgetSpinner(model.totalTimeBudgetProperty(), 0));
+        budgetGrid.addRow(3, new Label("Comparisons"),
+                newBudgetSpinner(model.stageComparisonBudgetProperty(), 0),
+                newBudgetSpinner(model.totalComparisonBudgetProperty(), 0));
+        autoConfigContainer.getChildren().add(budgetGrid);
+
+        // Add the objective of the search, with the limits per trial for constrained search
+        autoConfigContainer.getChildren().add(new Separator());
+        l = new Label("Objective");
+        l.setFont(Font.font("System", FontWeight.BOLD, 12));
+        l.setTooltip(new Tooltip("Maximize quality only, maximize quality among the configurations within the " +
+                "limits per trial, or pick a configuration from the trials that are not both slower and worse " +
+                "than another one"));
+        autoConfigContainer.getChildren().add(l);
+        List<String> objectiveModes = Arrays.asList(
+                JedaiOptions.OBJECTIVE_QUALITY,
+                JedaiOptions.OBJECTIVE_CONSTRAINED,
+                JedaiOptions.OBJECTIVE_PARETO
+        );
+        RadioButtonHelper.createButtonGroup(autoConfigContainer, objectiveModes, model.objectiveModeProperty());
+
+        GridPane limitsGrid = new GridPane();
+        limitsGrid.setHgap(5);
+        limitsGrid.setVgap(5);
+        limitsGrid.addRow(0, new Label("Max time per trial (ms)"),
+                newBudgetSpinner(model.maxTrialTimeProperty(), 0));
+        limitsGrid.addRow(1, new Label("Max comparisons per trial"),
+                newBudgetSpinner(model.maxTrialComparisonsProperty(), 0));
+        limitsGrid.disableProperty().bind(
+                model.objectiveModeProperty().isNotEqualTo(JedaiOptions.OBJECTIVE_CONSTRAINED));
+        autoConfigContainer.getChildren().add(limitsGrid);
+
+        // Add execution options
+        autoConfigContainer.getChildren().add(new Separator());
+        l = new Label("Execution Options");
+        l.setFont(Font.font("System", FontWeight.BOLD, 12));
+        autoConfigContainer.getChildren().add(l);
+
+        CheckBox streamingCheckBox = new CheckBox("Threshold-filtered matching");
+        streamingCheckBox.setTooltip(new Tooltip("Keep only the comparisons that reach the entity clustering " +
+                "similarity threshold (not available when entity clustering is configured automatically)"));
+        streamingCheckBox.selectedProperty().bindBidirectional(model.streamingMatchingProperty());
+        autoConfigContainer.getChildren().add(streamingCheckBox);
+
+        CheckBox warmStartCheckBox = new CheckBox("Warm start from tuning cache");
+        warmStartCheckBox.setTooltip(new Tooltip("Reuse the best grid configurations that previous runs found for " +
+                "the same data and methods, and stop random searches once they reach the best previous result"));
+        warmStartCheckBox.selectedProperty().bindBidirectional(model.warmStartProperty());
+        autoConfigContainer.getChildren().add(warmStartCheckBox);
 
         // Add output options to the output format combobox
         ObservableList<String> outputFormats = FXCollections.observableArrayList(
                 JedaiOptions.CSV,
                 JedaiOptions.XML,
-                JedaiOptions.RDF
+                JedaiOptions.RDF,
+                JedaiOptions.BINARY,
+                JedaiOptions.BLOCKS_ARTIFACT,
+                JedaiOptions.SIMILARITIES_ARTIFACT
         );
         outputFormatCombobox.setItems(outputFormats);
 
+        // Binary files are read in bulk or memory-mapped, so they cannot be compressed
+        gzipCheckBox.disableProperty().bind(outputFormatCombobox.valueProperty().isEqualTo(JedaiOptions.BINARY)
+                .or(outputFormatCombobox.valueProperty().isEqualTo(JedaiOptions.BLOCKS_ARTIFACT))
+                .or(outputFormatCombobox.valueProperty().isEqualTo(JedaiOptions.SIMILARITIES_ARTIFACT)));
+
         // Disable the export button when the output format isn't selected or when the exploration button is disabled
         exportBtn.disableProperty().bind(
                 outputFormatCombobox.valueProperty().isNull()
@@ -178,14 +330,65 @@ public class CompletedController {
     }
 
     /**
-     * Enable or disable a list of nodes (used for the automatic configuration radio buttons)
+     * Create an editable spinner for a search budget, which updates the given model property. Typed text is committed
+     * when the spinner loses focus too (not only on Enter), so a budget that is typed before clicking "Run" is used.
+     *
+     * @param property Model property of the budget
+     * @param min      Minimum value of the budget
+     * @return Spinner for the budget
+     */
+    private Spinner<Integer> newBudgetSpinner(IntegerProperty property, int min) {
+        Spinner<Integer> spinner = new Spinner<>(min, Integer.MAX_VALUE, property.get());
+        spinner.setEditable(true);
+        spinner.setPrefWidth(80);
+        spinner.valueProperty().addListener((observable, oldValue, newValue) -> property.set(newValue));
+        spinner.focusedProperty().addListener((observable, oldValue, newValue) -> {
+            if (!newValue) {
+                commitSpinnerText(spinner);
+            }
+        });
+
+        return spinner;
+    }
+
+    /**
+     * Set the value of an editable spinner to the text of its editor, or reset the text if it is not a valid value
      *
-     * @param nodes   Nodes to enable or disable
-     * @param disable Whether to disable the nodes or enable them
+     * @param spinner Spinner to commit
      */
-    private void toggleNodes(List<Node> nodes, boolean disable) {
-        for (Node n : nodes) {
-            n.setDisable(disable);
+    private void commitSpinnerText(Spinner<Integer> spinner) {
+        SpinnerValueFactory<Integer> valueFactory = spinner.getValueFactory();
+        try {
+            Integer value = valueFactory.getConverter().fromString(spinner.getEditor().getText());
+            if (value != null) {
+                valueFactory.setValue(value);
+            }
+        } catch (NumberFormatException e) {
+            // Invalid text, the value is not changed
+        }
+        spinner.getEditor().setText(valueFactory.getConverter().toString(valueFactory.getValue()));
+    }
+
+    /**
+     * Enable the search type radio buttons that are supported by the given automatic configuration type and disable
+     * the rest (holistic configuration supports random search and successive halving, step-by-step supports random,
+     * grid and adaptive grid search). If the selected search type is not supported, random search is selected.
+     *
+     * @param searchRadioBtns Search type radio buttons
+     * @param autoConfigType  Selected automatic configuration type
+     */
+    private void updateSearchTypes(List<Node> searchRadioBtns, String autoConfigType) {
+        List<String> unsupported = autoConfigType.equals(JedaiOptions.AUTOCONFIG_HOLISTIC) ?
+                Arrays.asList(JedaiOptions.AUTOCONFIG_GRIDSEARCH, JedaiOptions.AUTOCONFIG_ADAPTIVEGRIDSEARCH) :
+                Collections.singletonList(JedaiOptions.AUTOCONFIG_SUCCESSIVEHALVING);
+
+        // If the selected search type is not supported, select random search
+        if (unsupported.contains(model.getSearchType())) {
+            model.setSearchType(JedaiOptions.AUTOCONFIG_RANDOMSEARCH);
+        }
+
+        for (Node n : searchRadioBtns) {
+            n.setDisable(unsupported.contains(n.getUserData()));
         }
     }
 
@@ -209,7 +412,9 @@ public class CompletedController {
                 new ImmutableTriple<>("F1-measure", "fMeasureRounded", 1),
                 new ImmutableTriple<>("Total time (sec.)", "totalTime", 1),
                 new ImmutableTriple<>("Input instances", "inputInstances", 1),
-                new ImmutableTriple<>("Clusters #", "numOfClusters", 1)
+                new ImmutableTriple<>("Clusters #", "numOfClusters", 1),
+                new ImmutableTriple<>("Saved comparisons", "savedComparisons", 1),
+                new ImmutableTriple<>("Executed comparisons", "executedComparisons", 1)
         );
 
         // Sum the column widths (+1 because we add Details column later)
@@ -238,13 +443,131 @@ public class CompletedController {
         TreeTableColumn<WorkflowResult, Object> detailsBtnCol = new TreeTableColumn<>("Details");
         detailsBtnCol.setCellValueFactory(new TreeItemPropertyValueFactory<>("detailsId"));
         detailsBtnCol.setCellFactory(
-                param -> new DetailsTreeCell(root.getChildren(), this.previousRunConfigs, this.injector));
+                param -> new DetailsTreeCell(root.getChildren(), this::getRunConfiguration, this.injector));
         resultsTable.getColumns().add(detailsBtnCol);
 
+        // Two runs can be selected to compare their clusters
+        resultsTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        compareRunsBtn.disableProperty().bind(
+                Bindings.size(resultsTable.getSelectionModel().getSelectedItems()).isNotEqualTo(2));
+
+        // Add the runs of earlier sessions
+        for (RunStore.StoredRun run : runStore.getRuns()) {
+            WorkflowResult total = run.getTotal();
+            total.setDetailsId(tableData.size());
+
+            TreeItem<WorkflowResult> runItem = new TreeItem<>(total);
+            for (WorkflowResult step : run.getSteps()) {
+                runItem.getChildren().add(new TreeItem<>(step));
+            }
+            root.getChildren().add(runItem);
+            tableData.add(total);
+            addRunHistory(null, null, run.getId());
+        }
+
         // Hide recall chart button for all workflows except progressive
         showPlotBtn.visibleProperty().bind(model.workflowProperty().isEqualTo(JedaiOptions.WORKFLOW_PROGRESSIVE));
     }
 
+    private synchronized void addRunHistory(WizardData config, ClusterAssignment clusters, int storedRunId) {
+        previousRunConfigs.add(config);
+        previousRunClusters.add(clusters);
+        storedRunIds.add(storedRunId);
+    }
+
+    private synchronized void setStoredRunId(int index, int storedRunId) {
+        // The history may have been cleared while the run was being stored
+        if (index < storedRunIds.size()) {
+            storedRunIds.set(index, storedRunId);
+        }
+    }
+
+    /**
+     * Get the configuration of a Workbench run, reading it from the run store if it is from an earlier session
+     *
+     * @param index Index of the run in the Workbench
+     * @return Configuration of the run, or null if it is not available
+     */
+    private synchronized WizardData getRunConfiguration(int index) {
+        if (index < 0 || previousRunConfigs.size() <= index) {
+            return null;
+        }
+
+        if (previousRunConfigs.get(index) == null && 0 <= storedRunIds.get(index)) {
+            try {
+                previousRunConfigs.set(index, runStore.loadConfiguration(storedRunIds.get(index)));
+            } catch (IOException e) {
+                DialogHelper.showError("Run history", "Could not read the configuration of the run!",
+                        "Details: " + e.getMessage());
+            }
+        }
+        return previousRunConfigs.get(index);
+    }
+
+    /**
+     * Get the clusters of a Workbench run, reading them from the run store if it is from an earlier session
+     *
+     * @param index Index of the run in the Workbench
+     * @return Clusters of the run
+     * @throws IOException When the clusters of a stored run cannot be read
+     */
+    private synchronized ClusterAssignment getRunClusters(int index) throws IOException {
+        if (previousRunClusters.get(index) == null) {
+            previousRunClusters.set(index, runStore.loadClusters(storedRunIds.get(index)));
+        }
+        return previousRunClusters.get(index);
+    }
+
+    /**
+     * Remove all runs from the Workbench and from the run history
+     *
+     * @param actionEvent Click event of the button
+     */
+    public synchronized void clearHistory(ActionEvent actionEvent) {
+        try {
+            runStore.clear();
+        } catch (IOException e) {
+            DialogHelper.showError("Run history", "Could not clear the run history!", "Details: " + e.getMessage());
+            return;
+        }
+
+        resultsTable.getRoot().getChildren().clear();
+        tableData.clear();
+        previousRunConfigs.clear();
+        previousRunClusters.clear();
+        storedRunIds.clear();
+    }
+
+    /**
+     * Start or stop writing the output to the log file, depending on the log file checkbox
+     *
+     * @param actionEvent Click event of the checkbox
+     */
+    public void toggleLogFile(ActionEvent actionEvent) {
+        if (!logFileCheckBox.isSelected()) {
+            logFanOut.removeSink(LOG_FILE_SINK);
+            return;
+        }
+
+        try {
+            logFanOut.addSink(LOG_FILE_SINK, new RollingLogFile());
+        } catch (IOException e) {
+            logFileCheckBox.setSelected(false);
+            DialogHelper.showError("Log file", "Could not open the log file!", "Details: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Make the workflow wait for the log area and the log file instead of dropping output, depending on the
+     * checkbox (the original console never drops output)
+     *
+     * @param actionEvent Click event of the checkbox
+     */
+    public void toggleLogBlocking(ActionEvent actionEvent) {
+        logFanOut.setOverflowPolicy(blockLogCheckBox.isSelected()
+                ? LogFanOut.OverflowPolicy.BLOCK : LogFanOut.OverflowPolicy.DROP);
+    }
+
     /**
      * Generate a new Medusa Gauge for showing a clustering accuracy metric
      *
@@ -288,10 +611,38 @@ public class CompletedController {
 
     @FXML
     private void runAlgorithmBtnHandler() {
-        // Reset console area
-        logTextArea.clear();
+        runWorkflow(null);
+    }
+
+    /**
+     * Ask the user for a stage artifact (blocks or similarity pairs of a previous run on the same datasets), and run
+     * the workflow from the stage after it
+     *
+     * @param actionEvent Button event
+     */
+    public void runFromArtifact(ActionEvent actionEvent) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Stage artifact", "*.jblk", "*.jsim"));
+
+        File file = fileChooser.showOpenDialog(containerVBox.getScene().getWindow());
+        if (file != null) {
+            runWorkflow(file);
+        }
+    }
+
+    /**
+     * Run the workflow in a separate thread and show its results
+     *
+     * @param startArtifact Stage artifact to start from (null to run all stages)
+     */
+    private void runWorkflow(File startArtifact) {
+        // Reset console area and the log statistics
+        consoleArea.clear();
+        logFanOut.resetStatistics();
 
         workflowMgr = new WorkflowManager(model);
+        workflowMgr.setStartArtifact(startArtifact);
+        workflowMgr.setKeepStageArtifacts(keepArtifactsCheckBox.isSelected());
 
         // Runnable that will run algorithm in separate thread
         new Thread(() -> {
@@ -299,6 +650,7 @@ public class CompletedController {
             model.setWorkflowRunning(true);
             exploreBtn.setDisable(true);
             showPlotBtn.setDisable(true);
+            showTrialsBtn.setDisable(true);
 
             // Set the starting time
             long startTime = System.currentTimeMillis();
@@ -322,8 +674,11 @@ public class CompletedController {
                     return;
                 }
 
-                // Get the generated clusters
+                // Get the generated clusters, and index them for searching in the background
                 entityClusters = workflowMgr.getEntityClusters();
+                startSearchIndexing();
+                startErrorAnalysis();
+                ClusterStatistics clusterStats = new ClusterStatistics(entityClusters, isCleanCleanEr);
 
                 // Set gauge values & status label
                 f1Gauge.setValue(clp.getFMeasure());
@@ -345,8 +700,12 @@ public class CompletedController {
                 addResultToTable(total, workflowMgr);
                 tableData.add(total);
 
-                // Add a copy of current WizardData to the list
-                previousRunConfigs.add(WizardData.cloneData(model));
+                // Add a copy of current WizardData and of the clusters to the lists
+                WizardData runConfig = WizardData.cloneData(model);
+                List<EntityProfile> profilesD2 = workflowMgr.getProfilesD2();
+                addRunHistory(runConfig, new ClusterAssignment(entityClusters, inputInstances,
+                        (profilesD2 != null) ? profilesD2.size() : 0, isCleanCleanEr,
+                        workflowMgr.getDatasetFingerprint()), -1);
 
                 // Update labels and JavaFX UI components from UI thread
                 Platform.runLater(() -> {
@@ -360,10 +719,23 @@ public class CompletedController {
                     numOfClustersLabel.setText("Number of clusters: " + numOfClusters);
                     numOfClustersLabel.setVisible(true);
 
+                    showClusterStatistics(clusterStats);
+
                     // Enable exploration button
                     exploreBtn.setDisable(false);
                     showPlotBtn.setDisable(false);
+                    showTrialsBtn.setDisable(workflowMgr.getTrialLog().isEmpty());
                 });
+
+                // Store the run for later sessions (after updating the UI, since writing the clusters takes a while)
+                try {
+                    int storedRunId = runStore.addRun(total, workflowMgr.getPerformancePerStep(), runConfig,
+                            entityClusters, workflowMgr.getProfilesD1(), profilesD2,
+                            workflowMgr.getDatasetFingerprint());
+                    setStoredRunId(total.getDetailsId(), storedRunId);
+                } catch (IOException e) {
+                    System.err.println("Could not save the run to the run history: " + e.getMessage());
+                }
             } catch (Exception e) {
                 // Exception occurred, show alert with information about it
                 DialogHelper.showError("Exception",
@@ -377,19 +749,43 @@ public class CompletedController {
                 model.setWorkflowRunning(false);
             }
 
+            // Report the log output that could not keep up with the workflow
+            System.out.println("Log records dropped\t:\t" + logFanOut.getDroppedRecords());
+            System.out.println("Log records delayed\t:\t" + logFanOut.getDelayedRecords());
+
             // Workflow ran, set workflowRunning boolean to false
             model.setWorkflowRunning(false);
         }).start();
     }
 
     /**
-     * Ask the user for a filename with a save file dialog, and save a file with the entity clusters
+     * Ask the user for a filename with a save file dialog, and save a file with the entity clusters in the background.
+     * While the export runs, the export button cancels it.
      */
     public void exportBtnHandler() {
+        // Cancel the running export
+        if (exportTask != null && exportTask.isRunning()) {
+            exportTask.cancel();
+            return;
+        }
+
         FileChooser fileChooser = new FileChooser();
 
-        // Get selected output format
+        // Get selected output format and compression
         String outputFormat = outputFormatCombobox.getValue();
+        boolean isArtifact = outputFormat.equals(JedaiOptions.BLOCKS_ARTIFACT)
+                || outputFormat.equals(JedaiOptions.SIMILARITIES_ARTIFACT);
+        boolean gzip = gzipCheckBox.isSelected() && !outputFormat.equals(JedaiOptions.BINARY) && !isArtifact;
+
+        // Stage artifacts are only kept when asked, and only by blocking-based workflows
+        List<AbstractBlock> blocks = workflowMgr.getFinalBlocks();
+        SimilarityPairs simPairs = workflowMgr.getFinalSimilarityPairs();
+        if (isArtifact && (blocks == null || simPairs == null)) {
+            DialogHelper.showError("Export problem", "The blocks and similarity pairs of the last run were not kept!",
+                    "Check \"Keep blocks and similarity pairs\" and run a blocking-based workflow again to export " +
+                            "them.");
+            return;
+        }
 
         // Set extension
         String extension = null;
@@ -401,6 +797,18 @@ public class CompletedController {
             case JedaiOptions.RDF:
                 extension = "*.xml";
                 break;
+            case JedaiOptions.BINARY:
+                extension = "*.jclu";
+                break;
+            case JedaiOptions.BLOCKS_ARTIFACT:
+                extension = "*.jblk";
+                break;
+            case JedaiOptions.SIMILARITIES_ARTIFACT:
+                extension = "*.jsim";
+                break;
+        }
+        if (gzip) {
+            extension += ".gz";
         }
 
         // Set extension filter
@@ -411,33 +819,286 @@ public class CompletedController {
         File file = fileChooser.showSaveDialog(containerVBox.getScene().getWindow());
 
         if (file != null) {
-            // Create performance writer object
-            ClustersPerformanceWriter cpw = new ClustersPerformanceWriter(
-                    workflowMgr.getEntityClusters(),
-                    workflowMgr.getDuplicatePropagation()
-            );
+            ClustersExporter exporter = new ClustersExporter(workflowMgr.getEntityClusters(),
+                    workflowMgr.getProfilesD1(), workflowMgr.getProfilesD2(), workflowMgr.getDuplicatePropagation());
+            List<EntityProfile> profilesD2 = workflowMgr.getProfilesD2();
+            boolean isCleanCleanEr = (profilesD2 != null);
+            int noOfEntitiesD1 = workflowMgr.getProfilesD1().size();
+            int noOfEntitiesD2 = isCleanCleanEr ? profilesD2.size() : 0;
+
+            // Write the clusters in a background task, which reports the number of clusters written as progress
+            exportTask = new Task<Boolean>() {
+                @Override
+                protected Boolean call() throws Exception {
+                    if (outputFormat.equals(JedaiOptions.BLOCKS_ARTIFACT)) {
+                        return StageArtifacts.writeBlocks(file, blocks, isCleanCleanEr, noOfEntitiesD1,
+                                noOfEntitiesD2, this::isCancelled);
+                    } else if (outputFormat.equals(JedaiOptions.SIMILARITIES_ARTIFACT)) {
+                        return StageArtifacts.writeSimilarityPairs(file, simPairs, noOfEntitiesD1, noOfEntitiesD2,
+                                this::isCancelled);
+                    }
+                    return exporter.export(file, outputFormat, gzip,
+                            (written, total) -> updateProgress(written, total), this::isCancelled);
+                }
+            };
+
+            exportTask.setOnSucceeded(event -> finishExport());
+            exportTask.setOnCancelled(event -> finishExport());
+            exportTask.setOnFailed(event -> {
+                finishExport();
+                Throwable e = exportTask.getException();
+                DialogHelper.showError("Export problem", "An exception occurred while exporting the results!",
+                        "Details: " + e.toString());
+            });
+
+            // Show the progress, and turn the export button into a cancel button
+            exportProgressBar.progressProperty().bind(exportTask.progressProperty());
+            exportProgressBar.setVisible(true);
+            exportBtn.setText("Cancel");
+
+            Thread exportThread = new Thread(exportTask);
+            exportThread.setDaemon(true);
+            exportThread.start();
+        }
+    }
 
-            // Export the results to file
-            try {
-                switch (outputFormat) {
-                    case JedaiOptions.CSV:
-                        // Output CSV
-                        cpw.printDetailedResultsToCSV(workflowMgr.getProfilesD1(), workflowMgr.getProfilesD2(),
-                                file.getAbsolutePath());
-                        break;
-                    case JedaiOptions.XML:
-                        cpw.printDetailedResultsToXML(workflowMgr.getProfilesD1(), workflowMgr.getProfilesD2(),
-                                file.getAbsolutePath());
-                        break;
-                    case JedaiOptions.RDF:
-                        cpw.printDetailedResultsToRDF(workflowMgr.getProfilesD1(), workflowMgr.getProfilesD2(),
-                                file.getAbsolutePath());
-                        break;
+    /**
+     * Restore the export controls after an export finished, failed or was cancelled
+     */
+    private void finishExport() {
+        exportProgressBar.progressProperty().unbind();
+        exportProgressBar.setVisible(false);
+        exportBtn.setText("Export");
+    }
+
+    /**
+     * Show the cluster statistics of the last run in the cluster statistics tab
+     *
+     * @param stats Cluster statistics
+     */
+    private void showClusterStatistics(ClusterStatistics stats) {
+        // Summary
+        clusterStatsGrid.getChildren().clear();
+        int row = 0;
+        addStatisticsRow(row++, "Clusters", String.format("%,d", stats.getNoOfClusters()));
+        addStatisticsRow(row++, "Empty clusters", String.format("%,d", stats.getNoOfEmpty()));
+        addStatisticsRow(row++, "Entities in clusters", String.format("%,d", stats.getNoOfEntities()));
+        addStatisticsRow(row++, "Mean size", String.format("%.2f", stats.getMeanSize()));
+        addStatisticsRow(row++, "Largest size", String.format("%,d", stats.getMaxSize()));
+        addStatisticsRow(row++, "Singletons", String.format("%,d (%.1f%%)", stats.getNoOfSingletons(),
+                100 * stats.getSingletonRatio()));
+
+        if (stats.isCleanCleanEr()) {
+            addStatisticsRow(row++, "Only dataset 1", String.format("%,d", stats.getOnlyD1()));
+            addStatisticsRow(row++, "Only dataset 2", String.format("%,d", stats.getOnlyD2()));
+            addStatisticsRow(row++, "Balanced (D1 = D2)", String.format("%,d", stats.getBalanced()));
+            addStatisticsRow(row++, "Mean dataset 1 share", String.format("%.3f", stats.getMeanD1Share()));
+        }
+
+        // Largest clusters
+        Label largestTitle = new Label("Largest clusters");
+        largestTitle.setFont(Font.font(null, FontWeight.BOLD, 12));
+        clusterStatsGrid.add(largestTitle, 0, row++, 2, 1);
+
+        int[] largest = stats.getLargestClusters();
+        int[] largestSizes = stats.getLargestClusterSizes();
+        for (int i = 0; i < largest.length; i++) {
+            addStatisticsRow(row++, "Cluster " + largest[i], String.format("%,d", largestSizes[i]));
+        }
+
+        // Size histogram, with log-scaled counts (see the axis formatter)
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        long[] histogram = stats.getSizeHistogram();
+        long maxCount = 0;
+        for (int bin = 0; bin < histogram.length; bin++) {
+            long count = histogram[bin];
+            maxCount = Math.max(maxCount, count);
+
+            XYChart.Data<String, Number> data = new XYChart.Data<>(ClusterStatistics.getBinLabel(bin),
+                    (count == 0) ? 0 : Math.log10(count) + 1);
+            data.nodeProperty().addListener((observable, oldNode, node) -> {
+                if (node != null) {
+                    Tooltip.install(node, new Tooltip(String.format("%,d clusters", count)));
                 }
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
+            });
+            series.getData().add(data);
+        }
+
+        clusterCountAxis.setLowerBound(0);
+        clusterCountAxis.setUpperBound(Math.max(1, Math.ceil(Math.log10(Math.max(1, maxCount)) + 1)));
+        clusterSizeChart.getData().setAll(Collections.singletonList(series));
+    }
+
+    private void addStatisticsRow(int row, String name, String value) {
+        clusterStatsGrid.add(new Label(name), 0, row);
+        clusterStatsGrid.add(new Label(value), 1, row);
+    }
+
+    /**
+     * Start building the search index of the results explorer for the last run's clusters, in a background thread
+     */
+    private void startSearchIndexing() {
+        final EquivalenceCluster[] clusters = entityClusters;
+        final List<EntityProfile> profilesD1 = workflowMgr.getProfilesD1();
+        final List<EntityProfile> profilesD2 = workflowMgr.getProfilesD2();
+
+        searchIndexTask = new Task<EntitySearchIndex>() {
+            @Override
+            protected EntitySearchIndex call() {
+                return new EntitySearchIndex(clusters, profilesD1, profilesD2);
+            }
+        };
+
+        Thread indexThread = new Thread(searchIndexTask);
+        indexThread.setDaemon(true);
+        indexThread.start();
+    }
+
+    /**
+     * Start finding the false positives and false negatives of the last run, in a background thread
+     */
+    private void startErrorAnalysis() {
+        final EquivalenceCluster[] clusters = entityClusters;
+        final AbstractDuplicatePropagation groundTruth = workflowMgr.getDuplicatePropagation();
+        final List<EntityProfile> profilesD1 = workflowMgr.getProfilesD1();
+        final List<EntityProfile> profilesD2 = workflowMgr.getProfilesD2();
+
+        Platform.runLater(() -> {
+            errorTypeCombobox.setDisable(true);
+            errorGroupCombobox.setDisable(true);
+            errorSummaryLabel.setText("Finding errors...");
+        });
+
+        Task<ErrorAnalysis> errorTask = new Task<ErrorAnalysis>() {
+            @Override
+            protected ErrorAnalysis call() {
+                return new ErrorAnalysis(clusters, groundTruth, profilesD1, profilesD2);
+            }
+        };
+        errorTask.setOnSucceeded(event -> {
+            // The profiles of the previous run are not shown again
+            errorNodePool.clear();
+            errorAnalysis = errorTask.getValue();
+            errorTypeCombobox.setDisable(false);
+            errorGroupCombobox.setDisable(false);
+            updateErrorGroups();
+        });
+        errorTask.setOnFailed(event -> errorSummaryLabel.setText(
+                "Could not find the errors: " + errorTask.getException()));
+
+        Thread errorThread = new Thread(errorTask);
+        errorThread.setDaemon(true);
+        errorThread.start();
+    }
+
+    /**
+     * Fill the group combobox with the attribute groups of the selected kind of errors, from largest to smallest
+     */
+    private void updateErrorGroups() {
+        if (errorAnalysis == null) {
+            return;
+        }
+
+        boolean falsePositives = errorTypeCombobox.getSelectionModel().getSelectedIndex() == 0;
+        int[] sizes = errorAnalysis.getGroupSizes(falsePositives);
+        List<Integer> groupIds = new ArrayList<>();
+        int listedErrors = 0;
+        for (int groupId = 0; groupId < sizes.length; groupId++) {
+            if (0 < sizes[groupId]) {
+                groupIds.add(groupId);
+                listedErrors += sizes[groupId];
+            }
+        }
+        groupIds.sort((a, b) -> Integer.compare(sizes[b], sizes[a]));
+
+        // Summary of the errors
+        if (falsePositives) {
+            long noOfErrors = errorAnalysis.getNoOfFalsePositives();
+            errorSummaryLabel.setText(String.format("%,d false positives", noOfErrors)
+                    + (listedErrors < noOfErrors ? String.format(" (first %,d listed)", listedErrors) : ""));
+        } else {
+            errorSummaryLabel.setText(String.format("%,d false negatives", errorAnalysis.getNoOfFalseNegatives()));
+        }
+
+        List<String> items = new ArrayList<>();
+        errorGroupIds = new int[groupIds.size() + 1];
+        items.add(String.format("All attributes (%,d)", listedErrors));
+        errorGroupIds[0] = -1;
+        for (int i = 0; i < groupIds.size(); i++) {
+            int groupId = groupIds.get(i);
+            items.add(String.format("%s (%,d)", errorAnalysis.getGroups().get(groupId), sizes[groupId]));
+            errorGroupIds[i + 1] = groupId;
+        }
+
+        // Replacing the items clears the selection, so selecting the first item updates the pages
+        errorGroupCombobox.getItems().setAll(items);
+        errorGroupCombobox.getSelectionModel().select(0);
+    }
+
+    /**
+     * Show the errors of the selected kind and group in the error pagination
+     */
+    private void updateErrorPages() {
+        int index = errorGroupCombobox.getSelectionModel().getSelectedIndex();
+        if (errorAnalysis == null || index < 0) {
+            return;
+        }
+
+        boolean falsePositives = errorTypeCombobox.getSelectionModel().getSelectedIndex() == 0;
+        shownErrors = errorAnalysis.getErrors(falsePositives, errorGroupIds[index]);
+
+        // Setting the page factory again recreates the current page
+        errorPagination.setPageCount(Math.max(1, (shownErrors.length + ERRORS_PER_PAGE - 1) / ERRORS_PER_PAGE));
+        errorPagination.setCurrentPageIndex(0);
+        errorPagination.setPageFactory(this::createErrorPage);
+    }
+
+    /**
+     * Create a page of the error pagination, with the two entities of each error side by side
+     *
+     * @param pageIndex Index of the page
+     * @return Page node
+     */
+    private Node createErrorPage(int pageIndex) {
+        // Take the profile nodes of the previous page
+        if (currentErrorPage != null) {
+            for (Node row : currentErrorPage.getChildren()) {
+                errorNodePool.releaseAll(((HBox) row).getChildren());
+            }
+        }
+        currentErrorPage = new VBox(5);
+
+        if (shownErrors.length == 0) {
+            currentErrorPage.getChildren().add(new HBox(new Label("No errors to show")));
+        }
+
+        int firstError = pageIndex * ERRORS_PER_PAGE;
+        int lastError = Math.min(firstError + ERRORS_PER_PAGE, shownErrors.length);
+        for (int i = firstError; i < lastError; i++) {
+            long pair = shownErrors[i];
+
+            // Attributes and tokens the entities share (at most 20 tokens)
+            List<String> sharedTokens = new ArrayList<>(errorAnalysis.getSharedTokens(pair));
+            if (20 < sharedTokens.size()) {
+                sharedTokens = sharedTokens.subList(0, 20);
+                sharedTokens.add("...");
             }
+            Label attributesLabel = new Label("Attributes: " + errorAnalysis.getSharedAttributes(pair));
+            Label tokensLabel = new Label("Shared tokens: " + String.join(", ", sharedTokens));
+            tokensLabel.setWrapText(true);
+            VBox causeBox = new VBox(5, attributesLabel, tokensLabel);
+            causeBox.setPrefWidth(200);
+
+            HBox row = new HBox(5,
+                    errorNodePool.acquire(ErrorAnalysis.getEntity1(pair), errorAnalysis.getProfile1(pair)),
+                    errorNodePool.acquire(ErrorAnalysis.getEntity2(pair), errorAnalysis.getProfile2(pair)),
+                    causeBox);
+            currentErrorPage.getChildren().add(row);
         }
+
+        ScrollPane scrollPane = new ScrollPane(currentErrorPage);
+        scrollPane.setFitToWidth(true);
+        return scrollPane;
     }
 
     /**
@@ -447,16 +1108,23 @@ public class CompletedController {
      * @param actionEvent Button event
      */
     public void exploreResults(ActionEvent actionEvent) {
-        // Get LIST of equivalence clusters (from array)
+        // Get LIST of equivalence clusters (from array), the explorer orders them by size in the background
         List<EquivalenceCluster> duplicates = Arrays.asList(this.entityClusters);
 
-        // Sort clusters from largest (in size) to smallest
-        duplicates.sort((o1, o2) -> {
-            Integer o1Size = o1.getEntityIdsD1().size() + o1.getEntityIdsD2().size();
-            Integer o2Size = o2.getEntityIdsD1().size() + o2.getEntityIdsD2().size();
-            return -o1Size.compareTo(o2Size);
-        });
+        showExplorer("Results Exploration", duplicates, !model.getErType().equals(JedaiOptions.DIRTY_ER),
+                searchIndexTask);
+    }
 
+    /**
+     * Show clusters in the results exploration window, with the profiles of the last run
+     *
+     * @param title          Title of the window
+     * @param duplicates     Clusters to show
+     * @param isCleanCleanEr True for Clean-Clean ER
+     * @param searchIndex    Search index of the clusters (null to hide the search box)
+     */
+    private void showExplorer(String title, List<EquivalenceCluster> duplicates, boolean isCleanCleanEr,
+                              Future<EntitySearchIndex> searchIndex) {
         // Load FXML for exploration window and get the controller
         Parent root = DialogHelper.loadFxml(this.getClass(), injector,
                 "wizard-fxml/EntityClusterExploration.fxml");
@@ -469,24 +1137,148 @@ public class CompletedController {
         if (controller instanceof EntityClusterExplorationController) {
             // Cast the controller instance since we know it's safe here
             EntityClusterExplorationController popupController = (EntityClusterExplorationController) controller;
-            popupController.setTitle("Results Exploration");
+            popupController.setTitle(title);
+            if (searchIndex != null) {
+                popupController.setSearchIndex(searchIndex);
+            }
 
             // Give the configuration options to the controller
-            if (model.getErType().equals(JedaiOptions.DIRTY_ER)) {
+            if (!isCleanCleanEr) {
                 popupController.setDuplicates(duplicates, workflowMgr.getProfilesD1());
             } else {
                 popupController.setDuplicates(duplicates, workflowMgr.getProfilesD1(), workflowMgr.getProfilesD2());
             }
 
             // Create the popup
-            DialogHelper.showScene(root, Modality.WINDOW_MODAL, false,
-                    "JedAI - Results Exploration");
+            Stage stage = DialogHelper.showScene(root, Modality.WINDOW_MODAL, false,
+                    "JedAI - " + title);
+            stage.setOnHidden(event -> popupController.close());
         } else {
             // This shouldn't ever happen.
             System.err.println("Error when showing the results exploration popup (Wrong controller instance?)");
         }
     }
 
+    /**
+     * Compare the clusters of the two runs that are selected in the Workbench, in a background thread, and show the
+     * differences
+     *
+     * @param actionEvent Click event of the button
+     */
+    public void compareRuns(ActionEvent actionEvent) {
+        // Find the runs of the selected rows (the rows of steps belong to the run above them)
+        List<WorkflowResult> runs = new ArrayList<>();
+        for (TreeItem<WorkflowResult> item : resultsTable.getSelectionModel().getSelectedItems()) {
+            TreeItem<WorkflowResult> runItem = (item.getParent() == resultsTable.getRoot()) ? item : item.getParent();
+            if (!runs.contains(runItem.getValue())) {
+                runs.add(runItem.getValue());
+            }
+        }
+        if (runs.size() != 2) {
+            DialogHelper.showError("Run comparison", "Select two different runs!",
+                    "Select the rows of two runs (or of their steps) in the Workbench to compare them.");
+            return;
+        }
+        runs.sort(Comparator.comparingInt(WorkflowResult::getDetailsId));
+
+        WorkflowResult runA = runs.get(0);
+        WorkflowResult runB = runs.get(1);
+
+        // The clusters of stored runs are read in the background too
+        Task<ClusterAssignmentDiff> diffTask = new Task<ClusterAssignmentDiff>() {
+            @Override
+            protected ClusterAssignmentDiff call() throws IOException {
+                return new ClusterAssignmentDiff(getRunClusters(runA.getDetailsId()),
+                        getRunClusters(runB.getDetailsId()));
+            }
+        };
+        diffTask.setOnSucceeded(event -> {
+            try {
+                showRunDiff(runA.getResultName(), getRunClusters(runA.getDetailsId()), runB.getResultName(),
+                        getRunClusters(runB.getDetailsId()), diffTask.getValue());
+            } catch (IOException e) {
+                // The clusters were read by the task
+            }
+        });
+        diffTask.setOnFailed(event -> DialogHelper.showError("Run comparison", "Could not compare the runs!",
+                "Details: " + diffTask.getException().getMessage()));
+
+        Thread diffThread = new Thread(diffTask);
+        diffThread.setDaemon(true);
+        diffThread.start();
+    }
+
+    /**
+     * Show the differences between the clusters of two runs, with buttons to explore the clusters that changed
+     *
+     * @param nameA     Name of the 1st run
+     * @param clustersA Clusters of the 1st run
+     * @param nameB     Name of the 2nd run
+     * @param clustersB Clusters of the 2nd run
+     * @param diff      Differences between the runs
+     */
+    private void showRunDiff(String nameA, ClusterAssignment clustersA, String nameB, ClusterAssignment clustersB,
+                             ClusterAssignmentDiff diff) {
+        Stage stage = new Stage();
+        stage.setTitle(nameA + " vs. " + nameB);
+
+        // Summary of the differences
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(2);
+        List<ImmutableTriple<String, Object, Object>> rows = Arrays.asList(
+                new ImmutableTriple<>("", nameA, nameB),
+                new ImmutableTriple<>("Matched pairs", diff.getPairsA(), diff.getPairsB()),
+                new ImmutableTriple<>("Pairs in both runs", diff.getCommonPairs(), diff.getCommonPairs()),
+                new ImmutableTriple<>("Pairs gained", "", diff.getGainedPairs()),
+                new ImmutableTriple<>("Pairs lost", diff.getLostPairs(), ""),
+                new ImmutableTriple<>("Clusters split", diff.getSplitClusters(), ""),
+                new ImmutableTriple<>("Clusters merged", "", diff.getMergedClusters()),
+                new ImmutableTriple<>("Changed clusters", diff.getChangedClustersA().length,
+                        diff.getChangedClustersB().length)
+        );
+        for (int row = 0; row < rows.size(); row++) {
+            ImmutableTriple<String, Object, Object> r = rows.get(row);
+            grid.addRow(row, new Label(r.getLeft()), new Label(formatCount(r.getMiddle())),
+                    new Label(formatCount(r.getRight())));
+        }
+
+        // Buttons to explore the changed clusters of each run
+        Button exploreABtn = new Button("Explore changed clusters of " + nameA);
+        exploreABtn.setOnAction(event -> exploreChangedClusters(nameA, clustersA, diff.getChangedClustersA()));
+        Button exploreBBtn = new Button("Explore changed clusters of " + nameB);
+        exploreBBtn.setOnAction(event -> exploreChangedClusters(nameB, clustersB, diff.getChangedClustersB()));
+
+        VBox container = new VBox(10, grid, new HBox(10, exploreABtn, exploreBBtn));
+        container.setPadding(new Insets(10));
+
+        stage.setScene(new Scene(container));
+        stage.show();
+    }
+
+    private static String formatCount(Object value) {
+        return (value instanceof Number) ? String.format("%,d", ((Number) value).longValue()) : value.toString();
+    }
+
+    /**
+     * Show the changed clusters of a run in the results exploration window. The profiles of the last run are used, so
+     * the run must have been on the same datasets.
+     *
+     * @param name       Name of the run
+     * @param clusters   Clusters of the run
+     * @param clusterIds Indices of the changed clusters
+     */
+    private void exploreChangedClusters(String name, ClusterAssignment clusters, int[] clusterIds) {
+        if (workflowMgr.getProfilesD1() == null || !clusters.isOnDatasets(workflowMgr.getDatasetFingerprint())) {
+            DialogHelper.showError("Run comparison", "The datasets of the run are not loaded!",
+                    "The clusters of " + name + " can only be explored while its datasets are the last ones read.");
+            return;
+        }
+
+        showExplorer("Changed clusters of " + name, Arrays.asList(clusters.getClusters(clusterIds)),
+                clusters.isCleanCleanEr(), null);
+    }
+
     /**
      * Shows a Line chart with the recall and the [Normalized number of emitted records] ?
      *
@@ -530,4 +1322,75 @@ public class CompletedController {
         stage.setScene(new Scene(lineChart, 800, 600));
         stage.show();
     }
+
+    /**
+     * Shows the convergence of the automatic configuration searches of the last run (the best objective value after
+     * each trial), with a button to export all trials to a CSV file
+     *
+     * @param actionEvent Click event of the button
+     */
+    public void showTrials(ActionEvent actionEvent) {
+        TrialLog trialLog = this.workflowMgr.getTrialLog();
+
+        // Create stage that will show the plot
+        Stage stage = new Stage();
+        stage.setTitle("Automatic Configuration Convergence");
+
+        // Create the axes and the chart
+        final NumberAxis xAxis = new NumberAxis();
+        xAxis.setAutoRanging(true);
+        xAxis.setLabel("Trials");
+
+        final NumberAxis yAxis = new NumberAxis();
+        yAxis.setAutoRanging(true);
+        yAxis.setLabel("Best objective");
+
+        final LineChart<Number, Number> lineChart = new LineChart<>(xAxis, yAxis);
+        lineChart.setTitle("Automatic Configuration Convergence");
+        lineChart.setCreateSymbols(false);
+
+        // Add a series with the best objective so far for each search
+        int totalTrials = 0;
+        for (Map.Entry<String, List<TrialRecord>> search : trialLog.getRecordsPerSearch().entrySet()) {
+            XYChart.Series<Number, Number> series = new XYChart.Series<>();
+            series.setName(search.getKey());
+
+            double bestObjective = 0;
+            int trials = 0;
+            for (TrialRecord record : search.getValue()) {
+                bestObjective = Math.max(bestObjective, record.getObjective());
+                series.getData().add(new XYChart.Data<>(++trials, bestObjective));
+            }
+            totalTrials += trials;
+
+            lineChart.getData().add(series);
+        }
+
+        // Add the export button
+        Button exportCsvBtn = new Button("Export CSV");
+        exportCsvBtn.setOnAction(event -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV File", "*.csv"));
+
+            File file = fileChooser.showSaveDialog(stage);
+            if (file != null) {
+                try {
+                    trialLog.writeCsv(file);
+                } catch (IOException e) {
+                    DialogHelper.showError("Export problem", "Could not export the trials!",
+                            "Details: " + e.toString());
+                }
+            }
+        });
+
+        HBox bottomBox = new HBox(10, exportCsvBtn, new Label("Trials: " + totalTrials));
+        bottomBox.setAlignment(Pos.CENTER_LEFT);
+        VBox container = new VBox(5, lineChart, bottomBox);
+        container.setPadding(new Insets(5));
+        VBox.setVgrow(lineChart, Priority.ALWAYS);
+
+        // Show the stage with the plot
+        stage.setScene(new Scene(container, 800, 600));
+        stage.show();
+    }
 }
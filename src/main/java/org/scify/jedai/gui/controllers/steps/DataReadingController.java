@@ -13,6 +13,7 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
+import javafx.stage.Stage;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.apache.jena.riot.RiotException;
 import org.scify.jedai.datamodel.EntityProfile;
@@ -329,8 +330,9 @@ public class DataReadingController {
             }
 
             // Create the popup
-            DialogHelper.showScene(root, Modality.WINDOW_MODAL, false,
+            Stage stage = DialogHelper.showScene(root, Modality.WINDOW_MODAL, false,
                     "JedAI - Ground Truth Exploration");
+            stage.setOnHidden(event -> popupController.close());
         } else {
             // This shouldn't ever happen.
             System.err.println("Error when showing the ground truth exploration popup (Wrong controller instance?)");
@@ -386,8 +388,9 @@ public class DataReadingController {
             popupController.setDatasetParams(datasetParams);
 
             // Create the popup
-            DialogHelper.showScene(root, Modality.WINDOW_MODAL, false,
+            Stage stage = DialogHelper.showScene(root, Modality.WINDOW_MODAL, false,
                     "JedAI - Dataset " + datasetNum + " Exploration");
+            stage.setOnHidden(event -> popupController.close());
         } else {
             // This shouldn't ever happen.
             System.err.println("Error when showing the dataset exploration popup (Wrong controller instance?)");
@@ -0,0 +1,67 @@
+package org.scify.jedai.gui.model;
+
+/**
+ * The result and cost of one automatic configuration trial
+ */
+public class TrialRecord {
+    private final String search;
+    private final int trial;
+    private final String configuration;
+    private final double objective;
+    private final double recall;
+    private final double precision;
+    private final long comparisons;
+    private final double wallTime;
+    private final long allocatedBytes;
+
+    public TrialRecord(String search, int trial, String configuration, double objective, double recall,
+                       double precision, long comparisons, double wallTime, long allocatedBytes) {
+        this.search = search;
+        this.trial = trial;
+        this.configuration = configuration;
+        this.objective = objective;
+        this.recall = recall;
+        this.precision = precision;
+        this.comparisons = comparisons;
+        this.wallTime = wallTime;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    // Automatically generated getters below
+
+    public String getSearch() {
+        return search;
+    }
+
+    public int getTrial() {
+        return trial;
+    }
+
+    public String getConfiguration() {
+        return configuration;
+    }
+
+    public double getObjective() {
+        return objective;
+    }
+
+    public double getRecall() {
+        return recall;
+    }
+
+    public double getPrecision() {
+        return precision;
+    }
+
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    public double getWallTime() {
+        return wallTime;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+}
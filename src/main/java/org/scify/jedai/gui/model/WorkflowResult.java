@@ -3,6 +3,7 @@ package org.scify.jedai.gui.model;
 import javafx.beans.property.ReadOnlyDoubleWrapper;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleStringProperty;
 
 import java.math.BigDecimal;
@@ -20,6 +21,8 @@ public class WorkflowResult {
     private final SimpleIntegerProperty inputInstances;
     private final SimpleIntegerProperty numOfClusters;
     private final SimpleIntegerProperty detailsId;
+    private final SimpleLongProperty savedComparisons = new SimpleLongProperty(-1);
+    private final SimpleLongProperty executedComparisons = new SimpleLongProperty(-1);
 
     public WorkflowResult(String resultName, double recall, double precision, double f1Measure, double totalTime,
                           int inputInstances, int numOfClusters, int detailsId) {
@@ -117,4 +120,32 @@ public class WorkflowResult {
     public SimpleIntegerProperty detailsIdProperty() {
         return detailsId;
     }
+
+    public void setDetailsId(int detailsId) {
+        this.detailsId.set(detailsId);
+    }
+
+    public long getSavedComparisons() {
+        return savedComparisons.get();
+    }
+
+    public SimpleLongProperty savedComparisonsProperty() {
+        return savedComparisons;
+    }
+
+    public void setSavedComparisons(long savedComparisons) {
+        this.savedComparisons.set(savedComparisons);
+    }
+
+    public long getExecutedComparisons() {
+        return executedComparisons.get();
+    }
+
+    public SimpleLongProperty executedComparisonsProperty() {
+        return executedComparisons;
+    }
+
+    public void setExecutedComparisons(long executedComparisons) {
+        this.executedComparisons.set(executedComparisons);
+    }
 }
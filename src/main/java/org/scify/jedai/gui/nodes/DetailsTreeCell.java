@@ -13,15 +13,24 @@ import org.scify.jedai.gui.wizard.WizardData;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntFunction;
 
 public class DetailsTreeCell extends TreeTableCell<WorkflowResult, Object> {
     private final static List<Integer> openedPopups = new ArrayList<>();
     private final Hyperlink link;
     private final List<TreeItem<WorkflowResult>> workflowResultRows;
-    private final List<WizardData> detailedRunData;
+    private final IntFunction<WizardData> detailedRunData;
     private final Injector injector;
 
-    public DetailsTreeCell(List<TreeItem<WorkflowResult>> workflowResultRows, List<WizardData> detailedRunData,
+    /**
+     * Create a details cell
+     *
+     * @param workflowResultRows Rows of the runs
+     * @param detailedRunData    Function that gives the configuration of the run with the given index (or null if it
+     *                           is not available), so that configurations of stored runs can be read on demand
+     * @param injector           Injector for loading the configuration popup
+     */
+    public DetailsTreeCell(List<TreeItem<WorkflowResult>> workflowResultRows, IntFunction<WizardData> detailedRunData,
                            Injector injector) {
         this.workflowResultRows = workflowResultRows;
         this.detailedRunData = detailedRunData;
@@ -55,10 +64,8 @@ public class DetailsTreeCell extends TreeTableCell<WorkflowResult, Object> {
             String title = "Run #" + (index + 1) + " Detailed Configuration";
 
             // Open the popup if one for this index isn't already opened
-            if (this.detailedRunData.size() > index && !openedPopups.contains(index)) {
-                // Get the model for this run
-                WizardData data = this.detailedRunData.get(index);
-
+            WizardData data = openedPopups.contains(index) ? null : this.detailedRunData.apply(index);
+            if (data != null) {
                 // Load FXML for the popup window
                 Parent root = DialogHelper.loadFxml(this.getClass(), injector,
                         "wizard-fxml/steps/Confirm.fxml");
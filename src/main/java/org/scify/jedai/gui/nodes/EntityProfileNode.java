@@ -10,40 +10,33 @@ import javafx.scene.text.TextFlow;
 import org.scify.jedai.datamodel.Attribute;
 import org.scify.jedai.datamodel.EntityProfile;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.List;
 
 /**
- * Node that displays a single Entity Profile
+ * Node that displays a single Entity Profile. The node can be reused for another profile with setEntity(), so that
+ * exploration windows can recycle their nodes (see EntityProfileNodePool) instead of creating new ones on each page.
  */
 public class EntityProfileNode extends VBox {
     private static final Insets zeroPadding = new Insets(0, 0, 0, 0);
     private static final Font cellFont = Font.font("Arial", 11);
 
-    public EntityProfileNode(int entityId, EntityProfile entity) {
-        // The title will have the entity ID and URL
-        TextFlow entityTitle = new TextFlow();
-        List<String> titleItems = Arrays.asList(
-                "Entity ID: ", String.valueOf(entityId),
-                "\t\tURL: ", entity.getEntityUrl());
-
-        boolean makeBold = true;
-        for (String s : titleItems) {
-            // Create text node
-            Text titlePart = new Text(s);
+    private final Text entityIdText = new Text();
+    private final Text entityUrlText = new Text();
+    private final ListView<Attribute> attrsList = new ListView<>();
 
-            // Make it bold if needed and add it to the entity title
-            titlePart.setStyle(makeBold ? "-fx-font-weight: bold" : "");
-            entityTitle.getChildren().add(titlePart);
-
-            // Make the items alternate between bold and regular font (to make "titles" bold)
-            makeBold = !makeBold;
-        }
+    /**
+     * Create an empty node, to show a profile with setEntity()
+     */
+    public EntityProfileNode() {
+        // The title will have the entity ID and URL, with bold "titles"
+        Text idTitle = new Text("Entity ID: ");
+        idTitle.setStyle("-fx-font-weight: bold");
+        Text urlTitle = new Text("\t\tURL: ");
+        urlTitle.setStyle("-fx-font-weight: bold");
+        TextFlow entityTitle = new TextFlow(idTitle, entityIdText, urlTitle, entityUrlText);
 
         // Create node for showing the entity's attributes
-        ListView<Attribute> attrsList = new ListView<>();
         attrsList.setFixedCellSize(15);
         attrsList.setCellFactory(lst ->
                 new ListCell<Attribute>() {
@@ -61,14 +54,48 @@ public class EntityProfileNode extends VBox {
                     }
                 });
 
-        // Sort the attributes by their names
-        List<Attribute> sortedAttrs = new ArrayList<>(entity.getAttributes());
-        sortedAttrs.sort(Comparator.comparing(Attribute::getName));
-
-        // Add the attributes to the list
-        attrsList.getItems().addAll(sortedAttrs);
-
         // Add title & attribute nodes to the entity profile node
         this.getChildren().addAll(entityTitle, attrsList);
     }
+
+    public EntityProfileNode(int entityId, EntityProfile entity) {
+        this();
+        setEntity(entityId, entity);
+    }
+
+    /**
+     * Show another entity profile in this node
+     *
+     * @param entityId ID of the entity
+     * @param entity   Entity profile
+     */
+    public void setEntity(int entityId, EntityProfile entity) {
+        setEntity(entityId, entity, sortAttributes(entity));
+    }
+
+    /**
+     * Show another entity profile in this node, with its already sorted attributes
+     *
+     * @param entityId         ID of the entity
+     * @param entity           Entity profile
+     * @param sortedAttributes Attributes of the profile sorted by their names (see sortAttributes())
+     */
+    public void setEntity(int entityId, EntityProfile entity, Attribute[] sortedAttributes) {
+        entityIdText.setText(String.valueOf(entityId));
+        entityUrlText.setText(entity.getEntityUrl());
+        attrsList.getItems().setAll(sortedAttributes);
+        attrsList.scrollTo(0);
+    }
+
+    /**
+     * Get the attributes of a profile sorted by their names
+     *
+     * @param entity Entity profile
+     * @return Sorted attributes
+     */
+    public static Attribute[] sortAttributes(EntityProfile entity) {
+        Attribute[] attributes = entity.getAttributes().toArray(new Attribute[0]);
+        Arrays.sort(attributes, Comparator.comparing(Attribute::getName));
+        return attributes;
+    }
 }
@@ -0,0 +1,91 @@
+package org.scify.jedai.gui.nodes;
+
+import javafx.scene.Node;
+import javafx.scene.layout.Region;
+import org.scify.jedai.datamodel.Attribute;
+import org.scify.jedai.datamodel.EntityProfile;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pool of EntityProfileNode objects, so that exploration windows give new profiles to the nodes of the previous page
+ * instead of creating all of them again. The pool also keeps the sorted attributes of the most recently shown
+ * profiles, so that scrolling back to them does not sort them again. Must only be used from the JavaFX application
+ * thread, and should be cleared when its window is closed.
+ */
+public class EntityProfileNodePool {
+    // Number of profiles whose sorted attributes are kept, the least recently shown ones are removed first
+    public static final int MAX_CACHED_PROFILES = 1000;
+
+    private final Deque<EntityProfileNode> freeNodes = new ArrayDeque<>();
+    private final double prefWidth;
+    private final Map<EntityProfile, Attribute[]> sortedAttributes =
+            new LinkedHashMap<EntityProfile, Attribute[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<EntityProfile, Attribute[]> eldest) {
+                    return MAX_CACHED_PROFILES < size();
+                }
+            };
+
+    /**
+     * Create a pool of nodes with their computed width
+     */
+    public EntityProfileNodePool() {
+        this(Region.USE_COMPUTED_SIZE);
+    }
+
+    /**
+     * Create a pool of nodes with the given preferred width
+     *
+     * @param prefWidth Preferred width of the nodes
+     */
+    public EntityProfileNodePool(double prefWidth) {
+        this.prefWidth = prefWidth;
+    }
+
+    /**
+     * Get a node that shows the given profile, reusing a released node if there is one
+     *
+     * @param entityId ID of the entity
+     * @param entity   Entity profile
+     * @return Node showing the profile
+     */
+    public EntityProfileNode acquire(int entityId, EntityProfile entity) {
+        EntityProfileNode node = freeNodes.poll();
+        if (node == null) {
+            node = new EntityProfileNode();
+            node.setPrefWidth(prefWidth);
+        }
+        node.setEntity(entityId, entity, sortedAttributes.computeIfAbsent(entity, EntityProfileNode::sortAttributes));
+        return node;
+    }
+
+    /**
+     * Remove all children of a container and return the profile nodes among them to the pool
+     *
+     * @param children Children list of the container
+     */
+    public void releaseAll(List<Node> children) {
+        List<Node> nodes = new ArrayList<>(children);
+        children.clear();
+
+        for (Node node : nodes) {
+            if (node instanceof EntityProfileNode) {
+                freeNodes.push((EntityProfileNode) node);
+            }
+        }
+    }
+
+    /**
+     * Forget the released nodes and the sorted attributes of the profiles
+     */
+    public void clear() {
+        freeNodes.clear();
+        sortedAttributes.clear();
+    }
+}
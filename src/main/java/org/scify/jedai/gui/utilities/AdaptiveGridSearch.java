@@ -0,0 +1,236 @@
+package org.scify.jedai.gui.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Searches a grid of method configurations without evaluating all of its points. The grid indices of each
+ * automatically configured method form one dimension of a discrete search space. After evaluating a few spread out
+ * points, the search fits a lightweight surrogate (inverse distance weighted average of the values seen so far) and
+ * evaluates the point with the best predicted value plus an exploration bonus that grows with the distance to the
+ * closest evaluated point. The search stops when the evaluation budget runs out or the best value has not improved
+ * for a number of evaluations.
+ * <p>
+ * The search is deterministic, so the same grid and objective always give the same result.
+ */
+public class AdaptiveGridSearch {
+    // Minimum number of evaluations (smaller grids are searched exhaustively)
+    private static final int MIN_EVALUATIONS = 10;
+    // Maximum number of evaluations, which also keeps the cost of the surrogate low
+    private static final int MAX_EVALUATIONS = 200;
+    // Number of evaluations without improvement after which the search stops
+    private static final int PATIENCE = 10;
+    // Weight of the exploration bonus
+    private static final double EXPLORATION = 1.0;
+
+    private final int[] dimensions;
+    private final int spaceSize;
+
+    private int evaluations;
+    private double bestValue;
+
+    /**
+     * Create a search over a grid with the given number of configurations in each dimension
+     *
+     * @param dimensions Number of grid configurations of each method
+     */
+    public AdaptiveGridSearch(int... dimensions) {
+        this.dimensions = dimensions.clone();
+
+        int size = 1;
+        for (int i = 0; i < dimensions.length; i++) {
+            this.dimensions[i] = Math.max(1, dimensions[i]);
+            size *= this.dimensions[i];
+        }
+        this.spaceSize = size;
+    }
+
+    public int getSpaceSize() {
+        return spaceSize;
+    }
+
+    public int getEvaluations() {
+        return evaluations;
+    }
+
+    public double getBestValue() {
+        return bestValue;
+    }
+
+    /**
+     * Search for the grid point with the highest objective value. As in exhaustive grid search, the best point starts
+     * at the first grid point with a value of 0 and is only replaced by points with a strictly higher value.
+     *
+     * @param objective Function that evaluates a grid point (one index per dimension)
+     * @return Best grid point found
+     */
+    public int[] search(ToDoubleFunction<int[]> objective) {
+        return search(objective, () -> true);
+    }
+
+    /**
+     * Search for the grid point with the highest objective value, stopping early when evaluations are no longer
+     * allowed (e.g. because the search budget ran out)
+     *
+     * @param objective   Function that evaluates a grid point (one index per dimension)
+     * @param canEvaluate Called before each evaluation, returns false to stop the search
+     * @return Best grid point found
+     */
+    public int[] search(ToDoubleFunction<int[]> objective, BooleanSupplier canEvaluate) {
+        int maxEvaluations = Math.min(spaceSize, Math.max(MIN_EVALUATIONS, Math.min(MAX_EVALUATIONS, spaceSize / 4)));
+
+        boolean[] evaluated = new boolean[spaceSize];
+        List<double[]> observedPoints = new ArrayList<>();
+        List<Double> observedValues = new ArrayList<>();
+
+        int bestPoint = 0;
+        bestValue = 0;
+        evaluations = 0;
+        int sinceImprovement = 0;
+
+        List<Integer> initialPoints = getInitialPoints();
+        while (evaluations < maxEvaluations) {
+            // Evaluate the initial points first, then the most promising point according to the surrogate
+            int point = (evaluations < initialPoints.size()) ?
+                    initialPoints.get(evaluations) : getNextPoint(evaluated, observedPoints, observedValues);
+            if (point < 0 || !canEvaluate.getAsBoolean()) {
+                break;
+            }
+
+            double value = objective.applyAsDouble(toGridPoint(point));
+            evaluated[point] = true;
+            observedPoints.add(normalize(point));
+            observedValues.add(value);
+            evaluations++;
+
+            if (bestValue < value) {
+                bestPoint = point;
+                bestValue = value;
+                sinceImprovement = 0;
+            } else if (initialPoints.size() <= evaluations && PATIENCE <= ++sinceImprovement) {
+                break;
+            }
+        }
+
+        return toGridPoint(bestPoint);
+    }
+
+    /**
+     * Get the points to evaluate before using the surrogate: the first, middle and last index of each dimension, and
+     * all of their combinations
+     *
+     * @return Flat indices of the initial points
+     */
+    private List<Integer> getInitialPoints() {
+        List<Integer> points = new ArrayList<>();
+        points.add(0);
+
+        for (int d = dimensions.length - 1; d >= 0; d--) {
+            int stride = 1;
+            for (int i = d + 1; i < dimensions.length; i++) {
+                stride *= dimensions[i];
+            }
+
+            // Combine the points so far with each of the selected indices of this dimension
+            int[] indices = {dimensions[d] / 2, dimensions[d] - 1};
+            int existing = points.size();
+            for (int index : indices) {
+                for (int p = 0; p < existing; p++) {
+                    int point = points.get(p) + index * stride;
+                    if (!points.contains(point)) {
+                        points.add(point);
+                    }
+                }
+            }
+        }
+
+        return points;
+    }
+
+    /**
+     * Get the unevaluated point that maximizes the predicted value plus the exploration bonus
+     *
+     * @param evaluated      Whether each point has been evaluated
+     * @param observedPoints Normalized coordinates of the evaluated points
+     * @param observedValues Values of the evaluated points
+     * @return Flat index of the next point, or -1 if all points have been evaluated
+     */
+    private int getNextPoint(boolean[] evaluated, List<double[]> observedPoints, List<Double> observedValues) {
+        // Scale the exploration bonus with the range of the values seen so far
+        double minValue = Double.MAX_VALUE;
+        double maxValue = -Double.MAX_VALUE;
+        for (double value : observedValues) {
+            minValue = Math.min(minValue, value);
+            maxValue = Math.max(maxValue, value);
+        }
+        double bonusScale = EXPLORATION * Math.max(maxValue - minValue, 1e-6);
+
+        int nextPoint = -1;
+        double bestScore = -Double.MAX_VALUE;
+        for (int point = 0; point < spaceSize; point++) {
+            if (evaluated[point]) {
+                continue;
+            }
+
+            double[] coordinates = normalize(point);
+            double weightSum = 0;
+            double weightedValues = 0;
+            double minDistance = Double.MAX_VALUE;
+            for (int i = 0; i < observedPoints.size(); i++) {
+                double distance = distance(coordinates, observedPoints.get(i));
+                double weight = 1.0 / (distance * distance);
+                weightSum += weight;
+                weightedValues += weight * observedValues.get(i);
+                minDistance = Math.min(minDistance, distance);
+            }
+
+            double score = weightedValues / weightSum + bonusScale * minDistance;
+            if (bestScore < score) {
+                nextPoint = point;
+                bestScore = score;
+            }
+        }
+
+        return nextPoint;
+    }
+
+    /**
+     * Convert a flat index to grid indices (the last dimension changes fastest)
+     *
+     * @param point Flat index
+     * @return Index of each dimension
+     */
+    private int[] toGridPoint(int point) {
+        int[] gridPoint = new int[dimensions.length];
+        for (int d = dimensions.length - 1; d >= 0; d--) {
+            gridPoint[d] = point % dimensions[d];
+            point /= dimensions[d];
+        }
+        return gridPoint;
+    }
+
+    /**
+     * Convert a flat index to coordinates in [0, 1] for each dimension
+     *
+     * @param point Flat index
+     * @return Normalized coordinates
+     */
+    private double[] normalize(int point) {
+        int[] gridPoint = toGridPoint(point);
+        double[] coordinates = new double[dimensions.length];
+        for (int d = 0; d < dimensions.length; d++) {
+            coordinates[d] = (dimensions[d] > 1) ? gridPoint[d] / (double) (dimensions[d] - 1) : 0;
+        }
+        return coordinates;
+    }
+
+    private static double distance(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += (a[i] - b[i]) * (a[i] - b[i]);
+        }
+        return Math.sqrt(sum);
+    }
+}
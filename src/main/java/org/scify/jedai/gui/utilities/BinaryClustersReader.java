@@ -0,0 +1,197 @@
+package org.scify.jedai.gui.utilities;
+
+import org.scify.jedai.datamodel.EquivalenceCluster;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads entity clusters from a file in the binary format of ClustersExporter, by memory-mapping it. Clusters can be
+ * accessed randomly, and the cluster of an entity can be found in constant time, without parsing the whole file.
+ * <p>
+ * The file is a sequence of big-endian ints:
+ * <ol>
+ * <li>Header: magic number, version, flags (1 for Clean-Clean ER), number of clusters, number of entities of dataset
+ * 1 and 2, and total number of entity IDs of dataset 1 and 2 in the clusters</li>
+ * <li>Offset tables: for dataset 1 and then dataset 2, (clusters + 1) positions in the entity ID array of the dataset,
+ * where the IDs of each cluster start (the last one is the end of the array)</li>
+ * <li>Entity ID arrays of dataset 1 and 2, with the IDs of each cluster one after another</li>
+ * <li>Entity index of dataset 1 and 2: the cluster of each entity, or -1 if it is not in a cluster</li>
+ * </ol>
+ * The whole file is mapped at once, so it must be smaller than 2GB.
+ */
+public class BinaryClustersReader implements AutoCloseable {
+    static final int MAGIC = 0x4A434C55;
+    static final int VERSION = 1;
+    static final int FLAG_CLEAN_CLEAN_ER = 1;
+    static final int HEADER_INTS = 8;
+
+    private final RandomAccessFile file;
+    private final IntBuffer ints;
+
+    private final boolean isCleanCleanEr;
+    private final int noOfClusters;
+    private final int noOfEntitiesD1;
+    private final int noOfEntitiesD2;
+
+    // Positions (in ints) of each part of the file
+    private final int offsetsD1;
+    private final int offsetsD2;
+    private final int idsD1;
+    private final int idsD2;
+    private final int indexD1;
+    private final int indexD2;
+
+    /**
+     * Open and memory-map a binary clusters file
+     *
+     * @param path File to read
+     * @throws IOException When the file cannot be read or is not a binary clusters file
+     */
+    public BinaryClustersReader(File path) throws IOException {
+        this.file = new RandomAccessFile(path, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            if (Integer.MAX_VALUE < channel.size()) {
+                throw new IOException("Binary clusters file is larger than 2GB: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            this.ints = buffer.asIntBuffer();
+
+            // Read and check the header
+            if (ints.limit() < HEADER_INTS || ints.get(0) != MAGIC) {
+                throw new IOException("Not a binary clusters file: " + path);
+            }
+            if (ints.get(1) != VERSION) {
+                throw new IOException("Unsupported binary clusters version " + ints.get(1) + ": " + path);
+            }
+            this.isCleanCleanEr = (ints.get(2) & FLAG_CLEAN_CLEAN_ER) != 0;
+            this.noOfClusters = ints.get(3);
+            this.noOfEntitiesD1 = ints.get(4);
+            this.noOfEntitiesD2 = ints.get(5);
+            int totalIdsD1 = ints.get(6);
+            int totalIdsD2 = ints.get(7);
+
+            this.offsetsD1 = HEADER_INTS;
+            this.offsetsD2 = offsetsD1 + noOfClusters + 1;
+            this.idsD1 = offsetsD2 + noOfClusters + 1;
+            this.idsD2 = idsD1 + totalIdsD1;
+            this.indexD1 = idsD2 + totalIdsD2;
+            this.indexD2 = indexD1 + noOfEntitiesD1;
+            if (ints.limit() < indexD2 + noOfEntitiesD2) {
+                throw new IOException("Truncated binary clusters file: " + path);
+            }
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public boolean isCleanCleanEr() {
+        return isCleanCleanEr;
+    }
+
+    public int getNoOfClusters() {
+        return noOfClusters;
+    }
+
+    public int getNoOfEntitiesD1() {
+        return noOfEntitiesD1;
+    }
+
+    public int getNoOfEntitiesD2() {
+        return noOfEntitiesD2;
+    }
+
+    /**
+     * Get the IDs of the dataset 1 entities of a cluster
+     *
+     * @param cluster Index of the cluster
+     * @return Entity IDs
+     */
+    public int[] getEntityIdsD1(int cluster) {
+        return getEntityIds(offsetsD1, idsD1, cluster);
+    }
+
+    /**
+     * Get the IDs of the dataset 2 entities of a cluster (empty for Dirty ER)
+     *
+     * @param cluster Index of the cluster
+     * @return Entity IDs
+     */
+    public int[] getEntityIdsD2(int cluster) {
+        return getEntityIds(offsetsD2, idsD2, cluster);
+    }
+
+    /**
+     * Get the cluster of an entity of dataset 1
+     *
+     * @param entityId ID of the entity
+     * @return Index of the cluster, or -1 if the entity is not in any cluster
+     */
+    public int getClusterOfEntityD1(int entityId) {
+        return getCluster(indexD1, noOfEntitiesD1, entityId);
+    }
+
+    /**
+     * Get the cluster of an entity of dataset 2
+     *
+     * @param entityId ID of the entity
+     * @return Index of the cluster, or -1 if the entity is not in any cluster
+     */
+    public int getClusterOfEntityD2(int entityId) {
+        return getCluster(indexD2, noOfEntitiesD2, entityId);
+    }
+
+    /**
+     * Read a cluster as an EquivalenceCluster object
+     *
+     * @param cluster Index of the cluster
+     * @return Equivalence cluster with the entities of the cluster
+     */
+    public EquivalenceCluster getCluster(int cluster) {
+        EquivalenceCluster equivalenceCluster = new EquivalenceCluster();
+        for (int entityId : getEntityIdsD1(cluster)) {
+            equivalenceCluster.addEntityIdD1(entityId);
+        }
+        for (int entityId : getEntityIdsD2(cluster)) {
+            equivalenceCluster.addEntityIdD2(entityId);
+        }
+        return equivalenceCluster;
+    }
+
+    private int[] getEntityIds(int offsets, int ids, int cluster) {
+        if (cluster < 0 || noOfClusters <= cluster) {
+            throw new IndexOutOfBoundsException("Cluster " + cluster + " of " + noOfClusters);
+        }
+
+        int start = ints.get(offsets + cluster);
+        int end = ints.get(offsets + cluster + 1);
+        int[] entityIds = new int[end - start];
+        for (int i = 0; i < entityIds.length; i++) {
+            entityIds[i] = ints.get(ids + start + i);
+        }
+        return entityIds;
+    }
+
+    private int getCluster(int index, int noOfEntities, int entityId) {
+        if (entityId < 0 || noOfEntities <= entityId) {
+            throw new IndexOutOfBoundsException("Entity " + entityId + " of " + noOfEntities);
+        }
+        return ints.get(index + entityId);
+    }
+
+    /**
+     * Close the file. The mapping itself is released when it is garbage collected.
+     *
+     * @throws IOException When closing the file fails
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,148 @@
+package org.scify.jedai.gui.utilities;
+
+import gnu.trove.iterator.TIntIterator;
+import org.scify.jedai.datamodel.EquivalenceCluster;
+
+import java.util.Arrays;
+
+/**
+ * Compact copy of the clusters of a run: the cluster of each entity in one primitive array, with the entities of the
+ * 1st dataset first and then the ones of the 2nd. It takes 4 bytes per entity, so that the clusters of every run in
+ * the Workbench can be kept for comparing runs. The fingerprint of the datasets (see DatasetFingerprint) tells whether
+ * two runs were on the same data.
+ */
+public class ClusterAssignment {
+    private final String datasetFingerprint;
+    private final boolean isCleanCleanEr;
+    private final int noOfEntitiesD1;
+    private final int noOfClusters;
+    private final int[] clusterOfEntity;
+
+    /**
+     * Create the assignment of the given clusters
+     *
+     * @param clusters           Entity clusters
+     * @param noOfEntitiesD1     Number of entities of the 1st dataset
+     * @param noOfEntitiesD2     Number of entities of the 2nd dataset (0 for Dirty ER)
+     * @param isCleanCleanEr     True for Clean-Clean ER
+     * @param datasetFingerprint Fingerprint of the datasets (null if unknown)
+     */
+    public ClusterAssignment(EquivalenceCluster[] clusters, int noOfEntitiesD1, int noOfEntitiesD2,
+                             boolean isCleanCleanEr, String datasetFingerprint) {
+        this.datasetFingerprint = datasetFingerprint;
+        this.isCleanCleanEr = isCleanCleanEr;
+        this.noOfEntitiesD1 = noOfEntitiesD1;
+        this.noOfClusters = clusters.length;
+        this.clusterOfEntity = new int[noOfEntitiesD1 + noOfEntitiesD2];
+        Arrays.fill(clusterOfEntity, -1);
+
+        for (int clusterId = 0; clusterId < clusters.length; clusterId++) {
+            TIntIterator iter = clusters[clusterId].getEntityIdsD1().iterator();
+            while (iter.hasNext()) {
+                clusterOfEntity[iter.next()] = clusterId;
+            }
+            if (isCleanCleanEr) {
+                iter = clusters[clusterId].getEntityIdsD2().iterator();
+                while (iter.hasNext()) {
+                    clusterOfEntity[noOfEntitiesD1 + iter.next()] = clusterId;
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the assignment from a binary clusters file (see BinaryClustersReader)
+     *
+     * @param reader             Reader of the clusters file
+     * @param datasetFingerprint Fingerprint of the datasets (null if unknown)
+     */
+    public ClusterAssignment(BinaryClustersReader reader, String datasetFingerprint) {
+        this.datasetFingerprint = datasetFingerprint;
+        this.isCleanCleanEr = reader.isCleanCleanEr();
+        this.noOfEntitiesD1 = reader.getNoOfEntitiesD1();
+        this.noOfClusters = reader.getNoOfClusters();
+        this.clusterOfEntity = new int[noOfEntitiesD1 + reader.getNoOfEntitiesD2()];
+
+        for (int entityId = 0; entityId < noOfEntitiesD1; entityId++) {
+            clusterOfEntity[entityId] = reader.getClusterOfEntityD1(entityId);
+        }
+        for (int entityId = 0; entityId < reader.getNoOfEntitiesD2(); entityId++) {
+            clusterOfEntity[noOfEntitiesD1 + entityId] = reader.getClusterOfEntityD2(entityId);
+        }
+    }
+
+    /**
+     * Get the cluster of an entity
+     *
+     * @param entity Global ID of the entity (entity ID for the 1st dataset, number of entities of the 1st dataset
+     *               plus entity ID for the 2nd)
+     * @return Cluster index, or -1 if the entity is not in a cluster
+     */
+    public int getClusterOfEntity(int entity) {
+        return clusterOfEntity[entity];
+    }
+
+    /**
+     * Check whether the clusters are on the given datasets. Unknown datasets never match.
+     *
+     * @param datasetFingerprint Fingerprint of the datasets
+     * @return True if the clusters are on the same datasets
+     */
+    public boolean isOnDatasets(String datasetFingerprint) {
+        return this.datasetFingerprint != null && this.datasetFingerprint.equals(datasetFingerprint);
+    }
+
+    /**
+     * Rebuild some of the clusters
+     *
+     * @param clusterIds Indices of the clusters to rebuild
+     * @return Equivalence clusters, in the same order as the indices
+     */
+    public EquivalenceCluster[] getClusters(int[] clusterIds) {
+        // Position of each requested cluster in the result
+        int[] positionOfCluster = new int[noOfClusters];
+        Arrays.fill(positionOfCluster, -1);
+
+        EquivalenceCluster[] clusters = new EquivalenceCluster[clusterIds.length];
+        for (int i = 0; i < clusterIds.length; i++) {
+            positionOfCluster[clusterIds[i]] = i;
+            clusters[i] = new EquivalenceCluster();
+        }
+
+        for (int entity = 0; entity < clusterOfEntity.length; entity++) {
+            int clusterId = clusterOfEntity[entity];
+            if (clusterId < 0 || positionOfCluster[clusterId] < 0) {
+                continue;
+            }
+
+            if (entity < noOfEntitiesD1) {
+                clusters[positionOfCluster[clusterId]].addEntityIdD1(entity);
+            } else {
+                clusters[positionOfCluster[clusterId]].addEntityIdD2(entity - noOfEntitiesD1);
+            }
+        }
+        return clusters;
+    }
+
+    // Automatically generated getters below
+
+    public String getDatasetFingerprint() {
+        return datasetFingerprint;
+    }
+
+    public boolean isCleanCleanEr() {
+        return isCleanCleanEr;
+    }
+
+    public int getNoOfEntitiesD1() {
+        return noOfEntitiesD1;
+    }
+
+    public int getNoOfEntitiesD2() {
+        return clusterOfEntity.length - noOfEntitiesD1;
+    }
+
+    public int getNoOfClusters() {
+        return noOfClusters;
+    }
+}
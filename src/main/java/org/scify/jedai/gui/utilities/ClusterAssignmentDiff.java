@@ -0,0 +1,211 @@
+package org.scify.jedai.gui.utilities;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.Arrays;
+
+/**
+ * Differences between the clusters of two runs on the same datasets: the matched pairs that only one of the runs
+ * has, the clusters of the 1st run that were split and the clusters of the 2nd run that were merged, and the clusters
+ * of each run that do not exist unchanged in the other one.
+ * <p>
+ * Matched pairs are never enumerated. Each entity that is in a cluster in both runs is packed into a long with its two
+ * cluster indices, and the sorted keys group the entities that both runs put together. The pairs within these groups
+ * are the common pairs, and the rest of each run's pairs are the gained or lost ones.
+ */
+public class ClusterAssignmentDiff {
+    private final long pairsA;
+    private final long pairsB;
+    private long commonPairs = 0;
+    private int splitClusters = 0;
+    private int mergedClusters = 0;
+    private final int[] changedClustersA;
+    private final int[] changedClustersB;
+
+    /**
+     * Compare the clusters of two runs
+     *
+     * @param a Clusters of the 1st run
+     * @param b Clusters of the 2nd run
+     */
+    public ClusterAssignmentDiff(ClusterAssignment a, ClusterAssignment b) {
+        if (a.isCleanCleanEr() != b.isCleanCleanEr() || !a.isOnDatasets(b.getDatasetFingerprint())
+                || a.getNoOfEntitiesD1() != b.getNoOfEntitiesD1() || a.getNoOfEntitiesD2() != b.getNoOfEntitiesD2()) {
+            throw new IllegalArgumentException("The runs have different datasets or ER types");
+        }
+        boolean isCleanCleanEr = a.isCleanCleanEr();
+        int noOfEntitiesD1 = a.getNoOfEntitiesD1();
+        int noOfEntities = noOfEntitiesD1 + a.getNoOfEntitiesD2();
+
+        // Cluster sizes per dataset, and the (cluster of A, cluster of B) key of each entity that is in both runs
+        int[] sizeD1A = new int[a.getNoOfClusters()];
+        int[] sizeD2A = new int[a.getNoOfClusters()];
+        int[] sizeD1B = new int[b.getNoOfClusters()];
+        int[] sizeD2B = new int[b.getNoOfClusters()];
+        long[] keysD1 = new long[noOfEntitiesD1];
+        long[] keysD2 = new long[noOfEntities - noOfEntitiesD1];
+        int noOfKeysD1 = 0;
+        int noOfKeysD2 = 0;
+
+        for (int entity = 0; entity < noOfEntities; entity++) {
+            boolean isD1 = entity < noOfEntitiesD1;
+            int clusterA = a.getClusterOfEntity(entity);
+            int clusterB = b.getClusterOfEntity(entity);
+            if (0 <= clusterA) {
+                (isD1 ? sizeD1A : sizeD2A)[clusterA]++;
+            }
+            if (0 <= clusterB) {
+                (isD1 ? sizeD1B : sizeD2B)[clusterB]++;
+            }
+
+            if (0 <= clusterA && 0 <= clusterB) {
+                long key = ((long) clusterA << 32) | clusterB;
+                if (isD1) {
+                    keysD1[noOfKeysD1++] = key;
+                } else {
+                    keysD2[noOfKeysD2++] = key;
+                }
+            }
+        }
+        Arrays.sort(keysD1, 0, noOfKeysD1);
+        Arrays.sort(keysD2, 0, noOfKeysD2);
+
+        this.pairsA = countPairs(sizeD1A, sizeD2A, isCleanCleanEr);
+        this.pairsB = countPairs(sizeD1B, sizeD2B, isCleanCleanEr);
+
+        // Walk the groups of entities with the same key (merging the sorted keys of the two datasets)
+        int[] partnersOfA = new int[a.getNoOfClusters()];
+        int[] partnersOfB = new int[b.getNoOfClusters()];
+        int[] partnerOfA = new int[a.getNoOfClusters()];
+        int[] overlapOfA = new int[a.getNoOfClusters()];
+        int i = 0;
+        int j = 0;
+        while (i < noOfKeysD1 || j < noOfKeysD2) {
+            long key = (j == noOfKeysD2 || (i < noOfKeysD1 && keysD1[i] <= keysD2[j])) ? keysD1[i] : keysD2[j];
+            int groupD1 = 0;
+            while (i < noOfKeysD1 && keysD1[i] == key) {
+                groupD1++;
+                i++;
+            }
+            int groupD2 = 0;
+            while (j < noOfKeysD2 && keysD2[j] == key) {
+                groupD2++;
+                j++;
+            }
+
+            int clusterA = (int) (key >>> 32);
+            int clusterB = (int) key;
+            commonPairs += getPairs(groupD1, groupD2, isCleanCleanEr);
+            partnersOfA[clusterA]++;
+            partnersOfB[clusterB]++;
+            partnerOfA[clusterA] = clusterB;
+            overlapOfA[clusterA] = groupD1 + groupD2;
+        }
+
+        // A cluster is unchanged if all its entities are together in one cluster of the other run, and no others
+        boolean[] unchangedB = new boolean[b.getNoOfClusters()];
+        TIntArrayList changedA = new TIntArrayList();
+        for (int clusterA = 0; clusterA < partnersOfA.length; clusterA++) {
+            int sizeA = sizeD1A[clusterA] + sizeD2A[clusterA];
+            if (sizeA == 0) {
+                continue;
+            }
+            if (1 < partnersOfA[clusterA]) {
+                splitClusters++;
+            }
+
+            int clusterB = partnerOfA[clusterA];
+            if (partnersOfA[clusterA] == 1 && partnersOfB[clusterB] == 1 && overlapOfA[clusterA] == sizeA
+                    && sizeD1B[clusterB] + sizeD2B[clusterB] == sizeA) {
+                unchangedB[clusterB] = true;
+            } else {
+                changedA.add(clusterA);
+            }
+        }
+
+        TIntArrayList changedB = new TIntArrayList();
+        for (int clusterB = 0; clusterB < partnersOfB.length; clusterB++) {
+            if (sizeD1B[clusterB] + sizeD2B[clusterB] == 0) {
+                continue;
+            }
+            if (1 < partnersOfB[clusterB]) {
+                mergedClusters++;
+            }
+            if (!unchangedB[clusterB]) {
+                changedB.add(clusterB);
+            }
+        }
+
+        this.changedClustersA = changedA.toArray();
+        this.changedClustersB = changedB.toArray();
+    }
+
+    private static long countPairs(int[] sizeD1, int[] sizeD2, boolean isCleanCleanEr) {
+        long pairs = 0;
+        for (int clusterId = 0; clusterId < sizeD1.length; clusterId++) {
+            pairs += getPairs(sizeD1[clusterId], sizeD2[clusterId], isCleanCleanEr);
+        }
+        return pairs;
+    }
+
+    /**
+     * Get the number of matched pairs in a group of entities: all pairs of them for Dirty ER, or the pairs with one
+     * entity from each dataset for Clean-Clean ER
+     *
+     * @param sizeD1         Entities of the 1st dataset
+     * @param sizeD2         Entities of the 2nd dataset
+     * @param isCleanCleanEr True for Clean-Clean ER
+     * @return Number of pairs
+     */
+    private static long getPairs(long sizeD1, long sizeD2, boolean isCleanCleanEr) {
+        return isCleanCleanEr ? sizeD1 * sizeD2 : sizeD1 * (sizeD1 - 1) / 2;
+    }
+
+    /**
+     * Get the matched pairs of the 2nd run that the 1st one does not have
+     *
+     * @return Number of gained pairs
+     */
+    public long getGainedPairs() {
+        return pairsB - commonPairs;
+    }
+
+    /**
+     * Get the matched pairs of the 1st run that the 2nd one does not have
+     *
+     * @return Number of lost pairs
+     */
+    public long getLostPairs() {
+        return pairsA - commonPairs;
+    }
+
+    // Automatically generated getters below
+
+    public long getPairsA() {
+        return pairsA;
+    }
+
+    public long getPairsB() {
+        return pairsB;
+    }
+
+    public long getCommonPairs() {
+        return commonPairs;
+    }
+
+    public int getSplitClusters() {
+        return splitClusters;
+    }
+
+    public int getMergedClusters() {
+        return mergedClusters;
+    }
+
+    public int[] getChangedClustersA() {
+        return changedClustersA;
+    }
+
+    public int[] getChangedClustersB() {
+        return changedClustersB;
+    }
+}
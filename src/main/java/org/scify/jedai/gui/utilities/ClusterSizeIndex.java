@@ -0,0 +1,163 @@
+package org.scify.jedai.gui.utilities;
+
+import org.scify.jedai.datamodel.EquivalenceCluster;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Orders the non-empty entity clusters from largest to smallest without sorting all of them up front. The order is
+ * kept in a primitive array of keys (size and cluster index packed in a long), and it is sorted lazily: only the
+ * prefix that has been requested so far is fully sorted, and each extension first selects the next clusters in
+ * linear time and then sorts just them. Clusters of the same size keep their original order.
+ */
+public class ClusterSizeIndex {
+    private static final int MIN_SORT_STEP = 256;
+
+    private final List<EquivalenceCluster> clusters;
+    private final long[] keys;
+    private int sortedUpTo = 0;
+
+    /**
+     * Create the index of the given clusters. For Clean-Clean ER, only clusters with entities from both datasets are
+     * kept, otherwise clusters with at least one entity from the 1st dataset.
+     *
+     * @param clusters       Entity clusters
+     * @param isCleanCleanEr True for Clean-Clean ER
+     */
+    public ClusterSizeIndex(List<EquivalenceCluster> clusters, boolean isCleanCleanEr) {
+        this.clusters = clusters;
+
+        // Count the non-empty clusters, to allocate the keys only once
+        int nonEmpty = 0;
+        for (EquivalenceCluster cluster : clusters) {
+            if (isNonEmpty(cluster, isCleanCleanEr)) {
+                nonEmpty++;
+            }
+        }
+
+        // Larger clusters get smaller keys, and ties are broken by the cluster index
+        this.keys = new long[nonEmpty];
+        int i = 0;
+        for (int clusterId = 0; clusterId < clusters.size(); clusterId++) {
+            EquivalenceCluster cluster = clusters.get(clusterId);
+            if (isNonEmpty(cluster, isCleanCleanEr)) {
+                int size = cluster.getEntityIdsD1().size() + cluster.getEntityIdsD2().size();
+                keys[i++] = ((long) (Integer.MAX_VALUE - size) << 32) | clusterId;
+            }
+        }
+    }
+
+    private static boolean isNonEmpty(EquivalenceCluster cluster, boolean isCleanCleanEr) {
+        return !cluster.getEntityIdsD1().isEmpty() && (!isCleanCleanEr || !cluster.getEntityIdsD2().isEmpty());
+    }
+
+    /**
+     * Get the number of (non-empty) clusters in the index
+     *
+     * @return Number of clusters
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Get the cluster with the given position in the order from largest to smallest
+     *
+     * @param rank Position of the cluster (0 for the largest)
+     * @return Entity cluster
+     */
+    public EquivalenceCluster getCluster(int rank) {
+        return clusters.get(getClusterIndex(rank));
+    }
+
+    /**
+     * Get the index (in the original list) of the cluster with the given position in the order from largest to
+     * smallest
+     *
+     * @param rank Position of the cluster (0 for the largest)
+     * @return Index of the cluster
+     */
+    public synchronized int getClusterIndex(int rank) {
+        ensureSorted(rank + 1);
+        return (int) keys[rank];
+    }
+
+    /**
+     * Make sure that at least the first count clusters are in their final order. The sorted prefix grows at least
+     * geometrically, so scrolling through the clusters sorts each of them only once.
+     *
+     * @param count Number of clusters that must be sorted
+     */
+    public synchronized void ensureSorted(int count) {
+        if (count <= sortedUpTo) {
+            return;
+        }
+
+        int target = Math.min(keys.length, Math.max(count, Math.max(2 * sortedUpTo, MIN_SORT_STEP)));
+        if (target < keys.length) {
+            // Move the smallest remaining keys before the target position, then sort only them
+            select(keys, sortedUpTo, keys.length - 1, target);
+        }
+        Arrays.sort(keys, sortedUpTo, target);
+        sortedUpTo = target;
+    }
+
+    /**
+     * Partially order a range of the array (quickselect), so that the key at position k is the one it would be in a
+     * sorted range, all keys before it are smaller and all keys after it are larger
+     *
+     * @param a     Array to reorder
+     * @param left  First position of the range
+     * @param right Last position of the range (inclusive)
+     * @param k     Position to select
+     */
+    private static void select(long[] a, int left, int right, int k) {
+        while (left < right) {
+            // Median of three as the pivot, to avoid the worst case on already sorted clusters
+            int middle = (left + right) >>> 1;
+            if (a[middle] < a[left]) {
+                swap(a, left, middle);
+            }
+            if (a[right] < a[left]) {
+                swap(a, left, right);
+            }
+            if (a[right] < a[middle]) {
+                swap(a, middle, right);
+            }
+            long pivot = a[middle];
+
+            // Partition (keys are unique, because they contain the cluster index)
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (a[i] < pivot) {
+                    i++;
+                }
+                while (pivot < a[j]) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(a, i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            // Continue in the part that contains k
+            if (k <= j) {
+                right = j;
+            } else if (i <= k) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void swap(long[] a, int i, int j) {
+        long temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+}
@@ -0,0 +1,222 @@
+package org.scify.jedai.gui.utilities;
+
+import org.scify.jedai.datamodel.EquivalenceCluster;
+
+import java.util.Arrays;
+
+/**
+ * Statistics of the entity clusters of a run, computed in one pass over the clusters: the cluster size distribution
+ * (in a histogram with power-of-two bins), the largest clusters, the number of singletons and, for Clean-Clean ER,
+ * the balance between the entities of the two datasets in each cluster.
+ */
+public class ClusterStatistics {
+    // Number of largest clusters to keep
+    public static final int TOP_CLUSTERS = 10;
+
+    private final boolean isCleanCleanEr;
+    private final int noOfClusters;
+    private long noOfEntities = 0;
+    private int noOfEmpty = 0;
+    private int noOfSingletons = 0;
+    private int maxSize = 0;
+
+    // Bin b counts the clusters with size in [2^b, 2^(b+1))
+    private final long[] sizeHistogram = new long[Integer.SIZE];
+
+    // Clean-Clean ER balance
+    private int onlyD1 = 0;
+    private int onlyD2 = 0;
+    private int balanced = 0;
+    private double d1ShareSum = 0;
+
+    // Largest clusters from largest to smallest, packed as (size << 32 | MAX_VALUE - index) so that larger keys are
+    // larger clusters, and for equal sizes the clusters that come first
+    private final long[] largest;
+
+    /**
+     * Compute the statistics of the given clusters
+     *
+     * @param clusters       Entity clusters
+     * @param isCleanCleanEr True for Clean-Clean ER
+     */
+    public ClusterStatistics(EquivalenceCluster[] clusters, boolean isCleanCleanEr) {
+        this.isCleanCleanEr = isCleanCleanEr;
+        this.noOfClusters = clusters.length;
+
+        long[] top = new long[TOP_CLUSTERS];
+        int topCount = 0;
+        int minTop = 0;
+
+        for (int clusterId = 0; clusterId < clusters.length; clusterId++) {
+            int sizeD1 = clusters[clusterId].getEntityIdsD1().size();
+            int sizeD2 = isCleanCleanEr ? clusters[clusterId].getEntityIdsD2().size() : 0;
+            int size = sizeD1 + sizeD2;
+
+            if (size == 0) {
+                noOfEmpty++;
+                continue;
+            }
+
+            noOfEntities += size;
+            maxSize = Math.max(maxSize, size);
+            sizeHistogram[31 - Integer.numberOfLeadingZeros(size)]++;
+            if (size == 1) {
+                noOfSingletons++;
+            }
+
+            if (isCleanCleanEr) {
+                if (sizeD2 == 0) {
+                    onlyD1++;
+                } else if (sizeD1 == 0) {
+                    onlyD2++;
+                }
+                if (sizeD1 == sizeD2) {
+                    balanced++;
+                }
+                d1ShareSum += (double) sizeD1 / size;
+            }
+
+            // Keep the largest clusters, replacing the smallest of them when a larger one is found
+            long key = ((long) size << 32) | (Integer.MAX_VALUE - clusterId);
+            if (topCount < TOP_CLUSTERS) {
+                top[topCount++] = key;
+                if (topCount == TOP_CLUSTERS) {
+                    minTop = getMinPosition(top);
+                }
+            } else if (top[minTop] < key) {
+                top[minTop] = key;
+                minTop = getMinPosition(top);
+            }
+        }
+
+        // Sort the largest clusters from largest to smallest
+        this.largest = Arrays.copyOf(top, topCount);
+        Arrays.sort(largest);
+        for (int i = 0, j = largest.length - 1; i < j; i++, j--) {
+            long temp = largest[i];
+            largest[i] = largest[j];
+            largest[j] = temp;
+        }
+    }
+
+    private static int getMinPosition(long[] values) {
+        int min = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] < values[min]) {
+                min = i;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Get the label of a histogram bin, i.e. its range of cluster sizes
+     *
+     * @param bin Bin index
+     * @return Label of the bin (e.g. "4-7")
+     */
+    public static String getBinLabel(int bin) {
+        long from = 1L << bin;
+        long to = (1L << (bin + 1)) - 1;
+        return (from == to) ? String.valueOf(from) : from + "-" + to;
+    }
+
+    /**
+     * Get the cluster size histogram, up to the bin of the largest cluster
+     *
+     * @return Number of clusters per bin, where bin b has the sizes from 2^b to 2^(b+1) - 1
+     */
+    public long[] getSizeHistogram() {
+        int bins = (maxSize == 0) ? 0 : 32 - Integer.numberOfLeadingZeros(maxSize);
+        return Arrays.copyOf(sizeHistogram, bins);
+    }
+
+    /**
+     * Get the indices of the largest clusters
+     *
+     * @return Cluster indices, from the largest cluster to the smallest
+     */
+    public int[] getLargestClusters() {
+        int[] clusterIds = new int[largest.length];
+        for (int i = 0; i < largest.length; i++) {
+            clusterIds[i] = Integer.MAX_VALUE - (int) largest[i];
+        }
+        return clusterIds;
+    }
+
+    /**
+     * Get the sizes of the largest clusters
+     *
+     * @return Cluster sizes, in the same order as getLargestClusters()
+     */
+    public int[] getLargestClusterSizes() {
+        int[] sizes = new int[largest.length];
+        for (int i = 0; i < largest.length; i++) {
+            sizes[i] = (int) (largest[i] >>> 32);
+        }
+        return sizes;
+    }
+
+    public int getNoOfNonEmptyClusters() {
+        return noOfClusters - noOfEmpty;
+    }
+
+    public double getMeanSize() {
+        int nonEmpty = getNoOfNonEmptyClusters();
+        return (nonEmpty == 0) ? 0 : (double) noOfEntities / nonEmpty;
+    }
+
+    public double getSingletonRatio() {
+        int nonEmpty = getNoOfNonEmptyClusters();
+        return (nonEmpty == 0) ? 0 : (double) noOfSingletons / nonEmpty;
+    }
+
+    /**
+     * Get the mean share of the 1st dataset's entities in each (non-empty) cluster, 0.5 meaning balanced clusters on
+     * average. Only meaningful for Clean-Clean ER.
+     *
+     * @return Mean share of dataset 1 entities
+     */
+    public double getMeanD1Share() {
+        int nonEmpty = getNoOfNonEmptyClusters();
+        return (nonEmpty == 0) ? 0 : d1ShareSum / nonEmpty;
+    }
+
+    // Automatically generated getters below
+
+    public boolean isCleanCleanEr() {
+        return isCleanCleanEr;
+    }
+
+    public int getNoOfClusters() {
+        return noOfClusters;
+    }
+
+    public long getNoOfEntities() {
+        return noOfEntities;
+    }
+
+    public int getNoOfEmpty() {
+        return noOfEmpty;
+    }
+
+    public int getNoOfSingletons() {
+        return noOfSingletons;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getOnlyD1() {
+        return onlyD1;
+    }
+
+    public int getOnlyD2() {
+        return onlyD2;
+    }
+
+    public int getBalanced() {
+        return balanced;
+    }
+}
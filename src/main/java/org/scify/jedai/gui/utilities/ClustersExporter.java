@@ -0,0 +1,309 @@
+package org.scify.jedai.gui.utilities;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.EquivalenceCluster;
+import org.scify.jedai.datawriter.ClustersPerformanceWriter;
+import org.scify.jedai.utilities.datastructures.AbstractDuplicatePropagation;
+import org.scify.jedai.utilities.datastructures.BilateralDuplicatePropagation;
+import org.scify.jedai.utilities.datastructures.UnilateralDuplicatePropagation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports entity clusters in a background task, with progress and cancellation. The CSV, XML and RDF files have the
+ * detailed results that jedai-core's ClustersPerformanceWriter writes (the clustered entities with their attribute
+ * values, and the performance summary against the ground truth). The writer only writes to a path, so a compressed
+ * export writes a temporary file first and then streams it through gzip.
+ * <p>
+ * Clusters can also be written in a compact binary format with the entity IDs only, one cluster at a time through a
+ * large buffer, which BinaryClustersReader reads by memory-mapping the file.
+ */
+public class ClustersExporter {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final TIntList EMPTY_IDS = new TIntArrayList(0);
+
+    private final EquivalenceCluster[] clusters;
+    private final List<EntityProfile> profilesD1;
+    private final List<EntityProfile> profilesD2;
+    private final AbstractDuplicatePropagation duplicatePropagation;
+
+    /**
+     * Listener for the progress of an export
+     */
+    public interface ProgressListener {
+        /**
+         * Called periodically while the file is written
+         *
+         * @param written Amount written so far: clusters for the binary format (of each dataset), bytes when
+         *                compressing a detailed results file
+         * @param total   Total amount, or -1 while it is not known
+         */
+        void onProgress(long written, long total);
+    }
+
+    /**
+     * Create an exporter for the binary format only
+     *
+     * @param clusters   Entity clusters
+     * @param profilesD1 Entity profiles of dataset 1
+     * @param profilesD2 Entity profiles of dataset 2 (null for Dirty ER)
+     */
+    public ClustersExporter(EquivalenceCluster[] clusters, List<EntityProfile> profilesD1,
+                            List<EntityProfile> profilesD2) {
+        this(clusters, profilesD1, profilesD2, null);
+    }
+
+    /**
+     * Create an exporter for the given clusters
+     *
+     * @param clusters             Entity clusters
+     * @param profilesD1           Entity profiles of dataset 1
+     * @param profilesD2           Entity profiles of dataset 2 (null for Dirty ER)
+     * @param duplicatePropagation Ground truth, for the detailed results (not modified, the export uses a copy)
+     */
+    public ClustersExporter(EquivalenceCluster[] clusters, List<EntityProfile> profilesD1,
+                            List<EntityProfile> profilesD2, AbstractDuplicatePropagation duplicatePropagation) {
+        this.clusters = clusters;
+        this.profilesD1 = profilesD1;
+        this.profilesD2 = profilesD2;
+        this.duplicatePropagation = duplicatePropagation;
+    }
+
+    /**
+     * Write the clusters to a file. If the export is cancelled or fails, the incomplete file is deleted.
+     *
+     * @param file        File to write
+     * @param format      Output format (JedaiOptions.CSV, XML, RDF or BINARY)
+     * @param gzip        If true, the output is gzip compressed (not supported for the binary format, which is
+     *                    memory-mapped when read)
+     * @param progress    Listener for the progress of the export (can be null)
+     * @param isCancelled Checked periodically, the export stops if it returns true
+     * @return True if all clusters were written, false if the export was cancelled
+     * @throws IOException When writing the file fails
+     */
+    public boolean export(File file, String format, boolean gzip, ProgressListener progress,
+                          BooleanSupplier isCancelled) throws IOException {
+        boolean isBinary = format.equals(JedaiOptions.BINARY);
+        if (isBinary && gzip) {
+            throw new IllegalArgumentException("Binary cluster files cannot be compressed");
+        }
+
+        boolean completed = false;
+        try {
+            if (isBinary) {
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+                    completed = writeBinary(out, progress, isCancelled);
+                }
+            } else {
+                completed = writeDetailedResults(file, format, gzip, progress, isCancelled);
+            }
+        } finally {
+            if (!completed && file.exists() && !file.delete()) {
+                System.err.println("Could not delete the incomplete export file " + file);
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Write the detailed results of the clusters with jedai-core's ClustersPerformanceWriter
+     *
+     * @param file        File to write
+     * @param format      Output format (JedaiOptions.CSV, XML or RDF)
+     * @param gzip        If true, the output is gzip compressed
+     * @param progress    Listener for the progress of the export (can be null)
+     * @param isCancelled Checked before and after writing, and while compressing
+     * @return True if the file was written, false if the export was cancelled
+     * @throws IOException When writing the file fails
+     */
+    private boolean writeDetailedResults(File file, String format, boolean gzip, ProgressListener progress,
+                                         BooleanSupplier isCancelled) throws IOException {
+        if (duplicatePropagation == null) {
+            throw new IllegalStateException("The detailed results need the ground truth");
+        }
+        if (isCancelled.getAsBoolean()) {
+            return false;
+        }
+        if (progress != null) {
+            progress.onProgress(0, -1);
+        }
+
+        // The writer resets and fills the detected duplicates of the ground truth, so it gets its own copy
+        AbstractDuplicatePropagation groundTruth;
+        if (duplicatePropagation instanceof BilateralDuplicatePropagation) {
+            groundTruth = new BilateralDuplicatePropagation(duplicatePropagation.getDuplicates());
+        } else {
+            groundTruth = new UnilateralDuplicatePropagation(duplicatePropagation.getDuplicates());
+        }
+        ClustersPerformanceWriter writer = new ClustersPerformanceWriter(clusters, groundTruth);
+
+        File output = gzip ? File.createTempFile("jedai-export", ".tmp", file.getAbsoluteFile().getParentFile())
+                : file;
+        try {
+            switch (format) {
+                case JedaiOptions.CSV:
+                    writer.printDetailedResultsToCSV(profilesD1, profilesD2, output.getAbsolutePath());
+                    break;
+                case JedaiOptions.XML:
+                    writer.printDetailedResultsToXML(profilesD1, profilesD2, output.getAbsolutePath());
+                    break;
+                case JedaiOptions.RDF:
+                    writer.printDetailedResultsToRDF(profilesD1, profilesD2, output.getAbsolutePath());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown output format: " + format);
+            }
+            if (isCancelled.getAsBoolean()) {
+                return false;
+            }
+
+            return !gzip || compress(output, file, progress, isCancelled);
+        } finally {
+            if (gzip && !output.delete()) {
+                System.err.println("Could not delete the temporary export file " + output);
+            }
+        }
+    }
+
+    /**
+     * Stream a file through gzip into another file
+     *
+     * @param source      File to compress
+     * @param target      Compressed file to write
+     * @param progress    Listener for the number of compressed bytes (can be null)
+     * @param isCancelled Checked after each buffer, the compression stops if it returns true
+     * @return True if the whole file was compressed, false if it was cancelled
+     * @throws IOException When reading or writing fails
+     */
+    private static boolean compress(File source, File target, ProgressListener progress, BooleanSupplier isCancelled)
+            throws IOException {
+        long total = source.length();
+        long written = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(source);
+             OutputStream out = new GZIPOutputStream(new FileOutputStream(target), BUFFER_SIZE)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                written += read;
+
+                if (isCancelled.getAsBoolean()) {
+                    return false;
+                }
+                if (progress != null) {
+                    progress.onProgress(written, total);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write the clusters in the binary format that BinaryClustersReader describes
+     *
+     * @param out         Stream to write to (not closed)
+     * @param progress    Listener for the number of written clusters of each dataset (can be null)
+     * @param isCancelled Checked after each cluster, the export stops if it returns true
+     * @return True if all clusters were written, false if the export was cancelled
+     * @throws IOException When writing fails
+     */
+    public boolean writeBinary(DataOutputStream out, ProgressListener progress, BooleanSupplier isCancelled)
+            throws IOException {
+        boolean isCleanCleanEr = (profilesD2 != null);
+        int noOfEntitiesD1 = profilesD1.size();
+        int noOfEntitiesD2 = isCleanCleanEr ? profilesD2.size() : 0;
+
+        int totalIdsD1 = 0;
+        int totalIdsD2 = 0;
+        for (EquivalenceCluster cluster : clusters) {
+            totalIdsD1 += cluster.getEntityIdsD1().size();
+            totalIdsD2 += isCleanCleanEr ? cluster.getEntityIdsD2().size() : 0;
+        }
+
+        // Header
+        out.writeInt(BinaryClustersReader.MAGIC);
+        out.writeInt(BinaryClustersReader.VERSION);
+        out.writeInt(isCleanCleanEr ? BinaryClustersReader.FLAG_CLEAN_CLEAN_ER : 0);
+        out.writeInt(clusters.length);
+        out.writeInt(noOfEntitiesD1);
+        out.writeInt(noOfEntitiesD2);
+        out.writeInt(totalIdsD1);
+        out.writeInt(totalIdsD2);
+
+        // Offset tables
+        writeOffsets(out, 1, isCleanCleanEr);
+        writeOffsets(out, 2, isCleanCleanEr);
+
+        // Entity IDs of each dataset, keeping the cluster of each entity for the entity index
+        int[] clusterOfEntityD1 = new int[noOfEntitiesD1];
+        int[] clusterOfEntityD2 = new int[noOfEntitiesD2];
+        Arrays.fill(clusterOfEntityD1, -1);
+        Arrays.fill(clusterOfEntityD2, -1);
+
+        long progressStep = Math.max(1, clusters.length / 500);
+        for (int dataset = 1; dataset <= 2; dataset++) {
+            int[] clusterOfEntity = (dataset == 1) ? clusterOfEntityD1 : clusterOfEntityD2;
+            for (int clusterId = 0; clusterId < clusters.length; clusterId++) {
+                TIntList entityIds = getEntityIds(clusters[clusterId], dataset, isCleanCleanEr);
+                for (int i = 0; i < entityIds.size(); i++) {
+                    out.writeInt(entityIds.get(i));
+                    clusterOfEntity[entityIds.get(i)] = clusterId;
+                }
+
+                if (isCancelled.getAsBoolean()) {
+                    return false;
+                }
+                if (progress != null && (clusterId % progressStep == 0 || clusterId == clusters.length - 1)) {
+                    progress.onProgress((dataset - 1L) * clusters.length + clusterId + 1, 2L * clusters.length);
+                }
+            }
+        }
+
+        // Entity index
+        for (int clusterId : clusterOfEntityD1) {
+            out.writeInt(clusterId);
+        }
+        for (int clusterId : clusterOfEntityD2) {
+            out.writeInt(clusterId);
+        }
+        return true;
+    }
+
+    /**
+     * Write the offset table of a dataset: where the entity IDs of each cluster start in the dataset's ID array
+     *
+     * @param out            Stream to write to
+     * @param dataset        Number of the dataset (1 or 2)
+     * @param isCleanCleanEr True for Clean-Clean ER (for Dirty ER, all offsets of dataset 2 are 0)
+     * @throws IOException When writing fails
+     */
+    private void writeOffsets(DataOutputStream out, int dataset, boolean isCleanCleanEr) throws IOException {
+        int offset = 0;
+        for (EquivalenceCluster cluster : clusters) {
+            out.writeInt(offset);
+            offset += getEntityIds(cluster, dataset, isCleanCleanEr).size();
+        }
+        out.writeInt(offset);
+    }
+
+    private static TIntList getEntityIds(EquivalenceCluster cluster, int dataset, boolean isCleanCleanEr) {
+        if (dataset == 1) {
+            return cluster.getEntityIdsD1();
+        }
+        return isCleanCleanEr ? cluster.getEntityIdsD2() : EMPTY_IDS;
+    }
+}
@@ -0,0 +1,53 @@
+package org.scify.jedai.gui.utilities;
+
+import org.scify.jedai.datamodel.Attribute;
+import org.scify.jedai.datamodel.EntityProfile;
+
+import java.util.List;
+
+/**
+ * Fingerprints of datasets, for recognizing the same data in later runs and sessions. A fingerprint is the number of
+ * profiles and a hash of their URLs and attribute values. The profiles are hashed in order, since the entity IDs are
+ * their positions, while the order of each profile's attributes does not matter.
+ */
+public class DatasetFingerprint {
+    /**
+     * Get the fingerprint of the datasets of a run, hashing all of their profiles
+     *
+     * @param profilesD1 Entity profiles of dataset 1
+     * @param profilesD2 Entity profiles of dataset 2 (null for Dirty ER)
+     * @return Fingerprint
+     */
+    public static String getFingerprint(List<EntityProfile> profilesD1, List<EntityProfile> profilesD2) {
+        return getFingerprint(profilesD1, Integer.MAX_VALUE) + "-" + getFingerprint(profilesD2, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get a fingerprint of a dataset, from its size and a hash of an evenly spread sample of its profiles
+     *
+     * @param profiles   Entity profiles (can be null)
+     * @param sampleSize Number of profiles to hash
+     * @return Fingerprint
+     */
+    public static String getFingerprint(List<EntityProfile> profiles, int sampleSize) {
+        if (profiles == null) {
+            return "0";
+        }
+
+        long hash = 17;
+        int step = Math.max(1, profiles.size() / sampleSize);
+        for (int i = 0; i < profiles.size(); i += step) {
+            EntityProfile profile = profiles.get(i);
+
+            // Sum the attribute hashes, so that their order does not matter
+            long attributesHash = 0;
+            for (Attribute attribute : profile.getAttributes()) {
+                attributesHash += 31 * attribute.getName().hashCode() + attribute.getValue().hashCode();
+            }
+            hash = 31 * hash + String.valueOf(profile.getEntityUrl()).hashCode();
+            hash = 31 * hash + attributesHash;
+        }
+
+        return profiles.size() + ":" + Long.toHexString(hash);
+    }
+}
@@ -7,10 +7,15 @@ import javafx.fxml.JavaFXBuilderFactory;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.ChoiceDialog;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class DialogHelper {
     /**
@@ -30,6 +35,50 @@ public class DialogHelper {
         });
     }
 
+    /**
+     * Ask the user to choose one of the given options, and wait for the answer. Can be called from any thread. If the
+     * waiting thread is interrupted, the dialog is closed and its interrupted status is kept.
+     *
+     * @param title   Title of the dialog
+     * @param header  Header of the dialog
+     * @param choices Options to choose from
+     * @return Index of the chosen option, or -1 if the dialog was cancelled, closed or interrupted
+     */
+    public static int showChoiceAndWait(String title, String header, List<String> choices) {
+        AtomicReference<ChoiceDialog<String>> shownDialog = new AtomicReference<>();
+        FutureTask<Integer> dialogTask = new FutureTask<>(() -> {
+            ChoiceDialog<String> dialog = new ChoiceDialog<>(choices.get(0), choices);
+            dialog.setTitle(title);
+            dialog.setHeaderText(header);
+            shownDialog.set(dialog);
+            return dialog.showAndWait().map(choices::indexOf).orElse(-1);
+        });
+
+        if (Platform.isFxApplicationThread()) {
+            dialogTask.run();
+        } else {
+            Platform.runLater(dialogTask);
+        }
+
+        try {
+            return dialogTask.get();
+        } catch (InterruptedException e) {
+            // Nobody waits for the answer anymore, so do not show the dialog, or close it if it is shown
+            dialogTask.cancel(false);
+            Platform.runLater(() -> {
+                ChoiceDialog<String> dialog = shownDialog.get();
+                if (dialog != null) {
+                    dialog.close();
+                }
+            });
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
     /**
      * Load an FXML file and return the Parent it was loaded in
      *
@@ -0,0 +1,239 @@
+package org.scify.jedai.gui.utilities;
+
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import gnu.trove.set.hash.TIntHashSet;
+import org.scify.jedai.datamodel.Attribute;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.EquivalenceCluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index for finding the clusters of entities by entity ID, URL or keywords of their attribute values. Entities are
+ * numbered with one global ID, the ones of the 1st dataset first and then the ones of the 2nd, so that the cluster of
+ * each entity is kept in a single primitive array and every keyword maps to one sorted list of global IDs.
+ */
+public class EntitySearchIndex {
+    // Maximum number of clusters that a search returns
+    public static final int MAX_RESULTS = 1000;
+
+    private static final int NO_ENTITY = -1;
+
+    private final int noOfEntitiesD1;
+    private final int[] clusterOfEntity;
+    private final TObjectIntHashMap<String> entityOfUrlD1;
+    private final TObjectIntHashMap<String> entityOfUrlD2;
+    private final Map<String, TIntArrayList> entitiesOfToken = new HashMap<>();
+
+    /**
+     * Build the index
+     *
+     * @param clusters   Entity clusters
+     * @param profilesD1 Entity profiles of the 1st dataset
+     * @param profilesD2 Entity profiles of the 2nd dataset (null for Dirty ER)
+     */
+    public EntitySearchIndex(EquivalenceCluster[] clusters, List<EntityProfile> profilesD1,
+                             List<EntityProfile> profilesD2) {
+        this.noOfEntitiesD1 = profilesD1.size();
+        int noOfEntities = noOfEntitiesD1 + (profilesD2 != null ? profilesD2.size() : 0);
+
+        // Cluster of each entity (-1 if it is not in a cluster)
+        this.clusterOfEntity = new int[noOfEntities];
+        Arrays.fill(clusterOfEntity, -1);
+        for (int clusterId = 0; clusterId < clusters.length; clusterId++) {
+            TIntIterator iter = clusters[clusterId].getEntityIdsD1().iterator();
+            while (iter.hasNext()) {
+                clusterOfEntity[iter.next()] = clusterId;
+            }
+            if (profilesD2 != null) {
+                iter = clusters[clusterId].getEntityIdsD2().iterator();
+                while (iter.hasNext()) {
+                    clusterOfEntity[noOfEntitiesD1 + iter.next()] = clusterId;
+                }
+            }
+        }
+
+        // URLs and attribute value tokens of the entities
+        this.entityOfUrlD1 = indexProfiles(profilesD1, 0);
+        this.entityOfUrlD2 = (profilesD2 != null) ? indexProfiles(profilesD2, noOfEntitiesD1) : null;
+    }
+
+    /**
+     * Add the attribute value tokens of a dataset's profiles to the inverted index, and index their URLs
+     *
+     * @param profiles    Entity profiles
+     * @param firstEntity Global ID of the dataset's first entity
+     * @return Map from URL to the (dataset) entity ID
+     */
+    private TObjectIntHashMap<String> indexProfiles(List<EntityProfile> profiles, int firstEntity) {
+        TObjectIntHashMap<String> entityOfUrl = new TObjectIntHashMap<>(profiles.size(), 0.5f, NO_ENTITY);
+        List<String> tokens = new ArrayList<>();
+
+        for (int entityId = 0; entityId < profiles.size(); entityId++) {
+            EntityProfile profile = profiles.get(entityId);
+            entityOfUrl.putIfAbsent(profile.getEntityUrl(), entityId);
+
+            int globalId = firstEntity + entityId;
+            for (Attribute attribute : profile.getAttributes()) {
+                tokens.clear();
+                tokenize(attribute.getValue(), tokens);
+
+                for (String token : tokens) {
+                    // Entities are added in increasing order, so each list stays sorted and only the last can repeat
+                    TIntArrayList entities = entitiesOfToken.computeIfAbsent(token, t -> new TIntArrayList(2));
+                    if (entities.isEmpty() || entities.get(entities.size() - 1) != globalId) {
+                        entities.add(globalId);
+                    }
+                }
+            }
+        }
+
+        return entityOfUrl;
+    }
+
+    /**
+     * Split a text to lowercase tokens of letters and digits
+     *
+     * @param text   Text to split
+     * @param tokens List to add the tokens to
+     */
+    static void tokenize(String text, List<String> tokens) {
+        if (text == null) {
+            return;
+        }
+
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isTokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isTokenChar && start < 0) {
+                start = i;
+            } else if (!isTokenChar && 0 <= start) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * Get the cluster of an entity
+     *
+     * @param dataset  Dataset of the entity (1 or 2)
+     * @param entityId ID of the entity in its dataset
+     * @return Index of the cluster, or -1 if the entity does not exist or is not in a cluster
+     */
+    public int getClusterOfEntity(int dataset, int entityId) {
+        int globalId = (dataset == 1) ? entityId : noOfEntitiesD1 + entityId;
+        boolean exists = (dataset == 1) ? entityId < noOfEntitiesD1 : globalId < clusterOfEntity.length;
+        if (entityId < 0 || !exists) {
+            return -1;
+        }
+        return clusterOfEntity[globalId];
+    }
+
+    /**
+     * Find the clusters that contain entities matching a query. A query matches the entities with that ID (in any
+     * dataset), the entities with that URL, and the entities that have all the query's keywords in their attribute
+     * values. The search stops as soon as MAX_RESULTS clusters are found.
+     *
+     * @param query Entity ID, URL or keywords
+     * @return Indices of the matching clusters in increasing order, at most MAX_RESULTS
+     */
+    public int[] search(String query) {
+        TIntHashSet clusterIds = new TIntHashSet();
+        query = query.trim();
+        if (query.isEmpty()) {
+            return new int[0];
+        }
+
+        // Entity ID
+        try {
+            int entityId = Integer.parseInt(query);
+            addCluster(clusterIds, getClusterOfEntity(1, entityId));
+            addCluster(clusterIds, getClusterOfEntity(2, entityId));
+        } catch (NumberFormatException e) {
+            // Not an ID
+        }
+
+        // URL
+        addCluster(clusterIds, getClusterOfEntity(1, entityOfUrlD1.get(query)));
+        if (entityOfUrlD2 != null) {
+            addCluster(clusterIds, getClusterOfEntity(2, entityOfUrlD2.get(query)));
+        }
+
+        // Keywords
+        TIntArrayList entities = getEntitiesOfKeywords(query);
+        for (int i = 0; i < entities.size() && clusterIds.size() < MAX_RESULTS; i++) {
+            addCluster(clusterIds, clusterOfEntity[entities.get(i)]);
+        }
+
+        int[] sortedIds = clusterIds.toArray();
+        Arrays.sort(sortedIds);
+        return sortedIds;
+    }
+
+    /**
+     * Get the entities that have all the keywords of a query, intersecting the (sorted) entity lists of the keywords
+     * from the rarest one, so that the intermediate results are as small as possible
+     *
+     * @param query Keywords
+     * @return Global IDs of the matching entities in increasing order
+     */
+    private TIntArrayList getEntitiesOfKeywords(String query) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(query, tokens);
+
+        List<TIntArrayList> tokenEntities = new ArrayList<>();
+        for (String token : new HashSet<>(tokens)) {
+            TIntArrayList entities = entitiesOfToken.get(token);
+            if (entities == null) {
+                // No entity has this keyword
+                return new TIntArrayList(0);
+            }
+            tokenEntities.add(entities);
+        }
+        if (tokenEntities.isEmpty()) {
+            return new TIntArrayList(0);
+        }
+        tokenEntities.sort(Comparator.comparingInt(TIntArrayList::size));
+
+        TIntArrayList entities = tokenEntities.get(0);
+        for (int i = 1; i < tokenEntities.size() && !entities.isEmpty(); i++) {
+            entities = intersect(entities, tokenEntities.get(i));
+        }
+        return entities;
+    }
+
+    private static void addCluster(TIntHashSet clusterIds, int clusterId) {
+        if (0 <= clusterId && clusterIds.size() < MAX_RESULTS) {
+            clusterIds.add(clusterId);
+        }
+    }
+
+    private static TIntArrayList intersect(TIntArrayList a, TIntArrayList b) {
+        TIntArrayList result = new TIntArrayList(Math.min(a.size(), b.size()));
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            int x = a.get(i);
+            int y = b.get(j);
+            if (x == y) {
+                result.add(x);
+                i++;
+                j++;
+            } else if (x < y) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return result;
+    }
+}
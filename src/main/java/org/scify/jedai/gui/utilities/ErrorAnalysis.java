@@ -0,0 +1,364 @@
+package org.scify.jedai.gui.utilities;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import org.scify.jedai.datamodel.Attribute;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.EquivalenceCluster;
+import org.scify.jedai.datamodel.IdDuplicates;
+import org.scify.jedai.utilities.datastructures.AbstractDuplicatePropagation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * False positive and false negative pairs of a run, i.e. the matched pairs that are not in the ground truth and the
+ * ground truth pairs that were not matched.
+ * <p>
+ * Pairs are packed into longs (entity of the 1st dataset, or the smaller ID for Dirty ER, in the high half), so the
+ * ground truth is a sorted long array and every error is a long, without pair objects. The false negatives are all
+ * listed, while the false positives are counted exactly but only listed up to MAX_LISTED_ERRORS, since large clusters
+ * can have many more pairs than the ground truth.
+ * <p>
+ * Each error is assigned to the attributes that share the most tokens between its two entities, since these are the
+ * blocking keys that made token-based block building compare them. Errors that share no tokens at all could not have
+ * been compared by such methods.
+ */
+public class ErrorAnalysis {
+    // Maximum number of false positives to list
+    public static final int MAX_LISTED_ERRORS = 100000;
+    public static final String NO_SHARED_TOKENS = "(no shared tokens)";
+
+    private final boolean isCleanCleanEr;
+    private final List<EntityProfile> profilesD1;
+    private final List<EntityProfile> profilesD2;
+
+    private final long noOfFalsePositives;
+    private final long[] falsePositives;
+    private final long[] falseNegatives;
+
+    // Attribute group of each listed error, as an index in the groups list
+    private final List<String> groups = new ArrayList<>();
+    private final TObjectIntHashMap<String> groupIds = new TObjectIntHashMap<>(16, 0.5f, -1);
+    private final int[] groupOfFalsePositive;
+    private final int[] groupOfFalseNegative;
+
+    /**
+     * Find the errors of the given clusters
+     *
+     * @param clusters     Entity clusters of the run
+     * @param groundTruth  Ground truth of the datasets
+     * @param profilesD1   Entity profiles of the 1st dataset
+     * @param profilesD2   Entity profiles of the 2nd dataset (null for Dirty ER)
+     */
+    public ErrorAnalysis(EquivalenceCluster[] clusters, AbstractDuplicatePropagation groundTruth,
+                         List<EntityProfile> profilesD1, List<EntityProfile> profilesD2) {
+        this.isCleanCleanEr = (profilesD2 != null);
+        this.profilesD1 = profilesD1;
+        this.profilesD2 = profilesD2;
+
+        // Cluster of each entity
+        int[] clusterOfD1 = new int[profilesD1.size()];
+        int[] clusterOfD2 = new int[isCleanCleanEr ? profilesD2.size() : 0];
+        Arrays.fill(clusterOfD1, -1);
+        Arrays.fill(clusterOfD2, -1);
+        long predictedPairs = 0;
+        for (int clusterId = 0; clusterId < clusters.length; clusterId++) {
+            TIntList idsD1 = clusters[clusterId].getEntityIdsD1();
+            for (int i = 0; i < idsD1.size(); i++) {
+                clusterOfD1[idsD1.get(i)] = clusterId;
+            }
+
+            if (isCleanCleanEr) {
+                TIntList idsD2 = clusters[clusterId].getEntityIdsD2();
+                for (int i = 0; i < idsD2.size(); i++) {
+                    clusterOfD2[idsD2.get(i)] = clusterId;
+                }
+                predictedPairs += (long) idsD1.size() * idsD2.size();
+            } else {
+                predictedPairs += (long) idsD1.size() * (idsD1.size() - 1) / 2;
+            }
+        }
+
+        // Sorted ground truth pairs, and the ones that are not in the same cluster
+        Set<IdDuplicates> duplicates = groundTruth.getDuplicates();
+        long[] truePairs = new long[duplicates.size()];
+        int noOfTruePairs = 0;
+        for (IdDuplicates duplicate : duplicates) {
+            int id1 = duplicate.getEntityId1();
+            int id2 = duplicate.getEntityId2();
+            if (!isCleanCleanEr && id1 != id2) {
+                truePairs[noOfTruePairs++] = pack(Math.min(id1, id2), Math.max(id1, id2));
+            } else if (isCleanCleanEr) {
+                truePairs[noOfTruePairs++] = pack(id1, id2);
+            }
+        }
+        Arrays.sort(truePairs, 0, noOfTruePairs);
+        noOfTruePairs = removeDuplicates(truePairs, noOfTruePairs);
+
+        long[] missed = new long[noOfTruePairs];
+        int noOfMissed = 0;
+        for (int i = 0; i < noOfTruePairs; i++) {
+            int clusterA = clusterOfD1[getEntity1(truePairs[i])];
+            int clusterB = (isCleanCleanEr ? clusterOfD2 : clusterOfD1)[getEntity2(truePairs[i])];
+            if (clusterA < 0 || clusterA != clusterB) {
+                missed[noOfMissed++] = truePairs[i];
+            }
+        }
+        this.falseNegatives = Arrays.copyOf(missed, noOfMissed);
+        this.noOfFalsePositives = predictedPairs - (noOfTruePairs - noOfMissed);
+
+        // List the matched pairs that are not in the ground truth
+        long[] wrong = new long[(int) Math.min(noOfFalsePositives, MAX_LISTED_ERRORS)];
+        int noOfWrong = 0;
+        for (int clusterId = 0; clusterId < clusters.length && noOfWrong < wrong.length; clusterId++) {
+            TIntList idsD1 = clusters[clusterId].getEntityIdsD1();
+            TIntList idsD2 = isCleanCleanEr ? clusters[clusterId].getEntityIdsD2() : idsD1;
+            for (int i = 0; i < idsD1.size() && noOfWrong < wrong.length; i++) {
+                for (int j = isCleanCleanEr ? 0 : i + 1; j < idsD2.size() && noOfWrong < wrong.length; j++) {
+                    int id1 = idsD1.get(i);
+                    int id2 = idsD2.get(j);
+                    long pair = isCleanCleanEr ? pack(id1, id2) : pack(Math.min(id1, id2), Math.max(id1, id2));
+                    if (Arrays.binarySearch(truePairs, 0, noOfTruePairs, pair) < 0) {
+                        wrong[noOfWrong++] = pair;
+                    }
+                }
+            }
+        }
+        this.falsePositives = Arrays.copyOf(wrong, noOfWrong);
+
+        // Group the errors by the attributes they share tokens in, tokenizing each profile only once (an entity is
+        // usually in many errors), and dropping the tokens when the groups are known
+        List<Map<String, Set<String>>> tokensD1 = new ArrayList<>(Collections.nCopies(profilesD1.size(), null));
+        List<Map<String, Set<String>>> tokensD2 =
+                isCleanCleanEr ? new ArrayList<>(Collections.nCopies(profilesD2.size(), null)) : tokensD1;
+        this.groupOfFalsePositive = new int[falsePositives.length];
+        for (int i = 0; i < falsePositives.length; i++) {
+            groupOfFalsePositive[i] = getGroupId(getSharedAttributes(
+                    getTokensPerAttribute(tokensD1, profilesD1, getEntity1(falsePositives[i])),
+                    getTokensPerAttribute(tokensD2, isCleanCleanEr ? profilesD2 : profilesD1,
+                            getEntity2(falsePositives[i]))));
+        }
+        this.groupOfFalseNegative = new int[falseNegatives.length];
+        for (int i = 0; i < falseNegatives.length; i++) {
+            groupOfFalseNegative[i] = getGroupId(getSharedAttributes(
+                    getTokensPerAttribute(tokensD1, profilesD1, getEntity1(falseNegatives[i])),
+                    getTokensPerAttribute(tokensD2, isCleanCleanEr ? profilesD2 : profilesD1,
+                            getEntity2(falseNegatives[i]))));
+        }
+    }
+
+    private static long pack(int id1, int id2) {
+        return ((long) id1 << 32) | id2;
+    }
+
+    private static int removeDuplicates(long[] sorted, int length) {
+        int unique = 0;
+        for (int i = 0; i < length; i++) {
+            if (unique == 0 || sorted[unique - 1] != sorted[i]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return unique;
+    }
+
+    private int getGroupId(String group) {
+        int groupId = groupIds.get(group);
+        if (groupId < 0) {
+            groupId = groups.size();
+            groups.add(group);
+            groupIds.put(group, groupId);
+        }
+        return groupId;
+    }
+
+    /**
+     * Get the 1st entity of a pair (of the 1st dataset)
+     *
+     * @param pair Packed pair
+     * @return Entity ID
+     */
+    public static int getEntity1(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    /**
+     * Get the 2nd entity of a pair (of the 2nd dataset for Clean-Clean ER)
+     *
+     * @param pair Packed pair
+     * @return Entity ID
+     */
+    public static int getEntity2(long pair) {
+        return (int) pair;
+    }
+
+    public EntityProfile getProfile1(long pair) {
+        return profilesD1.get(getEntity1(pair));
+    }
+
+    public EntityProfile getProfile2(long pair) {
+        return (isCleanCleanEr ? profilesD2 : profilesD1).get(getEntity2(pair));
+    }
+
+    /**
+     * Get the tokens of each attribute of a profile
+     *
+     * @param profile Entity profile
+     * @return Distinct tokens of each attribute name
+     */
+    private static Map<String, Set<String>> getTokensPerAttribute(EntityProfile profile) {
+        Map<String, Set<String>> tokensPerAttribute = new HashMap<>();
+        List<String> tokens = new ArrayList<>();
+        for (Attribute attribute : profile.getAttributes()) {
+            tokens.clear();
+            EntitySearchIndex.tokenize(attribute.getValue(), tokens);
+            tokensPerAttribute.computeIfAbsent(attribute.getName(), name -> new LinkedHashSet<>()).addAll(tokens);
+        }
+        return tokensPerAttribute;
+    }
+
+    /**
+     * Get the tokens of each attribute of a profile, tokenizing it only the first time
+     *
+     * @param cache    Tokens of the dataset's profiles that were already tokenized (null for the others)
+     * @param profiles Entity profiles of the dataset
+     * @param entityId ID of the entity
+     * @return Distinct tokens of each attribute name
+     */
+    private static Map<String, Set<String>> getTokensPerAttribute(List<Map<String, Set<String>>> cache,
+                                                                  List<EntityProfile> profiles, int entityId) {
+        Map<String, Set<String>> tokens = cache.get(entityId);
+        if (tokens == null) {
+            tokens = getTokensPerAttribute(profiles.get(entityId));
+            cache.set(entityId, tokens);
+        }
+        return tokens;
+    }
+
+    /**
+     * Get the attributes of a pair's entities that share the most tokens
+     *
+     * @param pair Packed pair
+     * @return Attribute name (or "name 1 / name 2" when the attributes have different names), or NO_SHARED_TOKENS
+     */
+    public String getSharedAttributes(long pair) {
+        return getSharedAttributes(getTokensPerAttribute(getProfile1(pair)), getTokensPerAttribute(getProfile2(pair)));
+    }
+
+    /**
+     * Get the attributes of two entities that share the most tokens
+     *
+     * @param tokens1 Tokens of each attribute of the 1st entity
+     * @param tokens2 Tokens of each attribute of the 2nd entity
+     * @return Attribute name (or "name 1 / name 2" when the attributes have different names), or NO_SHARED_TOKENS
+     */
+    private static String getSharedAttributes(Map<String, Set<String>> tokens1, Map<String, Set<String>> tokens2) {
+        String best = NO_SHARED_TOKENS;
+        int bestShared = 0;
+        for (Map.Entry<String, Set<String>> attribute1 : tokens1.entrySet()) {
+            for (Map.Entry<String, Set<String>> attribute2 : tokens2.entrySet()) {
+                int shared = 0;
+                for (String token : attribute1.getValue()) {
+                    if (attribute2.getValue().contains(token)) {
+                        shared++;
+                    }
+                }
+
+                // Prefer attributes with the same name on ties
+                boolean sameName = attribute1.getKey().equals(attribute2.getKey());
+                if (bestShared < shared || (bestShared == shared && 0 < shared && sameName)) {
+                    bestShared = shared;
+                    best = sameName ? attribute1.getKey() : attribute1.getKey() + " / " + attribute2.getKey();
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get the tokens that the entities of a pair share in any of their attributes, i.e. the keys of the blocks that
+     * token-based block building would put both of them in
+     *
+     * @param pair Packed pair
+     * @return Shared tokens, in the order of the 1st entity's attributes
+     */
+    public Set<String> getSharedTokens(long pair) {
+        Set<String> tokens2 = new LinkedHashSet<>();
+        for (Set<String> tokens : getTokensPerAttribute(getProfile2(pair)).values()) {
+            tokens2.addAll(tokens);
+        }
+
+        Set<String> shared = new LinkedHashSet<>();
+        for (Set<String> tokens : getTokensPerAttribute(getProfile1(pair)).values()) {
+            for (String token : tokens) {
+                if (tokens2.contains(token)) {
+                    shared.add(token);
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Get the listed errors of one kind, optionally only the ones of a group
+     *
+     * @param falsePositives True for the false positives, false for the false negatives
+     * @param groupId        Group index, or -1 for all errors
+     * @return Packed pairs
+     */
+    public long[] getErrors(boolean falsePositives, int groupId) {
+        long[] errors = falsePositives ? this.falsePositives : this.falseNegatives;
+        if (groupId < 0) {
+            return errors;
+        }
+
+        int[] groupOfError = falsePositives ? groupOfFalsePositive : groupOfFalseNegative;
+        long[] groupErrors = new long[getGroupSizes(falsePositives)[groupId]];
+        int noOfGroupErrors = 0;
+        for (int i = 0; i < errors.length; i++) {
+            if (groupOfError[i] == groupId) {
+                groupErrors[noOfGroupErrors++] = errors[i];
+            }
+        }
+        return groupErrors;
+    }
+
+    /**
+     * Get the number of listed errors of one kind in each group
+     *
+     * @param falsePositives True for the false positives, false for the false negatives
+     * @return Number of errors per group index
+     */
+    public int[] getGroupSizes(boolean falsePositives) {
+        int[] sizes = new int[groups.size()];
+        for (int groupId : falsePositives ? groupOfFalsePositive : groupOfFalseNegative) {
+            sizes[groupId]++;
+        }
+        return sizes;
+    }
+
+    public long getNoOfFalseNegatives() {
+        return falseNegatives.length;
+    }
+
+    // Automatically generated getters below
+
+    public boolean isCleanCleanEr() {
+        return isCleanCleanEr;
+    }
+
+    public long getNoOfFalsePositives() {
+        return noOfFalsePositives;
+    }
+
+    public List<String> getGroups() {
+        return groups;
+    }
+}
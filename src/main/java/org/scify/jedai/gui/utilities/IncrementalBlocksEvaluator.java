@@ -0,0 +1,129 @@
+package org.scify.jedai.gui.utilities;
+
+import gnu.trove.set.hash.TLongHashSet;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.ComparisonIterator;
+import org.scify.jedai.datamodel.IdDuplicates;
+import org.scify.jedai.utilities.datastructures.AbstractDuplicatePropagation;
+
+import java.util.List;
+
+/**
+ * Evaluates the blocks of block building trials as if they were added to the blocks of the methods that were already
+ * accepted, without copying the block lists. The duplicates that the accepted blocks already detect and their
+ * aggregate cardinality are computed once (the duplicates are kept as packed pairs in a primitive hash set), so each
+ * trial only iterates over its own blocks to get the pair completeness and aggregate cardinality of the union.
+ */
+public class IncrementalBlocksEvaluator {
+    private final boolean isCleanCleanEr;
+    private final TLongHashSet duplicates;
+    private final TLongHashSet acceptedDuplicates;
+
+    private double acceptedCardinality;
+    private boolean hasAcceptedBlocks;
+
+    private double pc;
+    private double pq;
+    private double aggregateCardinality;
+
+    public IncrementalBlocksEvaluator(AbstractDuplicatePropagation duplicatePropagation, boolean isCleanCleanEr) {
+        this.isCleanCleanEr = isCleanCleanEr;
+
+        // Pack the ground truth pairs
+        this.duplicates = new TLongHashSet(duplicatePropagation.getDuplicates().size());
+        for (IdDuplicates duplicate : duplicatePropagation.getDuplicates()) {
+            duplicates.add(PackedPair.pack(isCleanCleanEr, duplicate.getEntityId1(), duplicate.getEntityId2()));
+        }
+        this.acceptedDuplicates = new TLongHashSet();
+    }
+
+    /**
+     * Get the pair completeness (recall) of the union of the last evaluated blocks with the accepted ones
+     *
+     * @return Pair completeness
+     */
+    public double getPc() {
+        return pc;
+    }
+
+    /**
+     * Get the pair quality (precision) of the union of the last evaluated blocks with the accepted ones
+     *
+     * @return Pair quality
+     */
+    public double getPq() {
+        return pq;
+    }
+
+    /**
+     * Get the aggregate cardinality of the union of the last evaluated blocks with the accepted ones
+     *
+     * @return Aggregate cardinality
+     */
+    public double getAggregateCardinality() {
+        return aggregateCardinality;
+    }
+
+    /**
+     * Add the blocks of a method to the accepted blocks
+     *
+     * @param blocks Blocks to accept
+     */
+    public void accept(List<AbstractBlock> blocks) {
+        acceptedCardinality += addDetectedDuplicates(blocks, acceptedDuplicates, null);
+        hasAcceptedBlocks |= !blocks.isEmpty();
+    }
+
+    /**
+     * Evaluate the union of the given blocks with the accepted ones, using the product of the reduction ratio and the
+     * pair completeness (recall), the same measure as in block building auto-configuration
+     *
+     * @param blocks              Blocks of a trial
+     * @param originalComparisons Number of comparisons without blocking
+     * @return Reduction ratio * recall, or 0 if the union has no blocks
+     */
+    public double evaluate(List<AbstractBlock> blocks, double originalComparisons) {
+        if (!hasAcceptedBlocks && blocks.isEmpty()) {
+            pc = 0;
+            pq = 0;
+            aggregateCardinality = 0;
+            return 0;
+        }
+
+        // Find the duplicates that the trial's blocks add to the ones of the accepted blocks
+        TLongHashSet newDuplicates = new TLongHashSet();
+        aggregateCardinality = acceptedCardinality + addDetectedDuplicates(blocks, newDuplicates, acceptedDuplicates);
+        double detectedDuplicates = acceptedDuplicates.size() + newDuplicates.size();
+        pc = duplicates.isEmpty() ? 0 : detectedDuplicates / duplicates.size();
+        pq = (aggregateCardinality == 0) ? 0 : detectedDuplicates / aggregateCardinality;
+
+        double rr = 1 - aggregateCardinality / originalComparisons;
+        return rr * pc;
+    }
+
+    /**
+     * Add the duplicates that the comparisons of the given blocks detect to a set
+     *
+     * @param blocks   Blocks to check
+     * @param detected Set to add the detected duplicates to
+     * @param excluded Duplicates that should not be added (can be null)
+     * @return Aggregate cardinality of the blocks
+     */
+    private double addDetectedDuplicates(List<AbstractBlock> blocks, TLongHashSet detected, TLongHashSet excluded) {
+        double cardinality = 0;
+        for (AbstractBlock block : blocks) {
+            cardinality += block.getNoOfComparisons();
+
+            ComparisonIterator iterator = block.getComparisonIterator();
+            while (iterator.hasNext()) {
+                Comparison comparison = iterator.next();
+                long pair = PackedPair.pack(isCleanCleanEr, comparison.getEntityId1(), comparison.getEntityId2());
+                if (duplicates.contains(pair) && (excluded == null || !excluded.contains(pair))) {
+                    detected.add(pair);
+                }
+            }
+        }
+        return cardinality;
+    }
+}
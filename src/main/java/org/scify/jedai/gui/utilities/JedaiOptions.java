@@ -16,12 +16,17 @@ public class JedaiOptions {
     public static final String CLEAN_CLEAN_ER = "Clean-Clean Entity Resolution";
 
     // File type options
+    public static final String BINARY = "Binary";
     public static final String CSV = "CSV";
     public static final String DATABASE = "Database";
     public static final String RDF = "RDF";
     public static final String SERIALIZED = "Serialized";
     public static final String XML = "XML";
 
+    // Stage artifact output options
+    public static final String BLOCKS_ARTIFACT = "Blocks (binary)";
+    public static final String SIMILARITIES_ARTIFACT = "Similarity pairs (binary)";
+
     // Schema Clustering Methods
     public static final String NO_SCHEMA_CLUSTERING = "No Schema Clustering";
     public static final String ATTRIBUTE_NAME_CLUSTERING = "Attribute Name Clustering";
@@ -121,6 +126,11 @@ public class JedaiOptions {
     public static final String AUTOCONFIG_STEPBYSTEP = "Step-by-step";
     public static final String AUTOCONFIG_RANDOMSEARCH = "Random Search";
     public static final String AUTOCONFIG_GRIDSEARCH = "Grid Search";
+    public static final String AUTOCONFIG_SUCCESSIVEHALVING = "Successive Halving";
+    public static final String AUTOCONFIG_ADAPTIVEGRIDSEARCH = "Adaptive Grid Search";
+    public static final String OBJECTIVE_QUALITY = "Best quality";
+    public static final String OBJECTIVE_CONSTRAINED = "Best quality under limits";
+    public static final String OBJECTIVE_PARETO = "Pick from speed/quality front";
 
     // JedAI workflow step names & descriptions
     public static final String STEP_LABEL_WELCOME = "Welcome";
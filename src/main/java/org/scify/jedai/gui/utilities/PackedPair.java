@@ -0,0 +1,62 @@
+package org.scify.jedai.gui.utilities;
+
+/**
+ * Helper methods for packing a pair of entity IDs into a single long, so that sets and arrays of pairs can be stored
+ * without creating an object for each pair.
+ */
+public class PackedPair {
+    /**
+     * Pack two entity IDs into a long, with the 1st ID in the upper 32 bits
+     *
+     * @param entityId1 1st entity ID
+     * @param entityId2 2nd entity ID
+     * @return Packed pair
+     */
+    public static long pack(int entityId1, int entityId2) {
+        return ((long) entityId1 << 32) | (entityId2 & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Pack a pair of entity IDs, so that the same key is returned regardless of their order (used for Dirty ER, where
+     * both entities come from the same dataset)
+     *
+     * @param entityId1 1st entity ID
+     * @param entityId2 2nd entity ID
+     * @return Packed pair, with the smallest ID first
+     */
+    public static long packUnordered(int entityId1, int entityId2) {
+        return (entityId1 < entityId2) ? pack(entityId1, entityId2) : pack(entityId2, entityId1);
+    }
+
+    /**
+     * Pack a pair of entity IDs depending on the ER type
+     *
+     * @param isCleanCleanEr True for Clean-Clean ER, where the IDs refer to different datasets
+     * @param entityId1      1st entity ID
+     * @param entityId2      2nd entity ID
+     * @return Packed pair
+     */
+    public static long pack(boolean isCleanCleanEr, int entityId1, int entityId2) {
+        return isCleanCleanEr ? pack(entityId1, entityId2) : packUnordered(entityId1, entityId2);
+    }
+
+    /**
+     * Get the 1st entity ID of a packed pair
+     *
+     * @param pair Packed pair
+     * @return 1st entity ID
+     */
+    public static int first(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    /**
+     * Get the 2nd entity ID of a packed pair
+     *
+     * @param pair Packed pair
+     * @return 2nd entity ID
+     */
+    public static int second(long pair) {
+        return (int) pair;
+    }
+}
@@ -0,0 +1,82 @@
+package org.scify.jedai.gui.utilities;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.hash.TLongHashSet;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.ComparisonIterator;
+import org.scify.jedai.datamodel.DecomposedBlock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Removes the repeated comparisons of a block collection, e.g. when several block building methods place the same
+ * pair of entities in their blocks. Each comparison is kept only the first time it is seen; the pairs that were
+ * already seen are stored as packed longs in a primitive hash set.
+ */
+public class RedundantComparisonEliminator {
+    public static final String METHOD_NAME = "Redundant Comparison Elimination";
+
+    private final boolean isCleanCleanEr;
+
+    private double originalComparisons;
+    private double keptComparisons;
+
+    public RedundantComparisonEliminator(boolean isCleanCleanEr) {
+        this.isCleanCleanEr = isCleanCleanEr;
+    }
+
+    /**
+     * Get the number of comparisons that were removed by the last call of refineBlocks()
+     *
+     * @return Number of removed comparisons
+     */
+    public double getSavedComparisons() {
+        return originalComparisons - keptComparisons;
+    }
+
+    /**
+     * Return blocks that contain each comparison of the given blocks exactly once. The order of the comparisons is
+     * kept, and each block of the result holds the new comparisons of one input block.
+     *
+     * @param blocks Blocks to process
+     * @return Blocks without redundant comparisons
+     */
+    public List<AbstractBlock> refineBlocks(List<AbstractBlock> blocks) {
+        originalComparisons = 0;
+        keptComparisons = 0;
+        for (AbstractBlock block : blocks) {
+            originalComparisons += block.getNoOfComparisons();
+        }
+
+        TLongHashSet seenPairs = new TLongHashSet((int) Math.min(originalComparisons, 1 << 24));
+        TIntArrayList entities1 = new TIntArrayList();
+        TIntArrayList entities2 = new TIntArrayList();
+
+        List<AbstractBlock> refinedBlocks = new ArrayList<>();
+        for (AbstractBlock block : blocks) {
+            ComparisonIterator iterator = block.getComparisonIterator();
+            while (iterator.hasNext()) {
+                Comparison comparison = iterator.next();
+                int entityId1 = comparison.getEntityId1();
+                int entityId2 = comparison.getEntityId2();
+
+                // Keep the comparison only if this pair was not seen in a previous block
+                if (seenPairs.add(PackedPair.pack(isCleanCleanEr, entityId1, entityId2))) {
+                    entities1.add(entityId1);
+                    entities2.add(entityId2);
+                }
+            }
+
+            if (!entities1.isEmpty()) {
+                refinedBlocks.add(new DecomposedBlock(isCleanCleanEr, entities1.toArray(), entities2.toArray()));
+                keptComparisons += entities1.size();
+                entities1.resetQuick();
+                entities2.resetQuick();
+            }
+        }
+
+        return refinedBlocks;
+    }
+}
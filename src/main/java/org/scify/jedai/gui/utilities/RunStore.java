@@ -0,0 +1,300 @@
+package org.scify.jedai.gui.utilities;
+
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.EquivalenceCluster;
+import org.scify.jedai.gui.model.WorkflowResult;
+import org.scify.jedai.gui.wizard.WizardData;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Stores the runs of the Workbench on disk, so that their history is kept between sessions. Each run has a directory
+ * with its configuration (config.ser) and its clusters in the binary format of ClustersExporter (clusters.jclu). An
+ * index file keeps the results of all runs, so that the Workbench can be filled without opening the run directories;
+ * configurations and clusters are only read when a run is viewed, explored or compared. The index also keeps the
+ * fingerprint of each run's datasets (see DatasetFingerprint), so that runs are only compared or explored on the
+ * same data.
+ * <p>
+ * The index is replaced atomically, so a crash while saving it leaves the previous one. Configurations are read with
+ * an allow-list of the classes that WizardData writes, so a tampered config.ser cannot create other objects.
+ * <p>
+ * Like the tuning cache, the store is optional: if it cannot be read or written, an error is printed and the
+ * Workbench only keeps the runs of the current session.
+ */
+public class RunStore {
+    private static final Path STORE_DIR = Paths.get(System.getProperty("user.home"), ".jedai", "runs");
+    private static final Path INDEX_FILE = STORE_DIR.resolve("index.properties");
+    private static final String CONFIG_FILE = "config.ser";
+    private static final String CLUSTERS_FILE = "clusters.jclu";
+
+    // Classes that a configuration can contain, besides enums (the method parameters can have enum values)
+    private static final Set<String> CONFIG_CLASSES = new HashSet<>(Arrays.asList(
+            "java.util.HashMap", "java.util.ArrayList", "java.util.HashSet",
+            "java.lang.String", "java.lang.Number", "java.lang.Integer", "java.lang.Long", "java.lang.Float",
+            "java.lang.Double", "java.lang.Boolean", "java.lang.Character", "java.lang.Enum",
+            "org.apache.commons.lang3.tuple.Pair", "org.apache.commons.lang3.tuple.MutablePair",
+            "org.scify.jedai.gui.wizard.WizardData$SavedMethodConfiguration"));
+
+    private final Properties index = new Properties();
+
+    /**
+     * Open the run store and read its index
+     */
+    public RunStore() {
+        if (Files.exists(INDEX_FILE)) {
+            try (InputStream in = Files.newInputStream(INDEX_FILE)) {
+                index.load(in);
+            } catch (IOException e) {
+                System.err.println("Could not read the run history: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get the stored runs, in the order they were added
+     *
+     * @return Stored runs
+     */
+    public synchronized List<StoredRun> getRuns() {
+        List<StoredRun> runs = new ArrayList<>();
+        int noOfRuns = Integer.parseInt(index.getProperty("runs", "0"));
+        for (int runId = 0; runId < noOfRuns; runId++) {
+            String total = index.getProperty("run." + runId);
+            if (total == null) {
+                continue;
+            }
+
+            try {
+                List<WorkflowResult> steps = new ArrayList<>();
+                int noOfSteps = Integer.parseInt(index.getProperty("run." + runId + ".steps", "0"));
+                for (int step = 0; step < noOfSteps; step++) {
+                    steps.add(parseResult(index.getProperty("run." + runId + ".step." + step)));
+                }
+                runs.add(new StoredRun(runId, parseResult(total), steps));
+            } catch (RuntimeException e) {
+                System.err.println("Skipping run " + runId + " of the run history, its results are invalid");
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Store a run: write its configuration and clusters, and add its results to the index
+     *
+     * @param total      Total result of the run
+     * @param steps      Results of the run's steps
+     * @param config     Configuration of the run
+     * @param clusters   Entity clusters of the run
+     * @param profilesD1 Entity profiles of dataset 1
+     * @param profilesD2 Entity profiles of dataset 2 (null for Dirty ER)
+     * @param datasets   Fingerprint of the datasets
+     * @return ID of the stored run
+     * @throws IOException When writing the run fails
+     */
+    public synchronized int addRun(WorkflowResult total, List<WorkflowResult> steps, WizardData config,
+                                   EquivalenceCluster[] clusters, List<EntityProfile> profilesD1,
+                                   List<EntityProfile> profilesD2, String datasets) throws IOException {
+        int runId = Integer.parseInt(index.getProperty("runs", "0"));
+        Path runDir = getRunDir(runId);
+        Files.createDirectories(runDir);
+
+        // Configuration and clusters
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(runDir.resolve(CONFIG_FILE))))) {
+            WizardData.writeData(config, out);
+        }
+        new ClustersExporter(clusters, profilesD1, profilesD2)
+                .export(runDir.resolve(CLUSTERS_FILE).toFile(), JedaiOptions.BINARY, false, null, () -> false);
+
+        // Results in the index
+        index.setProperty("run." + runId, formatResult(total));
+        index.setProperty("run." + runId + ".datasets", datasets);
+        index.setProperty("run." + runId + ".steps", String.valueOf(steps.size()));
+        for (int step = 0; step < steps.size(); step++) {
+            index.setProperty("run." + runId + ".step." + step, formatResult(steps.get(step)));
+        }
+        index.setProperty("runs", String.valueOf(runId + 1));
+        saveIndex();
+
+        return runId;
+    }
+
+    /**
+     * Remove all runs from the store
+     *
+     * @throws IOException When deleting the runs fails
+     */
+    public synchronized void clear() throws IOException {
+        // Empty the index first, so that the runs are gone even if some of their files cannot be deleted
+        int noOfRuns = Integer.parseInt(index.getProperty("runs", "0"));
+        index.clear();
+        saveIndex();
+
+        for (int runId = 0; runId < noOfRuns; runId++) {
+            deleteRecursively(getRunDir(runId));
+        }
+    }
+
+    /**
+     * Delete a directory with everything in it, deepest paths first
+     *
+     * @param dir Directory to delete (nothing happens if it does not exist)
+     * @throws IOException When deleting a file fails
+     */
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Read the configuration of a stored run
+     *
+     * @param runId ID of the run
+     * @return Configuration of the run
+     * @throws IOException When reading the configuration fails
+     */
+    public WizardData loadConfiguration(int runId) throws IOException {
+        try (ObjectInputStream in = new ConfigInputStream(
+                new BufferedInputStream(Files.newInputStream(getRunDir(runId).resolve(CONFIG_FILE))))) {
+            return WizardData.readData(in);
+        }
+    }
+
+    /**
+     * Read the clusters of a stored run
+     *
+     * @param runId ID of the run
+     * @return Clusters of the run
+     * @throws IOException When reading the clusters fails
+     */
+    public ClusterAssignment loadClusters(int runId) throws IOException {
+        File clustersFile = getRunDir(runId).resolve(CLUSTERS_FILE).toFile();
+        try (BinaryClustersReader reader = new BinaryClustersReader(clustersFile)) {
+            return new ClusterAssignment(reader, index.getProperty("run." + runId + ".datasets"));
+        }
+    }
+
+    private static Path getRunDir(int runId) {
+        return STORE_DIR.resolve("run-" + runId);
+    }
+
+    /**
+     * Write the index to a temporary file and move it over the old one
+     *
+     * @throws IOException When writing or moving the index fails
+     */
+    private void saveIndex() throws IOException {
+        Files.createDirectories(STORE_DIR);
+        Path tempFile = Files.createTempFile(STORE_DIR, "index", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                index.store(out, "JedAI run history");
+            }
+            Files.move(tempFile, INDEX_FILE, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Format a result for the index (the name is last, since it can contain the separator)
+     *
+     * @param result Result to format
+     * @return Result values separated by semicolons
+     */
+    private static String formatResult(WorkflowResult result) {
+        return String.join(";",
+                String.valueOf(result.getRecall()),
+                String.valueOf(result.getPrecision()),
+                String.valueOf(result.getF1Measure()),
+                String.valueOf(result.getTotalTime()),
+                String.valueOf(result.getInputInstances()),
+                String.valueOf(result.getNumOfClusters()),
+                String.valueOf(result.getSavedComparisons()),
+                String.valueOf(result.getExecutedComparisons()),
+                result.getResultName());
+    }
+
+    private static WorkflowResult parseResult(String value) {
+        String[] parts = value.split(";", 9);
+        WorkflowResult result = new WorkflowResult(parts[8], Double.parseDouble(parts[0]),
+                Double.parseDouble(parts[1]), Double.parseDouble(parts[2]), Double.parseDouble(parts[3]),
+                Integer.parseInt(parts[4]), Integer.parseInt(parts[5]), -1);
+        result.setSavedComparisons(Long.parseLong(parts[6]));
+        result.setExecutedComparisons(Long.parseLong(parts[7]));
+        return result;
+    }
+
+    /**
+     * Object stream that only reads the classes of a configuration
+     */
+    private static class ConfigInputStream extends ObjectInputStream {
+        ConfigInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            Class<?> cls = super.resolveClass(desc);
+            if (!cls.isPrimitive() && !cls.isEnum() && !CONFIG_CLASSES.contains(cls.getName())) {
+                throw new InvalidClassException(cls.getName(), "Not allowed in a run configuration");
+            }
+            return cls;
+        }
+    }
+
+    /**
+     * A run of the store, with its results (the total result has no details ID, since it depends on the Workbench)
+     */
+    public static class StoredRun {
+        private final int id;
+        private final WorkflowResult total;
+        private final List<WorkflowResult> steps;
+
+        StoredRun(int id, WorkflowResult total, List<WorkflowResult> steps) {
+            this.id = id;
+            this.total = total;
+            this.steps = steps;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public WorkflowResult getTotal() {
+            return total;
+        }
+
+        public List<WorkflowResult> getSteps() {
+            return steps;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.scify.jedai.gui.utilities;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Budget of an automatic configuration search, in trials, wall-clock time and executed comparisons (a limit of 0 means
+ * no limit). A budget can have a parent (e.g. the budget of one workflow step inside the budget of the whole search),
+ * in which case it is exhausted when either of them is, and the trials and comparisons it uses are also counted in the
+ * parent. The counters are thread-safe, so parallel trials can share a budget.
+ * <p>
+ * A budget can also have a target objective (e.g. the best value of a previous run on the same data), in which case it
+ * is exhausted as soon as a trial reaches it.
+ */
+public class SearchBudget {
+    private final SearchBudget parent;
+    private final int maxTrials;
+    private final long maxMillis;
+    private final long maxComparisons;
+    private final long startTime;
+
+    private final AtomicInteger trials = new AtomicInteger();
+    private final AtomicLong comparisons = new AtomicLong();
+    private volatile boolean stoppedEarly;
+    private volatile double targetObjective = Double.NaN;
+    private volatile boolean targetReached;
+
+    /**
+     * Create a new budget that starts counting time now
+     *
+     * @param maxTrials      Maximum number of trials (0 for no limit)
+     * @param maxMillis      Maximum time in milliseconds (0 for no limit)
+     * @param maxComparisons Maximum number of executed comparisons (0 for no limit)
+     */
+    public SearchBudget(int maxTrials, long maxMillis, long maxComparisons) {
+        this(null, maxTrials, maxMillis, maxComparisons);
+    }
+
+    private SearchBudget(SearchBudget parent, int maxTrials, long maxMillis, long maxComparisons) {
+        this.parent = parent;
+        this.maxTrials = maxTrials;
+        this.maxMillis = maxMillis;
+        this.maxComparisons = maxComparisons;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Create the budget of a part of this search, which starts counting time now
+     *
+     * @param maxTrials      Maximum number of trials (0 for no limit)
+     * @param maxMillis      Maximum time in milliseconds (0 for no limit)
+     * @param maxComparisons Maximum number of executed comparisons (0 for no limit)
+     * @return Budget that is also limited by this one
+     */
+    public SearchBudget newChild(int maxTrials, long maxMillis, long maxComparisons) {
+        return new SearchBudget(this, maxTrials, maxMillis, maxComparisons);
+    }
+
+    public int getTrials() {
+        return trials.get();
+    }
+
+    public long getComparisons() {
+        return comparisons.get();
+    }
+
+    public long getElapsedMillis() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    public boolean isStoppedEarly() {
+        return stoppedEarly;
+    }
+
+    public boolean isTargetReached() {
+        return targetReached;
+    }
+
+    /**
+     * Set the objective value after which the search can stop
+     *
+     * @param targetObjective Target objective value
+     */
+    public void setTargetObjective(double targetObjective) {
+        this.targetObjective = targetObjective;
+    }
+
+    /**
+     * Report the objective value of a trial, which exhausts the budget if it reaches the target
+     *
+     * @param objective Objective value of the trial
+     */
+    public void reportObjective(double objective) {
+        if (!Double.isNaN(targetObjective) && targetObjective <= objective) {
+            targetReached = true;
+        }
+    }
+
+    /**
+     * Check if any limit of this budget or its parents has been reached
+     *
+     * @return True if no more trials should be started
+     */
+    public boolean isExhausted() {
+        return targetReached
+                || (0 < maxTrials && maxTrials <= trials.get())
+                || (0 < maxMillis && maxMillis <= getElapsedMillis())
+                || (0 < maxComparisons && maxComparisons <= comparisons.get())
+                || (parent != null && parent.isExhausted());
+    }
+
+    /**
+     * Get the number of trials that this budget and its parents still allow
+     *
+     * @return Number of remaining trials (Integer.MAX_VALUE if the trials are not limited)
+     */
+    public int getRemainingTrials() {
+        int remaining = (0 < maxTrials) ? Math.max(0, maxTrials - trials.get()) : Integer.MAX_VALUE;
+        return (parent != null) ? Math.min(remaining, parent.getRemainingTrials()) : remaining;
+    }
+
+    /**
+     * Reserve a trial, if the budget is not exhausted
+     *
+     * @return True if the trial can run, false if the budget is exhausted
+     */
+    public boolean tryStartTrial() {
+        if (isExhausted()) {
+            stoppedEarly = true;
+            return false;
+        }
+
+        // Reserve the trial in this budget and its parents, and undo it if any of them is out of trials
+        int reserved = trials.incrementAndGet();
+        if ((0 < maxTrials && maxTrials < reserved) || (parent != null && !parent.tryStartTrial())) {
+            trials.decrementAndGet();
+            stoppedEarly = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Count comparisons that were executed by a trial
+     *
+     * @param executedComparisons Number of executed comparisons
+     */
+    public void addComparisons(long executedComparisons) {
+        comparisons.addAndGet(executedComparisons);
+        if (parent != null) {
+            parent.addComparisons(executedComparisons);
+        }
+    }
+
+    /**
+     * Print the budget that was used, and whether a trial was skipped because the budget was exhausted
+     *
+     * @param name Name of the search
+     */
+    public void printStatistics(String name) {
+        System.out.println(name + " trials\t:\t" + getTrials());
+        System.out.println(name + " time\t:\t" + getElapsedMillis());
+        System.out.println(name + " comparisons\t:\t" + getComparisons());
+        if (targetReached) {
+            System.out.println(name + " reached the cached objective\t:\t" + targetObjective);
+        } else if (stoppedEarly) {
+            System.out.println(name + " stopped early, keeping the best configuration found so far");
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package org.scify.jedai.gui.utilities;
+
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.BilateralBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.DecomposedBlock;
+import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.datamodel.UnilateralBlock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Writes and reads the output of the workflow stages before entity clustering, so that a later run can start from it
+ * instead of building the blocks again: the blocks after comparison cleaning (*.jblk), and the similarity pairs of
+ * entity matching (*.jsim).
+ * <p>
+ * Both formats are columnar, big-endian files that start with a header of ints: magic number, version, flags (1 for
+ * Clean-Clean ER), number of entities of dataset 1 and 2 (checked against the datasets when reading), and the number
+ * of blocks or comparisons. The columns follow:
+ * <ul>
+ * <li>Blocks: the type of each block (see the TYPE constants), two offset tables with (blocks + 1) positions where the
+ * entity IDs of each block start in the 1st and 2nd entity ID arrays, the total number of IDs in each array, and the
+ * two entity ID arrays</li>
+ * <li>Similarity pairs: the 1st entity IDs, the 2nd entity IDs and the similarities (as doubles)</li>
+ * </ul>
+ * Columns are written and read in bulk through a buffer, so files of any size can be used.
+ */
+public class StageArtifacts {
+    static final int BLOCKS_MAGIC = 0x4A424C4B;
+    static final int SIMILARITIES_MAGIC = 0x4A53494D;
+    static final int VERSION = 1;
+    static final int FLAG_CLEAN_CLEAN_ER = 1;
+    static final int HEADER_INTS = 6;
+
+    // Block types: all pairs of the entities, pairs across the two entity lists, or the i-th entity of each list
+    static final int TYPE_UNILATERAL = 0;
+    static final int TYPE_BILATERAL = 1;
+    static final int TYPE_DECOMPOSED = 2;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int[] NO_IDS = new int[0];
+
+    /**
+     * Check which stage artifact a file contains
+     *
+     * @param file File to check
+     * @return True for blocks, false for similarity pairs
+     * @throws IOException When the file cannot be read or is not a stage artifact
+     */
+    public static boolean isBlocksArtifact(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            int magic = new ColumnReader(channel).readInt();
+            if (magic != BLOCKS_MAGIC && magic != SIMILARITIES_MAGIC) {
+                throw new IOException("Not a stage artifact file: " + file);
+            }
+            return magic == BLOCKS_MAGIC;
+        }
+    }
+
+    /**
+     * Write blocks to a file. If writing is cancelled or fails, the incomplete file is deleted.
+     *
+     * @param file           File to write
+     * @param blocks         Blocks to write (unilateral, bilateral or decomposed)
+     * @param isCleanCleanEr True for Clean-Clean ER
+     * @param noOfEntitiesD1 Number of entities of dataset 1
+     * @param noOfEntitiesD2 Number of entities of dataset 2 (0 for Dirty ER)
+     * @param isCancelled    Checked after each block, writing stops if it returns true
+     * @return True if all blocks were written, false if writing was cancelled
+     * @throws IOException When writing the file fails
+     */
+    public static boolean writeBlocks(File file, List<AbstractBlock> blocks, boolean isCleanCleanEr,
+                                      int noOfEntitiesD1, int noOfEntitiesD2, BooleanSupplier isCancelled)
+            throws IOException {
+        // Type and entity ID arrays of each block
+        int[] types = new int[blocks.size()];
+        int[] offsets1 = new int[blocks.size() + 1];
+        int[] offsets2 = new int[blocks.size() + 1];
+        for (int i = 0; i < blocks.size(); i++) {
+            AbstractBlock block = blocks.get(i);
+            types[i] = getType(block);
+            offsets1[i + 1] = offsets1[i] + getEntities(block, 1).length;
+            offsets2[i + 1] = offsets2[i] + getEntities(block, 2).length;
+        }
+
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ColumnWriter out = new ColumnWriter(channel);
+            out.writeInts(new int[]{BLOCKS_MAGIC, VERSION, isCleanCleanEr ? FLAG_CLEAN_CLEAN_ER : 0,
+                    noOfEntitiesD1, noOfEntitiesD2, blocks.size()}, HEADER_INTS);
+            out.writeInts(types, types.length);
+            out.writeInts(offsets1, offsets1.length);
+            out.writeInts(offsets2, offsets2.length);
+
+            for (int dataset = 1; dataset <= 2; dataset++) {
+                for (AbstractBlock block : blocks) {
+                    int[] entities = getEntities(block, dataset);
+                    out.writeInts(entities, entities.length);
+
+                    if (isCancelled.getAsBoolean()) {
+                        return false;
+                    }
+                }
+            }
+            out.flush();
+            completed = true;
+        } finally {
+            if (!completed && !file.delete()) {
+                System.err.println("Could not delete the incomplete artifact file " + file);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read blocks from a file
+     *
+     * @param file           File to read
+     * @param noOfEntitiesD1 Number of entities of dataset 1, which must match the file
+     * @param noOfEntitiesD2 Number of entities of dataset 2 (0 for Dirty ER), which must match the file
+     * @return Blocks of the file
+     * @throws IOException When the file cannot be read, or it is not a blocks file of the same datasets
+     */
+    public static List<AbstractBlock> readBlocks(File file, int noOfEntitiesD1, int noOfEntitiesD2)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ColumnReader in = new ColumnReader(channel);
+            int[] header = in.readInts(HEADER_INTS);
+            boolean isCleanCleanEr = checkHeader(file, header, BLOCKS_MAGIC, noOfEntitiesD1, noOfEntitiesD2);
+            int noOfBlocks = header[5];
+
+            int[] types = in.readInts(noOfBlocks);
+            int[] offsets1 = in.readInts(noOfBlocks + 1);
+            int[] offsets2 = in.readInts(noOfBlocks + 1);
+            int[] ids1 = in.readInts(offsets1[noOfBlocks]);
+            int[] ids2 = in.readInts(offsets2[noOfBlocks]);
+
+            List<AbstractBlock> blocks = new ArrayList<>(noOfBlocks);
+            for (int i = 0; i < noOfBlocks; i++) {
+                int[] entities1 = slice(ids1, offsets1[i], offsets1[i + 1]);
+                int[] entities2 = slice(ids2, offsets2[i], offsets2[i + 1]);
+                switch (types[i]) {
+                    case TYPE_UNILATERAL:
+                        blocks.add(new UnilateralBlock(entities1));
+                        break;
+                    case TYPE_BILATERAL:
+                        blocks.add(new BilateralBlock(entities1, entities2));
+                        break;
+                    case TYPE_DECOMPOSED:
+                        blocks.add(new DecomposedBlock(isCleanCleanEr, entities1, entities2));
+                        break;
+                    default:
+                        throw new IOException("Unknown block type " + types[i] + " in " + file);
+                }
+                blocks.get(i).setBlockIndex(i);
+            }
+            return blocks;
+        }
+    }
+
+    /**
+     * Write similarity pairs to a file. If writing is cancelled or fails, the incomplete file is deleted.
+     *
+     * @param file           File to write
+     * @param simPairs       Similarity pairs to write
+     * @param noOfEntitiesD1 Number of entities of dataset 1
+     * @param noOfEntitiesD2 Number of entities of dataset 2 (0 for Dirty ER)
+     * @param isCancelled    Checked after each column, writing stops if it returns true
+     * @return True if all pairs were written, false if writing was cancelled
+     * @throws IOException When writing the file fails
+     */
+    public static boolean writeSimilarityPairs(File file, SimilarityPairs simPairs, int noOfEntitiesD1,
+                                               int noOfEntitiesD2, BooleanSupplier isCancelled) throws IOException {
+        int noOfComparisons = simPairs.getNoOfComparisons();
+
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ColumnWriter out = new ColumnWriter(channel);
+            out.writeInts(new int[]{SIMILARITIES_MAGIC, VERSION,
+                    simPairs.isCleanCleanER() ? FLAG_CLEAN_CLEAN_ER : 0, noOfEntitiesD1, noOfEntitiesD2,
+                    noOfComparisons}, HEADER_INTS);
+
+            // The arrays of the similarity pairs can be longer than the number of comparisons
+            out.writeInts(simPairs.getEntityIds1(), noOfComparisons);
+            if (isCancelled.getAsBoolean()) {
+                return false;
+            }
+            out.writeInts(simPairs.getEntityIds2(), noOfComparisons);
+            if (isCancelled.getAsBoolean()) {
+                return false;
+            }
+            out.writeDoubles(simPairs.getSimilarities(), noOfComparisons);
+            out.flush();
+            completed = true;
+        } finally {
+            if (!completed && !file.delete()) {
+                System.err.println("Could not delete the incomplete artifact file " + file);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read similarity pairs from a file
+     *
+     * @param file           File to read
+     * @param noOfEntitiesD1 Number of entities of dataset 1, which must match the file
+     * @param noOfEntitiesD2 Number of entities of dataset 2 (0 for Dirty ER), which must match the file
+     * @return Similarity pairs of the file
+     * @throws IOException When the file cannot be read, or it is not a similarity pairs file of the same datasets
+     */
+    public static SimilarityPairs readSimilarityPairs(File file, int noOfEntitiesD1, int noOfEntitiesD2)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ColumnReader in = new ColumnReader(channel);
+            int[] header = in.readInts(HEADER_INTS);
+            boolean isCleanCleanEr = checkHeader(file, header, SIMILARITIES_MAGIC, noOfEntitiesD1, noOfEntitiesD2);
+            int noOfComparisons = header[5];
+
+            int[] ids1 = in.readInts(noOfComparisons);
+            int[] ids2 = in.readInts(noOfComparisons);
+            double[] similarities = in.readDoubles(noOfComparisons);
+
+            // Similarity pairs can only be filled one comparison at a time
+            SimilarityPairs simPairs = new SimilarityPairs(isCleanCleanEr, noOfComparisons);
+            for (int i = 0; i < noOfComparisons; i++) {
+                Comparison comparison = new Comparison(isCleanCleanEr, ids1[i], ids2[i]);
+                comparison.setUtilityMeasure(similarities[i]);
+                simPairs.addComparison(comparison);
+            }
+            return simPairs;
+        }
+    }
+
+    /**
+     * Check the header of an artifact file
+     *
+     * @return True if the artifact is for Clean-Clean ER
+     */
+    private static boolean checkHeader(File file, int[] header, int magic, int noOfEntitiesD1, int noOfEntitiesD2)
+            throws IOException {
+        if (header[0] != magic) {
+            throw new IOException("Not a " + (magic == BLOCKS_MAGIC ? "blocks" : "similarity pairs")
+                    + " artifact file: " + file);
+        }
+        if (header[1] != VERSION) {
+            throw new IOException("Unsupported artifact version " + header[1] + ": " + file);
+        }
+        if (header[3] != noOfEntitiesD1 || header[4] != noOfEntitiesD2) {
+            throw new IOException("The artifact was created for datasets with " + header[3] + " and " + header[4]
+                    + " entities, but the selected datasets have " + noOfEntitiesD1 + " and " + noOfEntitiesD2);
+        }
+        return (header[2] & FLAG_CLEAN_CLEAN_ER) != 0;
+    }
+
+    private static int getType(AbstractBlock block) {
+        if (block instanceof UnilateralBlock) {
+            return TYPE_UNILATERAL;
+        } else if (block instanceof BilateralBlock) {
+            return TYPE_BILATERAL;
+        } else if (block instanceof DecomposedBlock) {
+            return TYPE_DECOMPOSED;
+        }
+        throw new IllegalArgumentException("Unsupported block type: " + block.getClass().getName());
+    }
+
+    /**
+     * Get the entity IDs of a block
+     *
+     * @param block   Block
+     * @param dataset 1 for the IDs of unilateral blocks and the 1st IDs of the others, 2 for the 2nd IDs
+     * @return Entity IDs
+     */
+    private static int[] getEntities(AbstractBlock block, int dataset) {
+        if (block instanceof UnilateralBlock) {
+            return (dataset == 1) ? ((UnilateralBlock) block).getEntities() : NO_IDS;
+        } else if (block instanceof BilateralBlock) {
+            BilateralBlock bilateral = (BilateralBlock) block;
+            return (dataset == 1) ? bilateral.getIndex1Entities() : bilateral.getIndex2Entities();
+        }
+        DecomposedBlock decomposed = (DecomposedBlock) block;
+        return (dataset == 1) ? decomposed.getEntities1() : decomposed.getEntities2();
+    }
+
+    private static int[] slice(int[] ids, int from, int to) {
+        int[] slice = new int[to - from];
+        System.arraycopy(ids, from, slice, 0, slice.length);
+        return slice;
+    }
+
+    /**
+     * Writes int and double columns to a channel through a buffer
+     */
+    private static class ColumnWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        ColumnWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void writeInts(int[] values, int length) throws IOException {
+            int written = 0;
+            while (written < length) {
+                if (buffer.remaining() < Integer.BYTES) {
+                    flush();
+                }
+                int count = Math.min(length - written, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, written, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                written += count;
+            }
+        }
+
+        void writeDoubles(double[] values, int length) throws IOException {
+            int written = 0;
+            while (written < length) {
+                if (buffer.remaining() < Double.BYTES) {
+                    flush();
+                }
+                int count = Math.min(length - written, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().put(values, written, count);
+                buffer.position(buffer.position() + count * Double.BYTES);
+                written += count;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads int and double columns from a channel through a buffer
+     */
+    private static class ColumnReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        ColumnReader(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        int readInt() throws IOException {
+            return readInts(1)[0];
+        }
+
+        int[] readInts(int length) throws IOException {
+            int[] values = new int[length];
+            int read = 0;
+            while (read < length) {
+                fill(Integer.BYTES);
+                int count = Math.min(length - read, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().get(values, read, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                read += count;
+            }
+            return values;
+        }
+
+        double[] readDoubles(int length) throws IOException {
+            double[] values = new double[length];
+            int read = 0;
+            while (read < length) {
+                fill(Double.BYTES);
+                int count = Math.min(length - read, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().get(values, read, count);
+                buffer.position(buffer.position() + count * Double.BYTES);
+                read += count;
+            }
+            return values;
+        }
+
+        /**
+         * Read more of the file if the buffer has less than the given number of bytes
+         */
+        private void fill(int bytes) throws IOException {
+            if (bytes <= buffer.remaining()) {
+                return;
+            }
+
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of the artifact file");
+                }
+            }
+            buffer.flip();
+        }
+    }
+}
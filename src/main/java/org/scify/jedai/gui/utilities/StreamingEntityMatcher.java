@@ -0,0 +1,259 @@
+package org.scify.jedai.gui.utilities;
+
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.ComparisonIterator;
+import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.entitymatching.IEntityMatching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Entity matching that streams the comparisons of a block collection through a bounded queue to a pool of matching
+ * workers, and only keeps the pairs whose similarity reaches the entity clustering threshold. The returned
+ * SimilarityPairs therefore scale with the number of likely matches instead of the number of executed comparisons.
+ * <p>
+ * Entity matching methods are not guaranteed to be thread-safe, so each worker uses its own instance: either the
+ * single given instance (with one worker), or one instance from the given supplier per worker.
+ */
+public class StreamingEntityMatcher {
+    private static final int BATCH_SIZE = 4096;
+    private static final Comparison[] END_OF_STREAM = new Comparison[0];
+
+    private final Supplier<IEntityMatching> entityMatchings;
+    private final double threshold;
+    private final boolean isCleanCleanEr;
+    private final int workers;
+
+    private long executedComparisons;
+    private int retainedComparisons;
+
+    /**
+     * Create a matcher with a single worker, which uses the given entity matching instance
+     *
+     * @param entityMatching Entity matching method
+     * @param threshold      Minimum similarity of the kept pairs
+     * @param isCleanCleanEr True for Clean-Clean ER
+     */
+    public StreamingEntityMatcher(IEntityMatching entityMatching, double threshold, boolean isCleanCleanEr) {
+        this(() -> entityMatching, threshold, isCleanCleanEr, 1);
+    }
+
+    /**
+     * Create a matcher with the given number of workers, each one with its own entity matching instance
+     *
+     * @param entityMatchings Supplier of entity matching instances, called once per worker (from the worker threads)
+     * @param threshold       Minimum similarity of the kept pairs
+     * @param isCleanCleanEr  True for Clean-Clean ER
+     * @param workers         Number of matching workers
+     */
+    public StreamingEntityMatcher(Supplier<IEntityMatching> entityMatchings, double threshold, boolean isCleanCleanEr,
+                                  int workers) {
+        this.entityMatchings = entityMatchings;
+        this.threshold = threshold;
+        this.isCleanCleanEr = isCleanCleanEr;
+        this.workers = Math.max(1, workers);
+    }
+
+    public long getExecutedComparisons() {
+        return executedComparisons;
+    }
+
+    public int getRetainedComparisons() {
+        return retainedComparisons;
+    }
+
+    /**
+     * Execute all comparisons of the given blocks and return the ones whose similarity is at least the threshold.
+     *
+     * @param blocks Blocks to get the comparisons from
+     * @return Similarity pairs above the threshold, in the same order as the comparisons of the blocks
+     * @throws InterruptedException When the calling thread is interrupted while waiting for the workers
+     * @throws ExecutionException   When a matching worker fails
+     */
+    public SimilarityPairs executeComparisons(List<AbstractBlock> blocks)
+            throws InterruptedException, ExecutionException {
+        BlockingQueue<ComparisonBatch> queue = new ArrayBlockingQueue<>(2 * workers);
+        Map<Integer, ScoredPairs> results = new ConcurrentSkipListMap<>();
+
+        // Start the matching workers
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            futures.add(pool.submit(() -> {
+                scoreBatches(queue, results);
+                return null;
+            }));
+        }
+
+        int maxEntityId1 = -1;
+        int maxEntityId2 = -1;
+        executedComparisons = 0;
+        try {
+            // Split the comparisons of the blocks into batches and hand them to the workers
+            int batchIndex = 0;
+            Comparison[] batch = new Comparison[BATCH_SIZE];
+            int batchSize = 0;
+            for (AbstractBlock block : blocks) {
+                ComparisonIterator iterator = block.getComparisonIterator();
+                while (iterator.hasNext()) {
+                    Comparison comparison = iterator.next();
+                    maxEntityId1 = Math.max(maxEntityId1, comparison.getEntityId1());
+                    maxEntityId2 = Math.max(maxEntityId2, comparison.getEntityId2());
+                    batch[batchSize++] = comparison;
+
+                    if (batchSize == BATCH_SIZE) {
+                        enqueue(queue, new ComparisonBatch(batchIndex++, batch, batchSize), futures);
+                        batch = new Comparison[BATCH_SIZE];
+                        batchSize = 0;
+                    }
+                }
+            }
+            if (batchSize > 0) {
+                enqueue(queue, new ComparisonBatch(batchIndex, batch, batchSize), futures);
+            }
+
+            // Tell each worker that there are no more comparisons and wait for them to finish
+            for (int i = 0; i < workers; i++) {
+                enqueue(queue, new ComparisonBatch(-1, END_OF_STREAM, 0), futures);
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Count the comparisons that were kept
+        retainedComparisons = 0;
+        for (ScoredPairs pairs : results.values()) {
+            executedComparisons += pairs.scored;
+            retainedComparisons += pairs.size;
+        }
+
+        // If any comparison was dropped, add a pair below the threshold with the largest entity IDs, so that entity
+        // clustering sees the same number of entities as with the unfiltered similarity pairs
+        boolean addBoundaryPair = retainedComparisons < executedComparisons && 0 < threshold;
+
+        // Copy the kept pairs into SimilarityPairs, in the original comparison order
+        SimilarityPairs simPairs = new SimilarityPairs(isCleanCleanEr,
+                retainedComparisons + (addBoundaryPair ? 1 : 0));
+        for (ScoredPairs pairs : results.values()) {
+            for (int i = 0; i < pairs.size; i++) {
+                Comparison comparison = new Comparison(isCleanCleanEr, pairs.entityIds1[i], pairs.entityIds2[i]);
+                comparison.setUtilityMeasure(pairs.similarities[i]);
+                simPairs.addComparison(comparison);
+            }
+        }
+        if (addBoundaryPair) {
+            Comparison boundary = new Comparison(isCleanCleanEr, maxEntityId1, maxEntityId2);
+            boundary.setUtilityMeasure(0);
+            simPairs.addComparison(boundary);
+        }
+
+        return simPairs;
+    }
+
+    /**
+     * Put a batch in the queue, checking periodically that the workers are still running
+     *
+     * @param queue   Queue to add the batch to
+     * @param batch   Batch of comparisons
+     * @param futures Futures of the workers
+     */
+    private void enqueue(BlockingQueue<ComparisonBatch> queue, ComparisonBatch batch, List<Future<?>> futures)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            // If a worker stopped early, get() throws its exception
+            for (Future<?> future : futures) {
+                if (future.isDone()) {
+                    future.get();
+                }
+            }
+        }
+    }
+
+    /**
+     * Worker loop: take batches from the queue, execute their comparisons and keep the ones above the threshold.
+     *
+     * @param queue   Queue with comparison batches
+     * @param results Map to put the kept pairs of each batch in, by batch index
+     */
+    private void scoreBatches(BlockingQueue<ComparisonBatch> queue, Map<Integer, ScoredPairs> results)
+            throws InterruptedException {
+        IEntityMatching entityMatching = entityMatchings.get();
+        while (true) {
+            ComparisonBatch batch = queue.take();
+            if (batch.comparisons == END_OF_STREAM) {
+                return;
+            }
+
+            ScoredPairs pairs = new ScoredPairs(batch.size);
+            for (int i = 0; i < batch.size; i++) {
+                Comparison comparison = batch.comparisons[i];
+                double similarity = entityMatching.executeComparison(comparison);
+                if (threshold <= similarity) {
+                    pairs.add(comparison.getEntityId1(), comparison.getEntityId2(), similarity);
+                }
+            }
+            results.put(batch.index, pairs.trim());
+        }
+    }
+
+    /**
+     * Batch of comparisons that is passed from the block iteration to the workers
+     */
+    private static class ComparisonBatch {
+        private final int index;
+        private final Comparison[] comparisons;
+        private final int size;
+
+        private ComparisonBatch(int index, Comparison[] comparisons, int size) {
+            this.index = index;
+            this.comparisons = comparisons;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Compact store of the pairs that passed the threshold, using primitive arrays
+     */
+    private static class ScoredPairs {
+        private final int scored;
+        private int size;
+        private int[] entityIds1;
+        private int[] entityIds2;
+        private double[] similarities;
+
+        private ScoredPairs(int scored) {
+            this.scored = scored;
+            this.entityIds1 = new int[16];
+            this.entityIds2 = new int[16];
+            this.similarities = new double[16];
+        }
+
+        private void add(int entityId1, int entityId2, double similarity) {
+            if (size == entityIds1.length) {
+                int capacity = 2 * size;
+                entityIds1 = Arrays.copyOf(entityIds1, capacity);
+                entityIds2 = Arrays.copyOf(entityIds2, capacity);
+                similarities = Arrays.copyOf(similarities, capacity);
+            }
+            entityIds1[size] = entityId1;
+            entityIds2[size] = entityId2;
+            similarities[size++] = similarity;
+        }
+
+        private ScoredPairs trim() {
+            entityIds1 = Arrays.copyOf(entityIds1, size);
+            entityIds2 = Arrays.copyOf(entityIds2, size);
+            similarities = Arrays.copyOf(similarities, size);
+            return this;
+        }
+    }
+}
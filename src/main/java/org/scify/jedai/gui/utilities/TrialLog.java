@@ -0,0 +1,180 @@
+package org.scify.jedai.gui.utilities;
+
+import org.scify.jedai.gui.model.TrialRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Log of the trials of all automatic configuration searches of a workflow run. Each trial records its configuration,
+ * objective, recall, precision, executed comparisons, wall time and the bytes allocated by the thread that ran it.
+ * Trials can be recorded from multiple threads.
+ */
+public class TrialLog {
+    private static final String CSV_HEADER =
+            "search,trial,configuration,objective,recall,precision,comparisons,wall_time_ms,allocated_bytes";
+
+    private final List<TrialRecord> records = new ArrayList<>();
+
+    /**
+     * Start measuring a trial. The trial must be finished in the same thread, so that its allocated bytes are counted
+     * correctly.
+     *
+     * @param search Name of the search that the trial belongs to
+     * @param trial  Index of the trial (random iteration or grid configuration)
+     * @return Trial to finish when its result is known
+     */
+    public Trial startTrial(String search, int trial) {
+        return new Trial(search, trial);
+    }
+
+    /**
+     * Get a copy of the records, in the order that the trials finished
+     *
+     * @return Trial records
+     */
+    public synchronized List<TrialRecord> getRecords() {
+        return new ArrayList<>(records);
+    }
+
+    /**
+     * Get the records of each search, in the order that the searches started
+     *
+     * @return Trial records per search name
+     */
+    public synchronized Map<String, List<TrialRecord>> getRecordsPerSearch() {
+        Map<String, List<TrialRecord>> searches = new LinkedHashMap<>();
+        for (TrialRecord record : records) {
+            searches.computeIfAbsent(record.getSearch(), search -> new ArrayList<>()).add(record);
+        }
+        return searches;
+    }
+
+    public synchronized boolean isEmpty() {
+        return records.isEmpty();
+    }
+
+    /**
+     * Add the record of a trial that was measured earlier (see Trial.measure())
+     *
+     * @param record Record of the trial
+     */
+    public synchronized void add(TrialRecord record) {
+        records.add(record);
+    }
+
+    /**
+     * Write the records to a CSV file
+     *
+     * @param file File to write
+     * @throws IOException When writing the file fails
+     */
+    public void writeCsv(File file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            writer.println(CSV_HEADER);
+            for (TrialRecord record : getRecords()) {
+                writer.println(String.join(",",
+                        escapeCsv(record.getSearch()),
+                        String.valueOf(record.getTrial()),
+                        escapeCsv(record.getConfiguration()),
+                        String.valueOf(record.getObjective()),
+                        String.valueOf(record.getRecall()),
+                        String.valueOf(record.getPrecision()),
+                        String.valueOf(record.getComparisons()),
+                        String.valueOf(record.getWallTime()),
+                        String.valueOf(record.getAllocatedBytes())));
+            }
+        }
+    }
+
+    private static String escapeCsv(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Get the number of bytes that the current thread has allocated, if the JVM supports measuring it
+     *
+     * @return Allocated bytes, or -1 if they cannot be measured
+     */
+    public static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * A trial that is being measured
+     */
+    public class Trial {
+        private final String search;
+        private final int trial;
+        private final double startTime;
+        private final long startBytes;
+
+        private double sharedMillis;
+        private long sharedBytes;
+
+        private Trial(String search, int trial) {
+            this.search = search;
+            this.trial = trial;
+            this.startTime = System.currentTimeMillis();
+            this.startBytes = getAllocatedBytes();
+        }
+
+        /**
+         * Add the cost of work that the trial reuses from an earlier one (e.g. the entity matching run that several
+         * clustering configurations are evaluated on), so that the trial records what it would cost on its own
+         *
+         * @param millis Time of the reused work in milliseconds
+         * @param bytes  Bytes allocated by the reused work
+         */
+        public void addSharedCost(double millis, long bytes) {
+            sharedMillis += millis;
+            sharedBytes += bytes;
+        }
+
+        /**
+         * Record the result of the trial
+         *
+         * @param configuration Configuration of the trial's methods
+         * @param objective     Value of the search objective
+         * @param recall        Recall (pair completeness for blocking methods)
+         * @param precision     Precision (pair quality for blocking methods)
+         * @param comparisons   Comparisons executed by the trial (aggregate cardinality for blocking methods)
+         */
+        public void finish(String configuration, double objective, double recall, double precision,
+                           long comparisons) {
+            add(measure(configuration, objective, recall, precision, comparisons));
+        }
+
+        /**
+         * Measure the trial without adding it to the log, for trials that only count if the search keeps them (e.g.
+         * trials that run ahead in parallel and are dropped when the budget runs out). Must be called from the thread
+         * that started the trial.
+         *
+         * @param configuration Configuration of the trial's methods
+         * @param objective     Value of the search objective
+         * @param recall        Recall (pair completeness for blocking methods)
+         * @param precision     Precision (pair quality for blocking methods)
+         * @param comparisons   Comparisons executed by the trial (aggregate cardinality for blocking methods)
+         * @return Record of the trial, to add with TrialLog.add()
+         */
+        public TrialRecord measure(String configuration, double objective, double recall, double precision,
+                                   long comparisons) {
+            long endBytes = getAllocatedBytes();
+            return new TrialRecord(search, trial, configuration, objective, recall, precision, comparisons,
+                    System.currentTimeMillis() - startTime + sharedMillis,
+                    (startBytes < 0) ? -1 : endBytes - startBytes + sharedBytes);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.scify.jedai.gui.utilities;
+
+import org.scify.jedai.gui.model.TrialRecord;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Selects automatic configuration trials by more than their objective value, using the wall time and the number of
+ * comparisons that each trial recorded as its cost
+ */
+public class TrialSelector {
+    /**
+     * Get the trials that no other trial dominates, i.e. no other trial has at least the same objective value, time
+     * and comparisons while being strictly better in one of them. If several trials have the same values, only the
+     * first one is kept.
+     *
+     * @param records Trials to select from
+     * @return Pareto front, sorted by objective value (highest first)
+     */
+    public static List<TrialRecord> getParetoFront(List<TrialRecord> records) {
+        List<TrialRecord> front = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            TrialRecord candidate = records.get(i);
+
+            boolean dominated = false;
+            for (int j = 0; j < records.size() && !dominated; j++) {
+                TrialRecord other = records.get(j);
+                if (i == j || !isAtLeastAsGood(other, candidate)) {
+                    continue;
+                }
+
+                // Equal trials do not dominate each other, keep the first one
+                dominated = isStrictlyBetter(other, candidate) || j < i;
+            }
+
+            if (!dominated) {
+                front.add(candidate);
+            }
+        }
+
+        front.sort(Comparator.comparingDouble(TrialRecord::getObjective).reversed());
+        return front;
+    }
+
+    /**
+     * Get the trial with the highest objective value among the ones within the given limits. If no trial is within
+     * the limits, the cheapest one is returned (by time if time is limited, otherwise by comparisons).
+     *
+     * @param records        Trials to select from
+     * @param maxWallTime    Maximum time of a trial in milliseconds (0 for no limit)
+     * @param maxComparisons Maximum comparisons of a trial (0 for no limit)
+     * @return Selected trial, or null if there are no trials
+     */
+    public static TrialRecord getBestWithinLimits(List<TrialRecord> records, double maxWallTime,
+                                                  long maxComparisons) {
+        TrialRecord best = null;
+        TrialRecord cheapest = null;
+        for (TrialRecord record : records) {
+            boolean withinLimits = (maxWallTime <= 0 || record.getWallTime() <= maxWallTime)
+                    && (maxComparisons <= 0 || record.getComparisons() <= maxComparisons);
+            if (withinLimits && (best == null || best.getObjective() < record.getObjective())) {
+                best = record;
+            }
+
+            double cost = (0 < maxWallTime) ? record.getWallTime() : record.getComparisons();
+            double cheapestCost = (cheapest == null) ? Double.MAX_VALUE :
+                    (0 < maxWallTime) ? cheapest.getWallTime() : cheapest.getComparisons();
+            if (cost < cheapestCost) {
+                cheapest = record;
+            }
+        }
+
+        return (best != null) ? best : cheapest;
+    }
+
+    private static boolean isAtLeastAsGood(TrialRecord a, TrialRecord b) {
+        return b.getObjective() <= a.getObjective()
+                && a.getWallTime() <= b.getWallTime()
+                && a.getComparisons() <= b.getComparisons();
+    }
+
+    private static boolean isStrictlyBetter(TrialRecord a, TrialRecord b) {
+        return b.getObjective() < a.getObjective()
+                || a.getWallTime() < b.getWallTime()
+                || a.getComparisons() < b.getComparisons();
+    }
+}
@@ -0,0 +1,178 @@
+package org.scify.jedai.gui.utilities;
+
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.utilities.datastructures.AbstractDuplicatePropagation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Stores the best configurations found by automatic configuration on disk, so that later runs on the same data can
+ * start from them. Each entry is keyed by a fingerprint of the datasets (their sizes and a hash of a sample of their
+ * profiles), the ER type, the workflow step, the search type and a description of the tuned methods and the workflow
+ * before them (see WorkflowManager.getCacheContext()). It stores the objective that the best configuration achieved
+ * and, for each tuned method, its concrete parameter values (as given by getMethodConfiguration()) and its grid index.
+ * <p>
+ * A grid configuration is reused by setting its grid index and checking that the method gets the same parameter
+ * values, so a changed grid never gives a different configuration. Random configurations cannot be set again, so for
+ * random search an entry is only a target objective that stops the search early.
+ * <p>
+ * The cache is optional: if the file cannot be read or written, an error is printed and automatic configuration runs
+ * as usual.
+ */
+public class TuningCache {
+    private static final Path CACHE_FILE =
+            Paths.get(System.getProperty("user.home"), ".jedai", "tuning-cache.properties");
+    private static final int SAMPLE_SIZE = 1000;
+
+    private final String fingerprint;
+    private final String erType;
+    private final Properties entries = new Properties();
+
+    /**
+     * Open the tuning cache for the given datasets
+     *
+     * @param profilesD1           Entity profiles of dataset 1
+     * @param profilesD2           Entity profiles of dataset 2 (null for Dirty ER)
+     * @param duplicatePropagation Ground truth
+     * @param erType               ER type
+     */
+    public TuningCache(List<EntityProfile> profilesD1, List<EntityProfile> profilesD2,
+                       AbstractDuplicatePropagation duplicatePropagation, String erType) {
+        this.fingerprint = DatasetFingerprint.getFingerprint(profilesD1, SAMPLE_SIZE) + "-" +
+                DatasetFingerprint.getFingerprint(profilesD2, SAMPLE_SIZE) + "-" +
+                duplicatePropagation.getDuplicates().size();
+        this.erType = erType;
+
+        if (Files.exists(CACHE_FILE)) {
+            try (InputStream in = Files.newInputStream(CACHE_FILE)) {
+                entries.load(in);
+            } catch (IOException e) {
+                System.err.println("Could not read the tuning cache: " + e.getMessage());
+            }
+        }
+    }
+
+    private String getKey(String step, String context, String searchType) {
+        return String.join("|", fingerprint, erType, step, context, searchType);
+    }
+
+    /**
+     * Get the cached best configuration of the tuned methods
+     *
+     * @param step       Workflow step
+     * @param context    Description of the tuned methods and the workflow before them
+     * @param searchType Search type
+     * @return Cached entry, or null if there is none
+     */
+    public synchronized Entry get(String step, String context, String searchType) {
+        String key = getKey(step, context, searchType);
+        String objective = entries.getProperty(key + ".objective");
+        String noOfMethods = entries.getProperty(key + ".methods");
+        if (objective == null || noOfMethods == null) {
+            return null;
+        }
+
+        try {
+            int[] indices = new int[Integer.parseInt(noOfMethods)];
+            String[] configurations = new String[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = Integer.parseInt(entries.getProperty(key + ".index." + i, "-1"));
+                configurations[i] = entries.getProperty(key + ".configuration." + i, "");
+            }
+            return new Entry(Double.parseDouble(objective), indices, configurations);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Store the best configuration of the tuned methods, if it is better than the cached one, and save the cache to
+     * disk
+     *
+     * @param step           Workflow step
+     * @param context        Description of the tuned methods and the workflow before them
+     * @param searchType     Search type
+     * @param objective      Objective value that the configuration achieved
+     * @param indices        Grid index of the configuration of each tuned method (-1 if it is not a grid
+     *                       configuration)
+     * @param configurations Parameter values of each tuned method
+     */
+    public synchronized void put(String step, String context, String searchType, double objective, int[] indices,
+                                 String[] configurations) {
+        Entry cached = get(step, context, searchType);
+        if (cached != null && objective < cached.getObjective()) {
+            return;
+        }
+
+        String key = getKey(step, context, searchType);
+        entries.setProperty(key + ".objective", String.valueOf(objective));
+        entries.setProperty(key + ".methods", String.valueOf(indices.length));
+        for (int i = 0; i < indices.length; i++) {
+            entries.setProperty(key + ".index." + i, String.valueOf(indices[i]));
+            entries.setProperty(key + ".configuration." + i, configurations[i]);
+        }
+        try {
+            Files.createDirectories(CACHE_FILE.getParent());
+            try (OutputStream out = Files.newOutputStream(CACHE_FILE)) {
+                entries.store(out, "JedAI automatic configuration cache");
+            }
+        } catch (IOException e) {
+            System.err.println("Could not save the tuning cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Best configuration of the tuned methods that was found by a previous run
+     */
+    public static class Entry {
+        private final double objective;
+        private final int[] indices;
+        private final String[] configurations;
+
+        private Entry(double objective, int[] indices, String[] configurations) {
+            this.objective = objective;
+            this.indices = indices;
+            this.configurations = configurations;
+        }
+
+        public double getObjective() {
+            return objective;
+        }
+
+        /**
+         * Get the grid index of the configuration of a tuned method
+         *
+         * @param method Position of the method among the tuned methods
+         * @return Grid index, or -1 if the configuration is not a grid configuration
+         */
+        public int getIndex(int method) {
+            return (method < indices.length) ? indices[method] : -1;
+        }
+
+        /**
+         * Get the parameter values of a tuned method
+         *
+         * @param method Position of the method among the tuned methods
+         * @return Parameter values, as given by getMethodConfiguration()
+         */
+        public String getConfiguration(int method) {
+            return (method < configurations.length) ? configurations[method] : "";
+        }
+
+        /**
+         * Get the parameter values of all tuned methods, for printing
+         *
+         * @return Parameter values, separated by " | "
+         */
+        public String getConfiguration() {
+            return String.join(" | ", configurations);
+        }
+    }
+}
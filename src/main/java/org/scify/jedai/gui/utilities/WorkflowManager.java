@@ -4,12 +4,14 @@ import javafx.application.Platform;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Label;
 import org.apache.commons.lang3.tuple.MutablePair;
+import org.apache.jena.atlas.json.JsonArray;
 import org.scify.jedai.blockbuilding.IBlockBuilding;
 import org.scify.jedai.blockprocessing.IBlockProcessing;
 import org.scify.jedai.datamodel.*;
 import org.scify.jedai.entityclustering.IEntityClustering;
 import org.scify.jedai.entitymatching.IEntityMatching;
 import org.scify.jedai.gui.model.JedaiMethodConfiguration;
+import org.scify.jedai.gui.model.TrialRecord;
 import org.scify.jedai.gui.model.WorkflowResult;
 import org.scify.jedai.gui.wizard.MethodMapping;
 import org.scify.jedai.gui.wizard.WizardData;
@@ -18,14 +20,42 @@ import org.scify.jedai.schemaclustering.ISchemaClustering;
 import org.scify.jedai.similarityjoins.ISimilarityJoin;
 import org.scify.jedai.utilities.BlocksPerformance;
 import org.scify.jedai.utilities.ClustersPerformance;
+import org.scify.jedai.utilities.IConfiguration;
+import org.scify.jedai.utilities.IDocumentation;
 import org.scify.jedai.utilities.datastructures.AbstractDuplicatePropagation;
+import org.scify.jedai.utilities.datastructures.BilateralDuplicatePropagation;
+import org.scify.jedai.utilities.datastructures.UnilateralDuplicatePropagation;
 import org.scify.jedai.utilities.enumerations.BlockBuildingMethod;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 public class WorkflowManager {
-    private final static int NO_OF_TRIALS = 100;
+    private final static int HALVING_RATE = 3;
+    // Number of method instances (and threads) that parallel random trials are spread over
+    private final static int TRIAL_WORKERS = 4;
+    // Number of matching configurations whose similarity pairs adaptive grid search keeps
+    private final static int CACHED_MATCHING_RUNS = 2;
+
+    // Stages of a blocking-based workflow, in the order they run (schema clustering runs with block building)
+    private final static int BLOCK_BUILDING_STAGE = 0;
+    private final static int BLOCK_CLEANING_STAGE = 1;
+    private final static int COMPARISON_CLEANING_STAGE = 2;
+    private final static int ENTITY_MATCHING_STAGE = 3;
+    private final static int ENTITY_CLUSTERING_STAGE = 4;
     private final WizardData model;
     private final String erType;
     private final List<WorkflowResult> performancePerStep;
@@ -33,10 +63,13 @@ public class WorkflowManager {
     private final boolean isBlockingBasedWorkflow;
     private final boolean isJoinBasedWorkflow;
     private final boolean isProgressiveWorkflow;
+    private final boolean isAdaptiveGridSearch;
+    private final int noOfTrials;
 
     private EquivalenceCluster[] entityClusters;
     private List<EntityProfile> profilesD1;
     private List<EntityProfile> profilesD2;
+    private String datasetFingerprint;
     private AbstractDuplicatePropagation duplicatePropagation;
 
     private ISimilarityJoin similarityJoinMethod;
@@ -45,10 +78,29 @@ public class WorkflowManager {
     private List<IBlockProcessing> blClMethods;
     private IBlockProcessing comparisonCleaningMethod;
     private IEntityClustering ec;
+    private IEntityMatching trialEntityMatching;
+    private PipelinePrefix trialPrefix;
+    // Number of the random configuration that this manager's instances drew for each holistic trial
+    private final Map<Integer, Integer> drawnConfigurations = new HashMap<>();
+    private double comparisonBudget = 1;
+    private long executedComparisons;
+    // Number of threads for threshold-filtered matching (1 in trial workers, whose trials already run in parallel)
+    private int matchingThreads = Runtime.getRuntime().availableProcessors();
+
+    private SearchBudget totalBudget;
+    private TuningCache tuningCache;
+    private TrialLog trialLog;
 
     private List<Integer> recallIterations;
     private List<Double> recallCurve;
 
+    // Stage artifacts: the file to start the final run from (blocks or similarity pairs), and whether to keep the
+    // blocks and similarity pairs of the final run for exporting them
+    private File startArtifact;
+    private boolean keepStageArtifacts;
+    private List<AbstractBlock> finalBlocks;
+    private SimilarityPairs finalSimPairs;
+
     public WorkflowManager(WizardData model) {
         // Set the model and ER type
         this.model = model;
@@ -59,8 +111,53 @@ public class WorkflowManager {
         this.isJoinBasedWorkflow = model.getWorkflow().equals(JedaiOptions.WORKFLOW_JOIN_BASED);
         this.isProgressiveWorkflow = model.getWorkflow().equals(JedaiOptions.WORKFLOW_PROGRESSIVE);
 
-        // Initialize performance per step list
+        // Set whether grid search evaluates only the most promising configurations
+        this.isAdaptiveGridSearch = JedaiOptions.AUTOCONFIG_ADAPTIVEGRIDSEARCH.equals(model.getSearchType());
+
+        // Set the number of random search trials of each step
+        this.noOfTrials = Math.max(1, model.getStageTrialBudget());
+
+        // Initialize performance per step list and the log of the auto-configuration trials
         this.performancePerStep = new ArrayList<>();
+        this.trialLog = new TrialLog();
+    }
+
+    /**
+     * Create a workflow manager that uses the same model, entity profiles and ground truth as the given one, but has
+     * its own method instances (after calling createMethodInstances()). Used for running trials in parallel.
+     * <p>
+     * The duplicate propagation object keeps track of the detected duplicates while measuring performance, so each
+     * manager gets its own one, over the same set of duplicates. The trials are recorded in the source's trial log.
+     *
+     * @param source Workflow manager to share the data of
+     */
+    private WorkflowManager(WorkflowManager source) {
+        this(source.model);
+
+        this.profilesD1 = source.profilesD1;
+        this.profilesD2 = source.profilesD2;
+        this.datasetFingerprint = source.datasetFingerprint;
+        this.trialLog = source.trialLog;
+        this.matchingThreads = 1;
+        if (source.duplicatePropagation instanceof BilateralDuplicatePropagation) {
+            this.duplicatePropagation = new BilateralDuplicatePropagation(source.duplicatePropagation.getDuplicates());
+        } else {
+            this.duplicatePropagation = new UnilateralDuplicatePropagation(source.duplicatePropagation.getDuplicates());
+        }
+    }
+
+    /**
+     * Create a workflow manager for running trials in a worker thread, with its own method instances
+     *
+     * @param prefix Output of the workflow steps that are the same in all trials (can be null)
+     * @return Workflow manager for the worker
+     */
+    private WorkflowManager newTrialWorker(PipelinePrefix prefix) {
+        WorkflowManager worker = new WorkflowManager(this);
+        worker.createMethodInstances(erType.equals(JedaiOptions.CLEAN_CLEAN_ER));
+        worker.trialEntityMatching = worker.getEntityMatchingMethodInstance(profilesD1, profilesD2);
+        worker.trialPrefix = prefix;
+        return worker;
     }
 
     public List<WorkflowResult> getPerformancePerStep() {
@@ -75,6 +172,10 @@ public class WorkflowManager {
         return profilesD2;
     }
 
+    public String getDatasetFingerprint() {
+        return datasetFingerprint;
+    }
+
     public EquivalenceCluster[] getEntityClusters() {
         return entityClusters;
     }
@@ -87,10 +188,43 @@ public class WorkflowManager {
         return recallCurve;
     }
 
+    public TrialLog getTrialLog() {
+        return trialLog;
+    }
+
     public List<Integer> getRecallIterations() {
         return recallIterations;
     }
 
+    public List<AbstractBlock> getFinalBlocks() {
+        return finalBlocks;
+    }
+
+    public SimilarityPairs getFinalSimilarityPairs() {
+        return finalSimPairs;
+    }
+
+    /**
+     * Set a stage artifact (see StageArtifacts) to start the workflow from, skipping the stages before entity matching
+     * for blocks, or before entity clustering for similarity pairs. Only supported by blocking-based workflows without
+     * automatic configuration.
+     *
+     * @param startArtifact Blocks or similarity pairs file (null to run all stages)
+     */
+    public void setStartArtifact(File startArtifact) {
+        this.startArtifact = startArtifact;
+    }
+
+    /**
+     * Set whether to keep the blocks and similarity pairs of the final run, so that they can be exported as stage
+     * artifacts. They are not kept by default, since they can take a lot of memory.
+     *
+     * @param keepStageArtifacts True to keep them
+     */
+    public void setKeepStageArtifacts(boolean keepStageArtifacts) {
+        this.keepStageArtifacts = keepStageArtifacts;
+    }
+
     /**
      * Create instances of the methods that will be used for running the workflow
      *
@@ -222,6 +356,70 @@ public class WorkflowManager {
         }
     }
 
+    /**
+     * Get the similarity threshold of the entity clustering method, if threshold-filtered matching can be used for it.
+     * This is only possible when the threshold is known before running the workflow, i.e. when the entity clustering
+     * method is not configured automatically.
+     *
+     * @return Similarity threshold of entity clustering, or null if threshold-filtered matching should not be used
+     */
+    private Double getStreamingThreshold() {
+        if (!model.isStreamingMatching()
+                || model.getEntityClusteringConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG)) {
+            return null;
+        }
+
+        // The similarity threshold is the 1st parameter of all entity clustering methods
+        if (model.getEntityClusteringConfigType().equals(JedaiOptions.MANUAL_CONFIG)) {
+            return (double) model.getEntityClusteringParameters().get(0).getRight();
+        } else {
+            JsonArray params = ec.getParameterConfiguration();
+            return Double.parseDouble(params.get(0).getAsObject().get("defaultValue").getAsString().value());
+        }
+    }
+
+    /**
+     * Execute the comparisons of the given blocks with an entity matching method. When threshold-filtered matching is
+     * enabled, the comparisons are streamed to parallel matching workers and only the pairs that can pass the entity
+     * clustering threshold are kept.
+     * <p>
+     * Each matching worker needs its own entity matching instance. The given instance is used by the first one, and
+     * the others get new instances of the selected method. An automatically configured method cannot be copied that
+     * way, so it is only used by a single worker.
+     *
+     * @param entityMatching Entity matching method
+     * @param blocks         Blocks with the comparisons to execute
+     * @param finalRun       Set to true to print the number of kept comparisons
+     * @return Similarity pairs to give to entity clustering
+     * @throws Exception If a matching worker fails
+     */
+    private SimilarityPairs executeComparisons(IEntityMatching entityMatching, List<AbstractBlock> blocks,
+                                               boolean finalRun) throws Exception {
+        Double threshold = getStreamingThreshold();
+        if (threshold == null) {
+            return entityMatching.executeComparisons(blocks);
+        }
+
+        boolean isCleanCleanEr = erType.equals(JedaiOptions.CLEAN_CLEAN_ER);
+        StreamingEntityMatcher matcher;
+        if (matchingThreads == 1 || model.getEntityMatchingConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG)) {
+            matcher = new StreamingEntityMatcher(entityMatching, threshold, isCleanCleanEr);
+        } else {
+            AtomicBoolean givenInstanceUsed = new AtomicBoolean();
+            matcher = new StreamingEntityMatcher(() -> givenInstanceUsed.compareAndSet(false, true)
+                    ? entityMatching : getEntityMatchingMethodInstance(profilesD1, profilesD2),
+                    threshold, isCleanCleanEr, matchingThreads);
+        }
+        SimilarityPairs simPairs = matcher.executeComparisons(blocks);
+
+        if (finalRun) {
+            System.out.println("Executed comparisons\t:\t" + matcher.getExecutedComparisons());
+            System.out.println("Comparisons above threshold\t:\t" + matcher.getRetainedComparisons());
+        }
+
+        return simPairs;
+    }
+
     /**
      * When bestIteration is null, set the next random configuraiton for each method in the workflow that should be
      * automatically configured. If it is set, set these methods to that configuration.
@@ -323,11 +521,48 @@ public class WorkflowManager {
      * @param name Name of step
      * @param time Time it took to run the step (in milliseconds)
      * @param blp  BlocksPerformance object (to get values)
+     * @return The added workflow result
      */
-    private void addBlocksPerformance(String name, double time, BlocksPerformance blp) {
-        performancePerStep.add(
-                new WorkflowResult(name, blp.getPc(), blp.getPq(), blp.getFMeasure(), time / 1000.0, -1, -1, -1)
-        );
+    private WorkflowResult addBlocksPerformance(String name, double time, BlocksPerformance blp) {
+        WorkflowResult result =
+                new WorkflowResult(name, blp.getPc(), blp.getPq(), blp.getFMeasure(), time / 1000.0, -1, -1, -1);
+        performancePerStep.add(result);
+
+        return result;
+    }
+
+    /**
+     * Remove the redundant comparisons of the given blocks. Used when no comparison cleaning method is selected, so
+     * that pairs that share blocks (e.g. from different block building methods) are compared only once.
+     *
+     * @param blocks   Blocks to process
+     * @param finalRun Set to true to print and save the performance of this step
+     * @return Blocks without redundant comparisons
+     */
+    private List<AbstractBlock> eliminateRedundantComparisons(List<AbstractBlock> blocks, boolean finalRun) {
+        double overheadStart = System.currentTimeMillis();
+
+        RedundantComparisonEliminator eliminator =
+                new RedundantComparisonEliminator(erType.equals(JedaiOptions.CLEAN_CLEAN_ER));
+        List<AbstractBlock> refinedBlocks = eliminator.refineBlocks(blocks);
+
+        double overheadEnd = System.currentTimeMillis();
+
+        if (finalRun) {
+            // Print blocks performance
+            BlocksPerformance blp = new BlocksPerformance(refinedBlocks, duplicatePropagation);
+            blp.setStatistics();
+
+            double totalTime = overheadEnd - overheadStart;
+            blp.printStatistics(totalTime, "", RedundantComparisonEliminator.METHOD_NAME);
+            System.out.println("Saved comparisons\t:\t" + eliminator.getSavedComparisons());
+
+            // Save the performance of the step, together with the number of removed comparisons
+            this.addBlocksPerformance(RedundantComparisonEliminator.METHOD_NAME, totalTime, blp)
+                    .setSavedComparisons((long) eliminator.getSavedComparisons());
+        }
+
+        return refinedBlocks;
     }
 
     /**
@@ -340,59 +575,384 @@ public class WorkflowManager {
     private ClustersPerformance executeFullBlockingBasedWorkflow(Label statusLabel) throws Exception {
         // Check if automatic configuration was chosen for ANY method in the workflow
         if (anyAutomaticConfig()) {
+            // Start counting the budget of the whole automatic configuration
+            totalBudget = new SearchBudget(model.getTotalTrialBudget(), model.getTotalTimeBudget() * 1000L,
+                    model.getTotalComparisonBudget());
+
+            // Open the cache with the best configurations of previous runs on the same data
+            tuningCache = new TuningCache(profilesD1, profilesD2, duplicatePropagation, erType);
+
             // Run the rest of the workflow with holistic, or step-by-step
             if (model.getAutoConfigType().equals(JedaiOptions.AUTOCONFIG_HOLISTIC)) {
                 // Holistic random configuration (holistic grid is not supported at this time)
                 int bestIteration = 0;
                 double bestFMeasure = 0;
 
-                // Create entity matching method instance
-                IEntityMatching em = this.getEntityMatchingMethodInstance(profilesD1, profilesD2);
-
-                for (int j = 0; j < NO_OF_TRIALS; j++) {
-                    int finalJ = j;
-                    Platform.runLater(() -> statusLabel.setText("Auto-configuration " + finalJ + "/" + NO_OF_TRIALS));
+                // Random configurations cannot be replayed, so a cached result is only used as a target that stops
+                // the search early
+                List<IDocumentation> workflowMethods = new ArrayList<>();
+                getWorkflowMethods().forEach(method -> workflowMethods.add(method.getLeft()));
+                String cacheContext = getCacheContext(workflowMethods, true);
+                TuningCache.Entry cached = getCachedConfiguration(JedaiOptions.AUTOCONFIG_HOLISTIC, cacheContext);
+
+                // The trials run on the method instances of the runner's workers, so the best configuration is applied
+                // to the instances of the worker that drew it
+                PipelinePrefix prefix = computePipelinePrefix(statusLabel);
+                HolisticTrialRunner runner = new HolisticTrialRunner(statusLabel, prefix);
+
+                // Successive halving only gives the trials a part of the comparisons of entity matching, so it cannot
+                // change the cost of the trials when entity matching is reused by all of them
+                boolean successiveHalving = model.getSearchType().equals(JedaiOptions.AUTOCONFIG_SUCCESSIVEHALVING);
+                if (successiveHalving && prefix.simPairs != null) {
+                    System.out.println("Entity matching is the same in all trials, running random search instead of "
+                            + "successive halving");
+                    successiveHalving = false;
+                }
 
-                    // Set the next automatic random configuration
-                    iterateHolisticRandom(em, null);
+                WorkflowManager bestWorker;
+                try {
+                    if (successiveHalving) {
+                        // Successive halving, which evaluates the random configurations with increasing budgets
+                        TrialResult best = runSuccessiveHalving(runner, cached);
+                        if (best != null) {
+                            bestIteration = best.trial;
+                            bestFMeasure = best.fMeasure;
+                        }
+                    } else {
+                        // Run the trials in parallel and get the F-measure of each one
+                        int[] trials = new int[noOfTrials];
+                        for (int j = 0; j < noOfTrials; j++) {
+                            trials[j] = j;
+                        }
 
-                    // Run a workflow and check its F-measure
-                    ClustersPerformance clp = this.runBlockingBasedWorkflow(statusLabel, schemaClusteringMethod, blBuMethods,
-                            blClMethods, comparisonCleaningMethod, ec, false);
+                        // Charge the comparisons of the reused entity matching to the search
+                        String searchName = "Holistic random search";
+                        SearchBudget budget = newStageBudget(cached);
+                        budget.addComparisons(prefix.comparisons);
+                        TrialResult[] results = runner.run(trials, 1, searchName, budget);
+                        budget.printStatistics("Random search");
+
+                        for (int j = 0; j < noOfTrials; j++) {
+                            // If there was a problem with this random workflow (or it was skipped), skip this iteration
+                            if (results[j] == null) {
+                                continue;
+                            }
+
+                            // Keep this iteration if it has the best F-measure so far
+                            double fMeasure = results[j].fMeasure;
+                            if (bestFMeasure < fMeasure) {
+                                bestIteration = j;
+                                bestFMeasure = fMeasure;
+                            }
+                        }
 
-                    // If there was a problem with this random workflow, skip this iteration
-                    if (clp == null) {
-                        continue;
+                        // Select the configuration by its cost too, if needed
+                        TrialRecord selected = selectTrial(searchName);
+                        if (selected != null) {
+                            bestIteration = selected.getTrial();
+                            bestFMeasure = selected.getObjective();
+                        }
                     }
 
-                    // Keep this iteration if it has the best F-measure so far
-                    double fMeasure = clp.getFMeasure();
-                    if (bestFMeasure < fMeasure) {
-                        bestIteration = j;
-                        bestFMeasure = fMeasure;
-                    }
+                    bestWorker = runner.configureWorker(bestIteration);
+                } finally {
+                    runner.shutdown();
                 }
 
                 System.out.println("Best Iteration\t:\t" + bestIteration);
                 System.out.println("Best FMeasure\t:\t" + bestFMeasure);
 
-                // Before running the workflow, we should configure the methods using the best iteration's parameters
-                iterateHolisticRandom(em, bestIteration);
+                // Run the final workflow with the method instances that are set to the best iteration's parameters
+                useMethodInstances(bestWorker);
+                IEntityMatching em = bestWorker.trialEntityMatching;
+                saveCachedConfiguration(JedaiOptions.AUTOCONFIG_HOLISTIC, cacheContext, bestFMeasure, new int[]{-1},
+                        getWorkflowConfiguration(em));
 
                 // Run the final workflow (whether there was an automatic configuration or not)
                 return this.runBlockingBasedWorkflow(statusLabel, schemaClusteringMethod, blBuMethods, blClMethods,
-                        comparisonCleaningMethod, ec, true);
+                        comparisonCleaningMethod, em, ec, true);
             } else {
-                // Step-by-step automatic configuration. Set random or grid depending on the selected search type.
+                // Step-by-step automatic configuration. Set random or grid depending on the selected search type
+                // (adaptive grid search is a grid search).
                 return runStepByStepWorkflow(
                         statusLabel, model.getSearchType().equals(JedaiOptions.AUTOCONFIG_RANDOMSEARCH)
                 );
             }
         } else {
-            // Run workflow without any automatic configuration
+            // Run workflow without any automatic configuration, skipping the stages of the start artifact if any
             return this.runBlockingBasedWorkflow(statusLabel, schemaClusteringMethod, blBuMethods, blClMethods,
-                    comparisonCleaningMethod, ec, true);
+                    comparisonCleaningMethod, null, ec, readStartArtifact(), true);
+        }
+    }
+
+    /**
+     * Set the random configuration of a holistic trial on this manager's method instances. The first time a trial is
+     * set, a new random configuration is drawn for it. Afterwards, the configuration that was drawn for it is set
+     * again, by its number among the configurations that these instances drew (random configurations can only be
+     * replayed on the instances that drew them).
+     *
+     * @param trial Index of the trial
+     */
+    private void setTrialConfiguration(int trial) {
+        Integer drawn = drawnConfigurations.get(trial);
+        if (drawn == null) {
+            drawnConfigurations.put(trial, drawnConfigurations.size());
+        }
+        iterateHolisticRandom(trialEntityMatching, drawn);
+    }
+
+    /**
+     * Use the method instances of a trial worker, e.g. to run the final workflow with the configuration of its best
+     * trial
+     *
+     * @param worker Trial worker
+     */
+    private void useMethodInstances(WorkflowManager worker) {
+        schemaClusteringMethod = worker.schemaClusteringMethod;
+        blBuMethods = worker.blBuMethods;
+        blClMethods = worker.blClMethods;
+        comparisonCleaningMethod = worker.comparisonCleaningMethod;
+        ec = worker.ec;
+    }
+
+    /**
+     * Run one trial of holistic random search with this manager's method instances
+     *
+     * @param trial  Index of the trial, which identifies its random configuration (see setTrialConfiguration())
+     * @param budget Fraction of the comparisons to execute in entity matching (1 for all of them)
+     * @return Result of the trial, or null if the workflow did not produce a result
+     * @throws Exception When running the workflow fails
+     */
+    private TrialResult runHolisticTrial(int trial, double budget) throws Exception {
+        // Set the random configuration of this trial
+        setTrialConfiguration(trial);
+        comparisonBudget = budget;
+        executedComparisons = 0;
+
+        // Run the workflow from the first automatically configured step and check its F-measure
+        ClustersPerformance clp = this.runBlockingBasedWorkflow(null, schemaClusteringMethod, blBuMethods,
+                blClMethods, comparisonCleaningMethod, trialEntityMatching, ec, trialPrefix, false);
+        if (clp == null) {
+            return null;
+        }
+
+        return new TrialResult(trial, clp.getRecall(), clp.getPrecision(), clp.getFMeasure(), executedComparisons);
+    }
+
+    /**
+     * Tune the automatically configured methods with successive halving. All random configurations are first
+     * evaluated with a small fraction of the comparisons, then the best 1/HALVING_RATE of them are evaluated again
+     * with HALVING_RATE times more comparisons, until the remaining configurations are evaluated on the full input.
+     * The statistics of each round are printed and added to the performance per step.
+     *
+     * @param runner Runner of the trials
+     * @param cached Result of a previous run on the same data, used as the target of the search (can be null)
+     * @return Result of the best configuration in the last round, or null if no configuration produced a result
+     * @throws Exception When running a trial fails
+     */
+    private TrialResult runSuccessiveHalving(HolisticTrialRunner runner, TuningCache.Entry cached) throws Exception {
+        // Find the number of rounds, so that at most HALVING_RATE configurations reach the full input
+        int rounds = 1;
+        for (int n = noOfTrials; HALVING_RATE < n; n /= HALVING_RATE) {
+            rounds++;
+        }
+
+        int[] candidates = new int[noOfTrials];
+        for (int j = 0; j < noOfTrials; j++) {
+            candidates[j] = j;
+        }
+
+        double searchStart = System.currentTimeMillis();
+        long searchCost = 0;
+        TrialResult best = null;
+        List<TrialResult> lastRanking = null;
+        String lastSearchName = null;
+
+        // The trial budget is already the number of configurations of the first round, and the later rounds evaluate
+        // some of them again, so the number of trials is not limited
+        SearchBudget searchBudget = newStageBudget(0, cached);
+        for (int round = 0; round < rounds; round++) {
+            double budget = Math.pow(HALVING_RATE, round - (rounds - 1));
+            double roundStart = System.currentTimeMillis();
+
+            String searchName = "Successive halving round " + (round + 1) + "/" + rounds;
+            TrialResult[] results = runner.run(candidates, budget, searchName, searchBudget);
+
+            // Sort the configurations by F-measure (stable, so ties keep the lower trial index first)
+            List<TrialResult> ranking = new ArrayList<>();
+            long roundCost = 0;
+            for (TrialResult result : results) {
+                if (result != null) {
+                    ranking.add(result);
+                    roundCost += result.comparisons;
+                }
+            }
+            ranking.sort((r1, r2) -> Double.compare(r2.fMeasure, r1.fMeasure));
+            searchCost += roundCost;
+
+            double roundTime = System.currentTimeMillis() - roundStart;
+
+            // Stop if no configuration produced a result (e.g. because the budget ran out), keeping the best
+            // configuration of the previous round
+            if (ranking.isEmpty()) {
+                break;
+            }
+            best = ranking.get(0);
+            lastRanking = ranking;
+            lastSearchName = searchName;
+
+            // Print and save the statistics of this round
+            String roundName = "Successive halving round " + (round + 1);
+            System.out.println("\n" + roundName);
+            System.out.println("Configurations\t:\t" + candidates.length);
+            System.out.println("Comparison budget\t:\t" + budget);
+            System.out.println("Executed comparisons\t:\t" + roundCost);
+            System.out.println("Round time\t:\t" + roundTime);
+            System.out.println("Best trial\t:\t" + best.trial);
+            System.out.println("Best FMeasure\t:\t" + best.fMeasure);
+
+            WorkflowResult roundResult = new WorkflowResult(roundName + " (" + candidates.length + " configs)",
+                    best.recall, best.precision, best.fMeasure, roundTime / 1000.0, -1, -1, -1);
+            roundResult.setExecutedComparisons(roundCost);
+            performancePerStep.add(roundResult);
+
+            // Keep the best configurations for the next round, in trial order
+            if (round < rounds - 1) {
+                int survivors = Math.min(ranking.size(), Math.max(1, candidates.length / HALVING_RATE));
+                candidates = ranking.stream()
+                        .limit(survivors)
+                        .mapToInt(result -> result.trial)
+                        .sorted()
+                        .toArray();
+            }
+        }
+
+        // Select the configuration of the last round by its cost too, if needed
+        TrialRecord selected = (best == null) ? null : selectTrial(lastSearchName);
+        if (selected != null) {
+            for (TrialResult result : lastRanking) {
+                if (result.trial == selected.getTrial()) {
+                    best = result;
+                }
+            }
+        }
+
+        double searchTime = System.currentTimeMillis() - searchStart;
+        searchBudget.printStatistics("\nSuccessive halving");
+        System.out.println("Successive halving search cost\t:\t" + searchCost + " comparisons");
+        System.out.println("Successive halving search time\t:\t" + searchTime);
+
+        // Save the total cost of the search
+        if (best != null) {
+            WorkflowResult searchResult = new WorkflowResult("Successive halving search", best.recall,
+                    best.precision, best.fMeasure, searchTime / 1000.0, -1, -1, -1);
+            searchResult.setExecutedComparisons(searchCost);
+            performancePerStep.add(searchResult);
         }
+
+        return best;
+    }
+
+    /**
+     * Keep a part of the comparisons of the given blocks, spread evenly over the blocks. Whole blocks are kept, so the
+     * number of kept comparisons is approximately the given fraction of the total.
+     *
+     * @param blocks   Blocks to sample
+     * @param fraction Fraction of the comparisons to keep
+     * @return Sample of the blocks
+     */
+    private List<AbstractBlock> sampleComparisons(List<AbstractBlock> blocks, double fraction) {
+        List<AbstractBlock> sample = new ArrayList<>();
+        double totalComparisons = 0;
+        double keptComparisons = 0;
+        for (AbstractBlock block : blocks) {
+            totalComparisons += block.getNoOfComparisons();
+
+            // Keep the block if the sample is behind its share of the comparisons seen so far
+            if (keptComparisons < fraction * totalComparisons) {
+                sample.add(block);
+                keptComparisons += block.getNoOfComparisons();
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * Get the first stage of the blocking-based workflow that has a method which should be configured automatically.
+     * All the stages before it give the same output in every auto-configuration trial.
+     *
+     * @return First automatically configured stage (ENTITY_CLUSTERING_STAGE if no earlier stage is automatic)
+     */
+    private int getFirstAutomaticStage() {
+        if (model.getSchemaClusteringConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG)
+                || anyAutomaticConfig(model.getBlockBuildingMethods())) {
+            return BLOCK_BUILDING_STAGE;
+        }
+        if (anyAutomaticConfig(model.getBlockCleaningMethods())) {
+            return BLOCK_CLEANING_STAGE;
+        }
+        if (model.getComparisonCleaningConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG)) {
+            return COMPARISON_CLEANING_STAGE;
+        }
+        if (model.getEntityMatchingConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG)) {
+            return ENTITY_MATCHING_STAGE;
+        }
+        return ENTITY_CLUSTERING_STAGE;
+    }
+
+    /**
+     * Check if any enabled method of a list should be configured automatically
+     *
+     * @param configs List of method configurations (can be null)
+     * @return True if an enabled method has automatic configuration
+     */
+    private boolean anyAutomaticConfig(List<JedaiMethodConfiguration> configs) {
+        if (configs != null) {
+            for (JedaiMethodConfiguration config : configs) {
+                if (config.isEnabled() && config.getConfigurationType().equals(JedaiOptions.AUTOMATIC_CONFIG)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Run the stages of the blocking-based workflow that come before the first automatically configured one, so that
+     * the auto-configuration trials can start from their output instead of recomputing it.
+     *
+     * @param statusLabel Label to show current workflow status.
+     * @return Output of the fixed stages
+     * @throws Exception When running entity matching fails
+     */
+    private PipelinePrefix computePipelinePrefix(Label statusLabel) throws Exception {
+        int firstAutomaticStage = getFirstAutomaticStage();
+        PipelinePrefix prefix = new PipelinePrefix(firstAutomaticStage);
+        if (firstAutomaticStage == BLOCK_BUILDING_STAGE) {
+            // Every stage changes between trials, nothing to reuse
+            return prefix;
+        }
+
+        Platform.runLater(() -> statusLabel.setText("Running fixed workflow steps..."));
+        System.out.println("Steps reused in all trials\t:\t" + firstAutomaticStage);
+
+        List<AbstractBlock> blocks = runBlockBuildingStage(null, schemaClusteringMethod, blBuMethods, false);
+        if (BLOCK_CLEANING_STAGE < firstAutomaticStage) {
+            blocks = runBlockCleaningStage(null, blocks, blClMethods, false);
+        }
+        if (blocks != null && COMPARISON_CLEANING_STAGE < firstAutomaticStage) {
+            blocks = runComparisonCleaningStage(null, blocks, comparisonCleaningMethod, false);
+        }
+        if (blocks != null && ENTITY_MATCHING_STAGE < firstAutomaticStage) {
+            long comparisonsBefore = executedComparisons;
+            prefix.simPairs = runEntityMatchingStage(null, blocks,
+                    getEntityMatchingMethodInstance(profilesD1, profilesD2), false);
+            prefix.comparisons = executedComparisons - comparisonsBefore;
+        }
+
+        prefix.blocks = blocks;
+        prefix.failed = (blocks == null);
+        return prefix;
     }
 
     /**
@@ -689,6 +1249,11 @@ public class WorkflowManager {
      * @throws Exception If runBlockingBasedWorkflow returns null...
      */
     public ClustersPerformance executeFullWorkflow(Label statusLabel) throws Exception {
+        if (startArtifact != null && (!isBlockingBasedWorkflow || anyAutomaticConfig())) {
+            throw new Exception("Only blocking-based workflows without automatic configuration can start from a "
+                    + "stage artifact!");
+        }
+
         // Run appropriate method depending on selected workflow
         switch (model.getWorkflow()) {
             case JedaiOptions.WORKFLOW_BLOCKING_BASED:
@@ -755,6 +1320,9 @@ public class WorkflowManager {
             profilesD2 = DataReader.getEntitiesD2(model);
         }
 
+        // Fingerprint of the datasets, for recognizing the runs on them
+        datasetFingerprint = DatasetFingerprint.getFingerprint(profilesD1, profilesD2);
+
         // Read ground truth
         duplicatePropagation = DataReader.getGroundTruth(model, profilesD1, profilesD2);
 
@@ -863,7 +1431,32 @@ public class WorkflowManager {
      * @param blBuMethods List of block building methods
      * @param blClMethods List of block cleaning methods
      * @param coCl        Comparison cleaning method
+     * @param em          Entity matching method (if null, a new instance is created with the selected configuration)
+     * @param ec          Entity clustering method
+     * @param finalRun    Set to true to print messages while running workflow & save performance of each step
+     * @return ClustersPerformance object of the executed workflow
+     * @throws Exception In case the Entity Matching method is null (shouldn't happen though)
+     */
+    private ClustersPerformance runBlockingBasedWorkflow(Label statusLabel, ISchemaClustering sc,
+                                                         List<IBlockBuilding> blBuMethods,
+                                                         List<IBlockProcessing> blClMethods, IBlockProcessing coCl,
+                                                         IEntityMatching em, IEntityClustering ec,
+                                                         boolean finalRun) throws Exception {
+        return runBlockingBasedWorkflow(statusLabel, sc, blBuMethods, blClMethods, coCl, em, ec, null, finalRun);
+    }
+
+    /**
+     * Run a blocking-based workflow with the given methods, starting after the stages whose output is in the given
+     * prefix, and return its ClustersPerformance
+     *
+     * @param statusLabel Label to set status on
+     * @param sc          Schema clustering method
+     * @param blBuMethods List of block building methods
+     * @param blClMethods List of block cleaning methods
+     * @param coCl        Comparison cleaning method
+     * @param em          Entity matching method (if null, a new instance is created with the selected configuration)
      * @param ec          Entity clustering method
+     * @param prefix      Output of the stages to skip (if null, all stages are run)
      * @param finalRun    Set to true to print messages while running workflow & save performance of each step
      * @return ClustersPerformance object of the executed workflow
      * @throws Exception In case the Entity Matching method is null (shouldn't happen though)
@@ -871,7 +1464,90 @@ public class WorkflowManager {
     private ClustersPerformance runBlockingBasedWorkflow(Label statusLabel, ISchemaClustering sc,
                                                          List<IBlockBuilding> blBuMethods,
                                                          List<IBlockProcessing> blClMethods, IBlockProcessing coCl,
-                                                         IEntityClustering ec, boolean finalRun) throws Exception {
+                                                         IEntityMatching em, IEntityClustering ec,
+                                                         PipelinePrefix prefix, boolean finalRun) throws Exception {
+        if (prefix != null && prefix.failed) {
+            // The fixed stages did not produce any blocks
+            return null;
+        }
+
+        int firstStage = BLOCK_BUILDING_STAGE;
+        List<AbstractBlock> blocks = null;
+        SimilarityPairs simPairs = null;
+        if (prefix != null) {
+            // Copy the blocks because block processing methods may modify the list and the blocks, and the prefix is
+            // shared by trials that run in parallel
+            firstStage = prefix.nextStage;
+            blocks = (prefix.blocks != null) ? copyBlocks(prefix.blocks) : null;
+            simPairs = prefix.simPairs;
+        }
+
+        if (firstStage <= BLOCK_BUILDING_STAGE) {
+            blocks = runBlockBuildingStage(statusLabel, sc, blBuMethods, finalRun);
+        }
+
+        if (firstStage <= BLOCK_CLEANING_STAGE) {
+            blocks = runBlockCleaningStage(statusLabel, blocks, blClMethods, finalRun);
+            if (blocks == null) {
+                return null;
+            }
+        }
+
+        if (firstStage <= COMPARISON_CLEANING_STAGE) {
+            blocks = runComparisonCleaningStage(statusLabel, blocks, coCl, finalRun);
+            if (blocks == null) {
+                return null;
+            }
+        }
+
+        if (firstStage <= ENTITY_MATCHING_STAGE) {
+            simPairs = runEntityMatchingStage(statusLabel, blocks, em, finalRun);
+        }
+
+        if (finalRun && keepStageArtifacts) {
+            finalBlocks = blocks;
+            finalSimPairs = simPairs;
+        }
+
+        return runEntityClusteringStage(statusLabel, simPairs, ec, finalRun);
+    }
+
+    /**
+     * Read the start artifact, as the output of the stages it skips
+     *
+     * @return Pipeline prefix with the blocks or similarity pairs of the artifact, or null if there is no artifact
+     * @throws IOException When the artifact cannot be read or is for other datasets
+     */
+    private PipelinePrefix readStartArtifact() throws IOException {
+        if (startArtifact == null) {
+            return null;
+        }
+
+        int noOfEntitiesD2 = (profilesD2 != null) ? profilesD2.size() : 0;
+        PipelinePrefix prefix;
+        if (StageArtifacts.isBlocksArtifact(startArtifact)) {
+            prefix = new PipelinePrefix(ENTITY_MATCHING_STAGE);
+            prefix.blocks = StageArtifacts.readBlocks(startArtifact, profilesD1.size(), noOfEntitiesD2);
+            System.out.println("Blocks from artifact\t:\t" + prefix.blocks.size());
+        } else {
+            prefix = new PipelinePrefix(ENTITY_CLUSTERING_STAGE);
+            prefix.simPairs = StageArtifacts.readSimilarityPairs(startArtifact, profilesD1.size(), noOfEntitiesD2);
+            System.out.println("Similarity pairs from artifact\t:\t" + prefix.simPairs.getNoOfComparisons());
+        }
+        return prefix;
+    }
+
+    /**
+     * Run schema clustering and the block building methods of a blocking-based workflow
+     *
+     * @param statusLabel Label to set status on
+     * @param sc          Schema clustering method
+     * @param blBuMethods List of block building methods
+     * @param finalRun    Set to true to print messages while running workflow & save performance of each step
+     * @return Blocks of all block building methods
+     */
+    private List<AbstractBlock> runBlockBuildingStage(Label statusLabel, ISchemaClustering sc,
+                                                      List<IBlockBuilding> blBuMethods, boolean finalRun) {
         // Run schema clustering if it's not null (can't measure its performance)
         if (finalRun)
             Platform.runLater(() -> statusLabel.setText("Running schema clustering..."));
@@ -913,7 +1589,20 @@ public class WorkflowManager {
         if (finalRun)
             System.out.println("Original blocks\t:\t" + blocks.size());
 
-        // Run Block Cleaning
+        return blocks;
+    }
+
+    /**
+     * Run the block cleaning methods of a blocking-based workflow
+     *
+     * @param statusLabel Label to set status on
+     * @param blocks      Blocks to clean
+     * @param blClMethods List of block cleaning methods
+     * @param finalRun    Set to true to print messages while running workflow & save performance of each step
+     * @return Cleaned blocks, or null if no blocks are left
+     */
+    private List<AbstractBlock> runBlockCleaningStage(Label statusLabel, List<AbstractBlock> blocks,
+                                                      List<IBlockProcessing> blClMethods, boolean finalRun) {
         if (finalRun)
             Platform.runLater(() -> statusLabel.setText("Running block cleaning..."));
 
@@ -928,36 +1617,85 @@ public class WorkflowManager {
             }
         }
 
-        // Run Comparison Cleaning
+        return blocks;
+    }
+
+    /**
+     * Run the comparison cleaning method of a blocking-based workflow, or remove the redundant comparisons if there
+     * is no comparison cleaning method
+     *
+     * @param statusLabel Label to set status on
+     * @param blocks      Blocks to clean
+     * @param coCl        Comparison cleaning method
+     * @param finalRun    Set to true to print messages while running workflow & save performance of each step
+     * @return Cleaned blocks, or null if no blocks are left
+     */
+    private List<AbstractBlock> runComparisonCleaningStage(Label statusLabel, List<AbstractBlock> blocks,
+                                                           IBlockProcessing coCl, boolean finalRun) {
         if (finalRun)
             Platform.runLater(() -> statusLabel.setText("Running comparison cleaning..."));
+
         if (coCl != null) {
             blocks = runBlockProcessing(duplicatePropagation, finalRun, blocks, coCl);
 
             if (blocks.isEmpty()) {
                 return null;
             }
+        } else {
+            blocks = eliminateRedundantComparisons(blocks, finalRun);
         }
 
-        // Run Entity Matching
+        return blocks;
+    }
+
+    /**
+     * Run the entity matching stage of a blocking-based workflow
+     *
+     * @param statusLabel Label to set status on
+     * @param blocks      Blocks with the comparisons to execute
+     * @param em          Entity matching method (if null, a new instance is created with the selected configuration)
+     * @param finalRun    Set to true to print messages while running workflow & save performance of each step
+     * @return Similarity pairs
+     * @throws Exception In case the Entity Matching method is null (shouldn't happen though)
+     */
+    private SimilarityPairs runEntityMatchingStage(Label statusLabel, List<AbstractBlock> blocks,
+                                                   IEntityMatching em, boolean finalRun) throws Exception {
         if (finalRun)
             Platform.runLater(() -> statusLabel.setText("Running entity matching..."));
-        SimilarityPairs simPairs;
 
         // Create the entity matching method here because it requires the entity profiles
-        IEntityMatching entityMatching = getEntityMatchingMethodInstance(profilesD1, profilesD2);
+        IEntityMatching entityMatching = (em != null) ? em : getEntityMatchingMethodInstance(profilesD1, profilesD2);
         if (entityMatching == null)
             throw new Exception("Entity Matching method is null!");
 
-        simPairs = entityMatching.executeComparisons(blocks);
+        // Execute only a part of the comparisons when evaluating a trial with a smaller budget
+        if (comparisonBudget < 1) {
+            blocks = sampleComparisons(blocks, comparisonBudget);
+        }
+        for (AbstractBlock block : blocks) {
+            executedComparisons += block.getNoOfComparisons();
+        }
+
+        return executeComparisons(entityMatching, blocks, finalRun);
+    }
 
-        // Run Entity Clustering
+    /**
+     * Run the entity clustering stage of a blocking-based workflow and return its ClustersPerformance
+     *
+     * @param statusLabel Label to set status on
+     * @param simPairs    Similarity pairs to cluster
+     * @param ec          Entity clustering method
+     * @param finalRun    Set to true to print messages while running workflow
+     * @return ClustersPerformance object of the executed workflow
+     */
+    private ClustersPerformance runEntityClusteringStage(Label statusLabel, SimilarityPairs simPairs,
+                                                         IEntityClustering ec, boolean finalRun) {
         if (finalRun)
             Platform.runLater(() -> statusLabel.setText("Running entity clustering..."));
 
-        overheadStart = System.currentTimeMillis();
+        double overheadStart = System.currentTimeMillis();
         entityClusters = ec.getDuplicates(simPairs);
-        overheadEnd = System.currentTimeMillis();
+        double overheadEnd = System.currentTimeMillis();
 
         // Print clustering performance
         ClustersPerformance clp = new ClustersPerformance(entityClusters, duplicatePropagation);
@@ -985,50 +1723,547 @@ public class WorkflowManager {
     }
 
     /**
-     * Optimize a given block processing method randomly using the given list of blocks.
-     * Modifies the original block processing object and sets it to use the best found
-     * random configuration.
+     * Create the budget of one automatically configured step with the given maximum number of trials, as part of the
+     * budget of the whole configuration
+     *
+     * @param maxTrials Maximum number of trials (0 for no limit)
+     * @return Budget of the step
+     */
+    private SearchBudget newStageBudget(int maxTrials) {
+        return totalBudget.newChild(maxTrials, model.getStageTimeBudget() * 1000L, model.getStageComparisonBudget());
+    }
+
+    /**
+     * Create the budget of one automatically configured step, which also stops when a trial reaches the objective of
+     * a cached configuration. The step's trial budget applies to every search type (e.g. it also limits the
+     * configurations of a grid search).
+     *
+     * @param cached Cached configuration (can be null)
+     * @return Budget of the step
+     */
+    private SearchBudget newStageBudget(TuningCache.Entry cached) {
+        return newStageBudget(noOfTrials, cached);
+    }
+
+    /**
+     * Create the budget of one automatically configured step with the given maximum number of trials, which also stops
+     * when a trial reaches the objective of a cached configuration
+     *
+     * @param maxTrials Maximum number of trials (0 for no limit)
+     * @param cached    Cached configuration (can be null)
+     * @return Budget of the step
+     */
+    private SearchBudget newStageBudget(int maxTrials, TuningCache.Entry cached) {
+        SearchBudget budget = newStageBudget(maxTrials);
+        if (cached != null) {
+            budget.setTargetObjective(cached.getObjective());
+        }
+        return budget;
+    }
+
+    /**
+     * Get the best configuration that a previous run found for the given methods on the same data, if warm start is
+     * enabled
+     *
+     * @param step    Workflow step
+     * @param context Description of the tuned methods and the workflow before them (see getCacheContext())
+     * @return Cached configuration, or null if there is none or warm start is disabled
+     */
+    private TuningCache.Entry getCachedConfiguration(String step, String context) {
+        return model.isWarmStart() ? tuningCache.get(step, context, getCacheSearchType()) : null;
+    }
+
+    /**
+     * Save the best configuration that was found for the given methods in the tuning cache
      *
-     * @param bp     Block processing method object
-     * @param blocks Blocks to optimize with
-     * @param random If true will use random search, otherwise grid
+     * @param step           Workflow step
+     * @param context        Description of the tuned methods and the workflow before them (see getCacheContext())
+     * @param objective      Objective value of the best configuration
+     * @param indices        Grid index of the configuration of each tuned method (-1 if it is not a grid
+     *                       configuration)
+     * @param configurations Parameter values of each tuned method
      */
-    private void optimizeBlockProcessing(IBlockProcessing bp, List<AbstractBlock> blocks, boolean random) {
-        List<AbstractBlock> cleanedBlocks;
+    private void saveCachedConfiguration(String step, String context, double objective, int[] indices,
+                                         String... configurations) {
+        tuningCache.put(step, context, getCacheSearchType(), objective, indices, configurations);
+    }
+
+    /**
+     * Set a tuned method to its grid configuration from the tuning cache, if it gives the cached parameter values
+     *
+     * @param cached Cached configuration
+     * @param method Position of the method among the tuned methods
+     * @param tuned  Method instance
+     * @param <T>    Type of the method
+     * @return True if the method has the cached parameter values, false if the cached configuration cannot be used
+     */
+    private static <T extends IConfiguration & IDocumentation> boolean setCachedConfiguration(TuningCache.Entry cached,
+                                                                                                int method, T tuned) {
+        int index = cached.getIndex(method);
+        if (index < 0 || tuned.getNumberOfGridConfigurations() <= index) {
+            return false;
+        }
+
+        tuned.setNumberedGridConfiguration(index);
+        return tuned.getMethodConfiguration().equals(cached.getConfiguration(method));
+    }
+
+    /**
+     * Get the search type for the tuning cache, which also includes the objective when it is not quality only (the
+     * same search can select different configurations for each objective)
+     *
+     * @return Search type and objective
+     */
+    private String getCacheSearchType() {
+        if (!isMultiObjective()) {
+            return model.getSearchType();
+        }
+        String objective = model.getObjectiveMode();
+        if (objective.equals(JedaiOptions.OBJECTIVE_CONSTRAINED)) {
+            objective += " (" + model.getMaxTrialTime() + " ms, " + model.getMaxTrialComparisons() + " comparisons)";
+        }
+        return model.getSearchType() + ", " + objective;
+    }
+
+    /**
+     * Check if the search should take the time and comparisons of the trials into account, instead of selecting the
+     * configuration with the best objective value
+     *
+     * @return True if the objective is not quality only
+     */
+    private boolean isMultiObjective() {
+        return JedaiOptions.OBJECTIVE_CONSTRAINED.equals(model.getObjectiveMode())
+                || JedaiOptions.OBJECTIVE_PARETO.equals(model.getObjectiveMode());
+    }
+
+    /**
+     * Select a trial of a search by its objective value and its cost (time and comparisons), depending on the selected
+     * objective: the best trial within the limits per trial, or a trial of the Pareto front that the user picks. If the
+     * user closes or cancels the dialog, the trial of the front with the best objective is selected.
+     *
+     * @param searchName Name of the search in the trial log
+     * @return Selected trial, or null if the objective is quality only or the search has no trials
+     * @throws InterruptedException When the workflow thread is interrupted while waiting for the user
+     */
+    private TrialRecord selectTrial(String searchName) throws InterruptedException {
+        List<TrialRecord> records = trialLog.getRecordsPerSearch().get(searchName);
+        if (!isMultiObjective() || records == null || records.isEmpty()) {
+            return null;
+        }
+
+        if (model.getObjectiveMode().equals(JedaiOptions.OBJECTIVE_CONSTRAINED)) {
+            TrialRecord selected = TrialSelector.getBestWithinLimits(records, model.getMaxTrialTime(),
+                    model.getMaxTrialComparisons());
+            System.out.println("\nSelected trial within limits\t:\t" + selected.getTrial());
+            return selected;
+        }
+
+        // Print the Pareto front and let the user pick one of its trials (the best objective by default)
+        List<TrialRecord> front = TrialSelector.getParetoFront(records);
+        List<String> choices = new ArrayList<>();
+        System.out.println("\nPareto front of " + searchName + "\t:\t" + front.size() + " trials");
+        for (TrialRecord record : front) {
+            String choice = String.format("Trial %d: objective %.4f, %.0f ms, %d comparisons (%s)",
+                    record.getTrial(), record.getObjective(), record.getWallTime(), record.getComparisons(),
+                    record.getConfiguration());
+            System.out.println(choice);
+            choices.add(choice);
+        }
+
+        // The front is sorted by objective, so the first trial is the best one
+        int index = (front.size() == 1) ? 0 : DialogHelper.showChoiceAndWait("Pareto front",
+                "Pick a configuration for " + searchName + "\n(times are measured while trials run in parallel, " +
+                        "so they are approximate)", choices);
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Stopped while waiting for a configuration of the Pareto front");
+        }
+        if (index < 0) {
+            System.out.println("No configuration was picked, selecting the best objective");
+            index = 0;
+        }
+
+        TrialRecord selected = front.get(index);
+        System.out.println("Selected trial\t:\t" + selected.getTrial());
+        return selected;
+    }
+
+    /**
+     * Get the methods of the blocking-based workflow except entity matching (whose instance is created when it runs),
+     * in workflow order, each one with whether it is configured automatically
+     *
+     * @return Method instances and their automatic configuration flags
+     */
+    private List<MutablePair<IDocumentation, Boolean>> getWorkflowMethods() {
+        List<MutablePair<IDocumentation, Boolean>> methods = new ArrayList<>();
+        if (schemaClusteringMethod != null) {
+            methods.add(new MutablePair<>(schemaClusteringMethod,
+                    model.getSchemaClusteringConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG)));
+        }
+        addEnabledMethods(methods, blBuMethods, model.getBlockBuildingMethods());
+        addEnabledMethods(methods, blClMethods, model.getBlockCleaningMethods());
+        if (comparisonCleaningMethod != null) {
+            methods.add(new MutablePair<>(comparisonCleaningMethod,
+                    model.getComparisonCleaningConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG)));
+        }
+        methods.add(new MutablePair<>(ec, model.getEntityClusteringConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG)));
+        return methods;
+    }
+
+    /**
+     * Add the instances of the enabled methods of a list to the workflow methods
+     *
+     * @param methods   Workflow methods to add to
+     * @param instances Instances of the enabled methods, in the order of their configurations
+     * @param configs   Method configurations (can be null)
+     */
+    private static void addEnabledMethods(List<MutablePair<IDocumentation, Boolean>> methods,
+                                          List<? extends IDocumentation> instances,
+                                          List<JedaiMethodConfiguration> configs) {
+        if (configs == null) {
+            return;
+        }
+
+        int enabledMethodIndex = 0;
+        for (JedaiMethodConfiguration config : configs) {
+            if (config.isEnabled()) {
+                methods.add(new MutablePair<>(instances.get(enabledMethodIndex++),
+                        config.getConfigurationType().equals(JedaiOptions.AUTOMATIC_CONFIG)));
+            }
+        }
+    }
+
+    /**
+     * Describe the tuned methods and the workflow before them, which identify a search in the tuning cache. The
+     * methods before the first tuned one are described by their current parameter values (manual, default or already
+     * tuned ones), and the tuned methods by their name and their parameter values, or "automatic".
+     *
+     * @param tunedMethods Tuned method instances of this manager
+     * @param tuneMatching True if entity matching is tuned together with them
+     * @return Description of the search
+     */
+    private String getCacheContext(List<? extends IDocumentation> tunedMethods, boolean tuneMatching) {
+        List<String> upstream = new ArrayList<>();
+        List<String> tuned = new ArrayList<>();
+        for (MutablePair<IDocumentation, Boolean> method : getWorkflowMethods()) {
+            if (tuneMatching && method.getLeft() == ec) {
+                tuned.add(getEntityMatchingDescription());
+            }
+
+            IDocumentation instance = method.getLeft();
+            if (tunedMethods.contains(instance)) {
+                tuned.add(instance.getMethodName() + ": " +
+                        (method.getRight() ? "automatic" : instance.getMethodConfiguration()));
+            } else if (tuned.isEmpty()) {
+                upstream.add(instance.getMethodName() + ": " + instance.getMethodConfiguration());
+            }
+        }
+        return String.join(" | ", upstream) + " => " + String.join(" | ", tuned);
+    }
+
+    /**
+     * Describe the selected entity matching method and its configuration, from the model
+     *
+     * @return Name of the method and its manual parameters, "default" or "automatic"
+     */
+    private String getEntityMatchingDescription() {
+        String configType = model.getEntityMatchingConfigType();
+        String configuration = configType.equals(JedaiOptions.MANUAL_CONFIG)
+                ? model.getEntityMatchingParameters().stream()
+                .map(parameter -> parameter.getLeft() + "=" + parameter.getRight())
+                .collect(Collectors.joining(", "))
+                : configType.toLowerCase();
+        return model.getEntityMatching() + ": " + configuration;
+    }
+
+    /**
+     * Get the current configuration of all methods of the blocking-based workflow, for the trial log
+     *
+     * @param em Entity matching method instance
+     * @return Configurations of the methods, in workflow order
+     */
+    private String getWorkflowConfiguration(IEntityMatching em) {
+        List<String> configurations = new ArrayList<>();
+        if (schemaClusteringMethod != null) {
+            configurations.add(schemaClusteringMethod.getMethodConfiguration());
+        }
+        for (IBlockBuilding bb : blBuMethods) {
+            configurations.add(bb.getMethodConfiguration());
+        }
+        for (IBlockProcessing bp : blClMethods) {
+            configurations.add(bp.getMethodConfiguration());
+        }
+        if (comparisonCleaningMethod != null) {
+            configurations.add(comparisonCleaningMethod.getMethodConfiguration());
+        }
+        configurations.add(em.getMethodConfiguration());
+        configurations.add(ec.getMethodConfiguration());
+        return String.join(" | ", configurations);
+    }
+
+    /**
+     * Get the accuracy measure that block building and processing methods are optimized for, which is the product of
+     * the reduction ratio and the pair completeness (recall) of the blocks, and record it as the result of a trial
+     *
+     * @param blocks              Blocks to evaluate
+     * @param originalComparisons Number of comparisons before running the method
+     * @param trial               Trial to record the result of
+     * @param configuration       Configuration of the method that produced the blocks
+     * @return Reduction ratio * recall, or 0 if there are no blocks
+     */
+    private double getBlockingAccuracy(List<AbstractBlock> blocks, double originalComparisons, TrialLog.Trial trial,
+                                       String configuration) {
+        TrialRecord record = measureBlockingAccuracy(blocks, originalComparisons, trial, configuration);
+        trialLog.add(record);
+        return record.getObjective();
+    }
+
+    /**
+     * Measure the accuracy of blocks as a trial (see getBlockingAccuracy()), without adding it to the trial log
+     *
+     * @param blocks              Blocks to evaluate
+     * @param originalComparisons Number of comparisons before running the method
+     * @param trial               Trial to measure
+     * @param configuration       Configuration of the method that produced the blocks
+     * @return Record of the trial, with reduction ratio * recall (or 0 if there are no blocks) as the objective
+     */
+    private TrialRecord measureBlockingAccuracy(List<AbstractBlock> blocks, double originalComparisons,
+                                                TrialLog.Trial trial, String configuration) {
+        if (blocks.isEmpty()) {
+            return trial.measure(configuration, 0, 0, 0, 0);
+        }
+
+        BlocksPerformance blp = new BlocksPerformance(blocks, duplicatePropagation);
+        blp.setStatistics();
+        double recall = blp.getPc();
+        double rr = 1 - blp.getAggregateCardinality() / originalComparisons;
+        return trial.measure(configuration, rr * recall, recall, blp.getPq(), (long) blp.getAggregateCardinality());
+    }
+
+    /**
+     * Optimize a given block processing method using the given list of blocks, and set it to the best found
+     * configuration.
+     * <p>
+     * Grid and random search evaluate the configurations in parallel (see runBlockProcessingTrialsInParallel()), and
+     * select the best one in trial order, like the sequential search. Random configurations can only be set again on
+     * the instance that drew them, so random search returns the worker's instance that drew the best one instead of
+     * the given method.
+     *
+     * @param step       Workflow step of the method, for the tuning cache
+     * @param methodName Name of the method in the GUI, used for creating more instances of it
+     * @param bp         Block processing method object
+     * @param blocks     Blocks to optimize with
+     * @param random     If true will use random search, otherwise grid
+     * @return Method instance with the best configuration
+     * @throws Exception When evaluating a configuration fails
+     */
+    private IBlockProcessing optimizeBlockProcessing(String step, String methodName, IBlockProcessing bp,
+                                                     List<AbstractBlock> blocks, boolean random) throws Exception {
         double bestA = 0;
         int bestIteration = 0;
         double originalComparisons = getTotalComparisons(blocks);
+        String searchName = step + ": " + bp.getMethodName();
+        BlockProcessingWorker[] workers = null;
+
+        // Grid configurations from a previous run can be reused, random ones are only a target for the search
+        String cacheContext = getCacheContext(Collections.singletonList(bp), false);
+        TuningCache.Entry cached = getCachedConfiguration(step, cacheContext);
+        boolean useCached = !random && cached != null && setCachedConfiguration(cached, 0, bp);
+        SearchBudget budget = newStageBudget(random ? cached : null);
+
+        if (useCached) {
+            // Skip the search
+            bestIteration = cached.getIndex(0);
+            bestA = cached.getObjective();
+            System.out.println("\n\nCached configuration\t:\t" + cached.getConfiguration());
+        } else if (!random && isAdaptiveGridSearch) {
+            // Evaluate only the most promising grid configurations
+            AdaptiveGridSearch search = new AdaptiveGridSearch(bp.getNumberOfGridConfigurations());
+            bestIteration = search.search(point -> {
+                TrialLog.Trial trial = trialLog.startTrial(searchName, point[0]);
+                bp.setNumberedGridConfiguration(point[0]);
+                return getBlockingAccuracy(bp.refineBlocks(blocks), originalComparisons, trial,
+                        bp.getMethodConfiguration());
+            }, budget::tryStartTrial)[0];
+            bestA = search.getBestValue();
+            System.out.println("\n\nEvaluated configurations\t:\t" + search.getEvaluations() + "/" + search.getSpaceSize());
+        } else {
+            // Random configurations depend on the instance that draws them, so random search has a fixed number of
+            // workers, while grid search can use all processors
+            int iterationsNum = random ? noOfTrials : bp.getNumberOfGridConfigurations();
+            int noOfWorkers = random ? TRIAL_WORKERS : Runtime.getRuntime().availableProcessors();
+            workers = new BlockProcessingWorker[Math.max(1, Math.min(iterationsNum, noOfWorkers))];
+            Double[] accuracies = runBlockProcessingTrialsInParallel(methodName, blocks, iterationsNum, random,
+                    originalComparisons, budget, searchName, workers);
+
+            // Keep the best configuration, checking them in the same order as the sequential search
+            for (int j = 0; j < iterationsNum; j++) {
+                // Skip the configurations that did not run because the budget ran out
+                if (accuracies[j] == null) {
+                    continue;
+                }
 
-        int iterationsNum = random ? NO_OF_TRIALS : bp.getNumberOfGridConfigurations();
-        for (int j = 0; j < iterationsNum; j++) {
-            if (random) {
-                bp.setNextRandomConfiguration();
-            } else {
-                bp.setNumberedGridConfiguration(j);
-            }
-            cleanedBlocks = bp.refineBlocks(blocks);
-            if (cleanedBlocks.isEmpty()) {
-                continue;
+                double a = accuracies[j];
+                if (bestA < a) {
+                    bestIteration = j;
+                    bestA = a;
+                }
             }
+        }
+        budget.printStatistics(bp.getMethodName());
 
-            BlocksPerformance blp = new BlocksPerformance(cleanedBlocks, duplicatePropagation);
-            blp.setStatistics();
-            double recall = blp.getPc();
-            double rr = 1 - blp.getAggregateCardinality() / originalComparisons;
-            double a = rr * recall;
-            if (bestA < a) {
-                bestIteration = j;
-                bestA = a;
-            }
+        // Select the configuration by its cost too, if needed
+        TrialRecord selected = useCached ? null : selectTrial(searchName);
+        if (selected != null) {
+            bestIteration = selected.getTrial();
+            bestA = selected.getObjective();
         }
         System.out.println("\n\nBest iteration\t:\t" + bestIteration);
         System.out.println("Best performance\t:\t" + bestA);
 
+        IBlockProcessing bestMethod = bp;
         if (random) {
-            bp.setNumberedRandomConfiguration(bestIteration);
+            // Configuration j is the (j / number of workers)-th one that its worker drew; if no configuration was
+            // evaluated, the method keeps its current configuration
+            BlockProcessingWorker worker = workers[bestIteration % workers.length];
+            if (0 < budget.getTrials() && worker != null) {
+                worker.method.setNumberedRandomConfiguration(bestIteration / workers.length);
+                bestMethod = worker.method;
+            }
         } else {
             bp.setNumberedGridConfiguration(bestIteration);
         }
+        if (!useCached) {
+            saveCachedConfiguration(step, cacheContext, bestA, new int[]{random ? -1 : bestIteration},
+                    bestMethod.getMethodConfiguration());
+        }
+        return bestMethod;
+    }
+
+    /**
+     * Evaluate the grid or random configurations of a block processing method in parallel. Each worker has its own
+     * thread, its own instance of the method, its own ground truth object, and its own copy of the blocks, since block
+     * processing methods can reorder the block list and set the index and utility of its blocks. Configuration j is
+     * evaluated by worker j % number of workers, so with random search it is the (j / number of workers)-th random
+     * configuration that the worker's instance drew.
+     * <p>
+     * The configurations run ahead in parallel, but they are counted in the budget in order (like the holistic trials,
+     * see HolisticTrialRunner), so the configurations that are kept are those of the sequential search.
+     *
+     * @param methodName          Name of the method in the GUI
+     * @param blocks              Blocks to optimize with (not modified)
+     * @param iterationsNum       Number of configurations to evaluate
+     * @param random              If true, each configuration is a new random one, otherwise the numbered grid one
+     * @param originalComparisons Number of comparisons of the blocks
+     * @param budget              Budget of the search (configurations that cannot start in it are skipped)
+     * @param searchName          Name of the search, for the trial log
+     * @param workers             Workers to spread the configurations over, created with their first configuration
+     * @return Accuracy of each configuration, or null for the ones that were skipped
+     * @throws Exception When evaluating a configuration fails
+     */
+    private Double[] runBlockProcessingTrialsInParallel(String methodName, List<AbstractBlock> blocks,
+                                                        int iterationsNum, boolean random,
+                                                        double originalComparisons, SearchBudget budget,
+                                                        String searchName, BlockProcessingWorker[] workers)
+            throws Exception {
+        boolean isCleanCleanEr = erType.equals(JedaiOptions.CLEAN_CLEAN_ER);
+        ExecutorService[] threads = new ExecutorService[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            threads[i] = Executors.newSingleThreadExecutor();
+        }
+        AtomicBoolean stopped = new AtomicBoolean();
+
+        // The configurations after the remaining trials could never start
+        int allowedTrials = Math.min(iterationsNum, budget.getRemainingTrials());
+        Double[] accuracies = new Double[iterationsNum];
+        try {
+            List<Future<TrialRecord>> futures = new ArrayList<>();
+            for (int j = 0; j < allowedTrials; j++) {
+                int iteration = j;
+                int index = j % workers.length;
+                futures.add(threads[index].submit(() -> {
+                    // Exhaustion is final, so the budget would not allow this configuration to start either
+                    if (stopped.get() || budget.isExhausted()) {
+                        return null;
+                    }
+
+                    if (workers[index] == null) {
+                        workers[index] = new BlockProcessingWorker(new WorkflowManager(this),
+                                MethodMapping.getMethodByName(methodName, isCleanCleanEr), copyBlocks(blocks));
+                    }
+                    BlockProcessingWorker worker = workers[index];
+                    TrialLog.Trial trial = trialLog.startTrial(searchName, iteration);
+                    if (random) {
+                        worker.method.setNextRandomConfiguration();
+                    } else {
+                        worker.method.setNumberedGridConfiguration(iteration);
+                    }
+
+                    // Empty blocks give an accuracy of 0, so they never become the best configuration
+                    return worker.manager.measureBlockingAccuracy(
+                            worker.method.refineBlocks(new ArrayList<>(worker.blocks)), originalComparisons, trial,
+                            worker.method.getMethodConfiguration());
+                }));
+            }
+
+            // Count the configurations in the budget in order, keeping them until the first one that cannot start
+            for (int j = 0; j < futures.size(); j++) {
+                TrialRecord record;
+                try {
+                    record = futures.get(j).get();
+                } catch (ExecutionException e) {
+                    throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+                }
+
+                if (stopped.get() || !budget.tryStartTrial() || record == null) {
+                    stopped.set(true);
+                    continue;
+                }
+                trialLog.add(record);
+                budget.reportObjective(record.getObjective());
+                accuracies[j] = record.getObjective();
+            }
+            if (!stopped.get() && allowedTrials < iterationsNum) {
+                // The next configuration cannot start, which marks the budget as stopped early
+                budget.tryStartTrial();
+            }
+        } finally {
+            for (ExecutorService thread : threads) {
+                thread.shutdownNow();
+            }
+        }
+
+        return accuracies;
+    }
+
+    /**
+     * Copy a list of blocks, creating new block objects over the same entity ID arrays (which block processing
+     * methods do not modify)
+     *
+     * @param blocks Blocks to copy
+     * @return Copy of the blocks
+     */
+    private static List<AbstractBlock> copyBlocks(List<AbstractBlock> blocks) {
+        List<AbstractBlock> copy = new ArrayList<>(blocks.size());
+        for (AbstractBlock block : blocks) {
+            AbstractBlock blockCopy;
+            if (block instanceof BilateralBlock) {
+                BilateralBlock bilateralBlock = (BilateralBlock) block;
+                blockCopy = new BilateralBlock(bilateralBlock.getIndex1Entities(),
+                        bilateralBlock.getIndex2Entities());
+            } else if (block instanceof UnilateralBlock) {
+                blockCopy = new UnilateralBlock(((UnilateralBlock) block).getEntities());
+            } else if (block instanceof DecomposedBlock) {
+                DecomposedBlock decomposedBlock = (DecomposedBlock) block;
+                blockCopy = new DecomposedBlock(decomposedBlock.isCleanCleanER(), decomposedBlock.getEntities1(),
+                        decomposedBlock.getEntities2());
+            } else {
+                throw new IllegalArgumentException("Unknown block type: " + block.getClass().getName());
+            }
+
+            blockCopy.setBlockIndex(block.getBlockIndex());
+            copy.add(blockCopy);
+        }
+        return copy;
     }
 
     /**
@@ -1037,8 +2272,9 @@ public class WorkflowManager {
      * @param statusLabel Label to show status
      * @param random      If true, will use random search. Otherwise, grid.
      * @return ClustersPerformance of the workflow result
+     * @throws Exception If entity matching fails
      */
-    private ClustersPerformance runStepByStepWorkflow(Label statusLabel, boolean random) {
+    private ClustersPerformance runStepByStepWorkflow(Label statusLabel, boolean random) throws Exception {
         double bestA = 0;
         int bestIteration = 0;
 
@@ -1071,6 +2307,10 @@ public class WorkflowManager {
         time1 = System.currentTimeMillis();
         final List<AbstractBlock> blocks = new ArrayList<>();
 
+        // Evaluates the blocks of each trial together with the blocks of the previous methods, without copying them
+        final IncrementalBlocksEvaluator blocksEvaluator =
+                new IncrementalBlocksEvaluator(duplicatePropagation, erType.equals(JedaiOptions.CLEAN_CLEAN_ER));
+
         if (model.getBlockBuildingMethods() != null && !model.getBlockBuildingMethods().isEmpty()) {
             // Index of the methods in the blBuMethods list
             int enabledMethodIndex = 0;
@@ -1090,33 +2330,74 @@ public class WorkflowManager {
                         originalComparisons = ((double) profilesD1.size()) * profilesD2.size();
                     }
 
-                    iterationsNum = random ? NO_OF_TRIALS : bb.getNumberOfGridConfigurations();
-
-                    for (int j = 0; j < iterationsNum; j++) {
-                        // Set next configuration
-                        if (random) {
-                            bb.setNextRandomConfiguration();
-                        } else {
-                            bb.setNumberedGridConfiguration(j);
-                        }
-
-                        // Process the blocks
-                        final List<AbstractBlock> originalBlocks = new ArrayList<>(blocks);
-                        originalBlocks.addAll(runBlockBuilding(erType, scClusters, profilesD1, profilesD2, bb));
-
-                        if (originalBlocks.isEmpty()) {
-                            continue;
+                    // Grid configurations from a previous run can be reused, random ones are only a search target
+                    String cacheContext = getCacheContext(Collections.singletonList(bb), false);
+                    TuningCache.Entry cached =
+                            getCachedConfiguration(JedaiOptions.STEP_LABEL_BLOCK_BUILDING, cacheContext);
+                    boolean useCached = !random && cached != null && setCachedConfiguration(cached, 0, bb);
+
+                    SearchBudget budget = newStageBudget(random ? cached : null);
+                    String searchName = JedaiOptions.STEP_LABEL_BLOCK_BUILDING + ": " + bb.getMethodName();
+                    if (useCached) {
+                        // Skip the search
+                        bestIteration = cached.getIndex(0);
+                        bestA = cached.getObjective();
+                        System.out.println("\n\nCached configuration\t:\t" + cached.getConfiguration());
+                    } else if (!random && isAdaptiveGridSearch) {
+                        // Evaluate only the most promising grid configurations
+                        final AttributeClusters[] clusters = scClusters;
+                        final double comparisons = originalComparisons;
+                        AdaptiveGridSearch search = new AdaptiveGridSearch(bb.getNumberOfGridConfigurations());
+                        bestIteration = search.search(point -> {
+                            TrialLog.Trial trial = trialLog.startTrial(searchName, point[0]);
+                            bb.setNumberedGridConfiguration(point[0]);
+
+                            double a = blocksEvaluator.evaluate(
+                                    runBlockBuilding(erType, clusters, profilesD1, profilesD2, bb), comparisons);
+                            trial.finish(bb.getMethodConfiguration(), a, blocksEvaluator.getPc(),
+                                    blocksEvaluator.getPq(), (long) blocksEvaluator.getAggregateCardinality());
+                            return a;
+                        }, budget::tryStartTrial)[0];
+                        bestA = search.getBestValue();
+                        System.out.println("\n\nEvaluated configurations\t:\t" + search.getEvaluations() + "/" +
+                                search.getSpaceSize());
+                    } else {
+                        iterationsNum = random ? noOfTrials : bb.getNumberOfGridConfigurations();
+
+                        for (int j = 0; j < iterationsNum; j++) {
+                            // Stop when the budget runs out, keeping the best configuration so far
+                            if (!budget.tryStartTrial()) {
+                                break;
+                            }
+
+                            // Set next configuration
+                            TrialLog.Trial trial = trialLog.startTrial(searchName, j);
+                            if (random) {
+                                bb.setNextRandomConfiguration();
+                            } else {
+                                bb.setNumberedGridConfiguration(j);
+                            }
+
+                            // Process the blocks and evaluate them together with the blocks of the previous methods
+                            double a = blocksEvaluator.evaluate(
+                                    runBlockBuilding(erType, scClusters, profilesD1, profilesD2, bb),
+                                    originalComparisons);
+                            trial.finish(bb.getMethodConfiguration(), a, blocksEvaluator.getPc(),
+                                    blocksEvaluator.getPq(), (long) blocksEvaluator.getAggregateCardinality());
+                            budget.reportObjective(a);
+                            if (bestA < a) {
+                                bestIteration = j;
+                                bestA = a;
+                            }
                         }
+                    }
+                    budget.printStatistics(bb.getMethodName());
 
-                        final BlocksPerformance methodBlp = new BlocksPerformance(originalBlocks, duplicatePropagation);
-                        methodBlp.setStatistics();
-                        double recall = methodBlp.getPc();
-                        double rr = 1 - methodBlp.getAggregateCardinality() / originalComparisons;
-                        double a = rr * recall;
-                        if (bestA < a) {
-                            bestIteration = j;
-                            bestA = a;
-                        }
+                    // Select the configuration by its cost too, if needed
+                    TrialRecord selected = useCached ? null : selectTrial(searchName);
+                    if (selected != null) {
+                        bestIteration = selected.getTrial();
+                        bestA = selected.getObjective();
                     }
                     System.out.println("\n\nBest iteration\t:\t" + bestIteration);
                     System.out.println("Best performance\t:\t" + bestA);
@@ -1127,16 +2408,23 @@ public class WorkflowManager {
                     } else {
                         bb.setNumberedGridConfiguration(bestIteration);
                     }
+                    if (!useCached) {
+                        saveCachedConfiguration(JedaiOptions.STEP_LABEL_BLOCK_BUILDING, cacheContext, bestA,
+                                new int[]{random ? -1 : bestIteration}, bb.getMethodConfiguration());
+                    }
                 }
 
                 // Process the blocks with block building
                 Platform.runLater(() -> statusLabel.setText("Running block building..."));
 
+                List<AbstractBlock> methodBlocks;
                 if (erType.equals(JedaiOptions.DIRTY_ER)) {
-                    blocks.addAll(bb.getBlocks(profilesD1));
+                    methodBlocks = bb.getBlocks(profilesD1);
                 } else {
-                    blocks.addAll(bb.getBlocks(profilesD1, profilesD2));
+                    methodBlocks = bb.getBlocks(profilesD1, profilesD2);
                 }
+                blocks.addAll(methodBlocks);
+                blocksEvaluator.accept(methodBlocks);
 
                 time2 = System.currentTimeMillis();
                 totalTimeMillis = time2 - time1;
@@ -1174,8 +2462,10 @@ public class WorkflowManager {
 
                 // Check if we should configure this method automatically
                 if (blClConfig.getConfigurationType().equals(JedaiOptions.AUTOMATIC_CONFIG)) {
-                    // Optimize the method
-                    optimizeBlockProcessing(bp, blocks, random);
+                    // Optimize the method, which can replace its instance with one of a worker
+                    bp = optimizeBlockProcessing(JedaiOptions.STEP_LABEL_BLOCK_CLEANING, blClConfig.getName(), bp,
+                            blocks, random);
+                    blClMethods.set(enabledMethodIndex, bp);
                 }
 
                 // Process blocks with this method
@@ -1200,20 +2490,26 @@ public class WorkflowManager {
         time1 = System.currentTimeMillis();
 
         List<AbstractBlock> finalBlocks;
-        if (model.getComparisonCleaningConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG)) {
-            // Optimize the comparison cleaning method
-            optimizeBlockProcessing(comparisonCleaningMethod, cleanedBlocks, random);
-        }
+        if (comparisonCleaningMethod != null) {
+            if (model.getComparisonCleaningConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG)) {
+                // Optimize the comparison cleaning method, which can replace its instance with one of a worker
+                comparisonCleaningMethod = optimizeBlockProcessing(JedaiOptions.STEP_LABEL_COMPARISON_CLEANING,
+                        model.getComparisonCleaning(), comparisonCleaningMethod, cleanedBlocks, random);
+            }
 
-        finalBlocks = comparisonCleaningMethod.refineBlocks(cleanedBlocks);
-        time2 = System.currentTimeMillis();
-        totalTimeMillis = time2 - time1;
+            finalBlocks = comparisonCleaningMethod.refineBlocks(cleanedBlocks);
+            time2 = System.currentTimeMillis();
+            totalTimeMillis = time2 - time1;
 
-        blp = new BlocksPerformance(finalBlocks, duplicatePropagation);
-        blp.setStatistics();
-        blp.printStatistics(totalTimeMillis, comparisonCleaningMethod.getMethodConfiguration(),
-                comparisonCleaningMethod.getMethodName());
-        this.addBlocksPerformance(comparisonCleaningMethod.getMethodName(), totalTimeMillis, blp);
+            blp = new BlocksPerformance(finalBlocks, duplicatePropagation);
+            blp.setStatistics();
+            blp.printStatistics(totalTimeMillis, comparisonCleaningMethod.getMethodConfiguration(),
+                    comparisonCleaningMethod.getMethodName());
+            this.addBlocksPerformance(comparisonCleaningMethod.getMethodName(), totalTimeMillis, blp);
+        } else {
+            // No comparison cleaning method, only remove the redundant comparisons
+            finalBlocks = eliminateRedundantComparisons(cleanedBlocks, true);
+        }
 
         // Entity Matching & Clustering local optimization
         time1 = System.currentTimeMillis();
@@ -1232,18 +2528,38 @@ public class WorkflowManager {
 
             double bestFMeasure = 0;
 
+            // Matching and clustering are tuned together, so they share one entry in the tuning cache
+            String methodNames = model.getEntityMatching() + " + " + ec.getMethodName();
+            String searchName = JedaiOptions.STEP_LABEL_ENTITY_MATCHING + ": " + methodNames;
+            String cacheContext = getCacheContext(Collections.singletonList(ec), true);
+            TuningCache.Entry cached = getCachedConfiguration(JedaiOptions.STEP_LABEL_ENTITY_MATCHING, cacheContext);
+
+            // Get the budget of the search, and the number of comparisons that each matching run executes
+            SearchBudget budget = newStageBudget(random ? cached : null);
+            long matchingComparisons = 0;
+            for (AbstractBlock block : finalBlocks) {
+                matchingComparisons += block.getNoOfComparisons();
+            }
+
             // Check if we are using random search or grid search
             if (random) {
                 bestIteration = 0;
 
                 // Optimize entity matching and clustering with random search
-                for (int j = 0; j < NO_OF_TRIALS; j++) {
+                for (int j = 0; j < noOfTrials; j++) {
+                    // Stop when the budget runs out, keeping the best configuration so far
+                    if (!budget.tryStartTrial()) {
+                        break;
+                    }
+
                     // Set entity matching parameters automatically if needed
+                    TrialLog.Trial trial = trialLog.startTrial(searchName, j);
                     if (model.getEntityMatchingConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG)) {
                         entityMatchingMethod.setNextRandomConfiguration();
                     }
                     final SimilarityPairs sims =
                             entityMatchingMethod.executeComparisons(finalBlocks);
+                    budget.addComparisons(matchingComparisons);
 
                     // Set entity clustering parameters automatically if needed
                     if (model.getEntityClusteringConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG)) {
@@ -1254,11 +2570,22 @@ public class WorkflowManager {
                     final ClustersPerformance clp = new ClustersPerformance(clusters, duplicatePropagation);
                     clp.setStatistics();
                     double fMeasure = clp.getFMeasure();
+                    trial.finish(entityMatchingMethod.getMethodConfiguration() + " | " + ec.getMethodConfiguration(),
+                            fMeasure, clp.getRecall(), clp.getPrecision(), matchingComparisons);
+                    budget.reportObjective(fMeasure);
                     if (bestFMeasure < fMeasure) {
                         bestIteration = j;
                         bestFMeasure = fMeasure;
                     }
                 }
+                budget.printStatistics("\nEntity matching & clustering");
+
+                // Select the configuration by its cost too, if needed
+                TrialRecord selected = selectTrial(searchName);
+                if (selected != null) {
+                    bestIteration = selected.getTrial();
+                    bestFMeasure = selected.getObjective();
+                }
                 System.out.println("\nBest Iteration\t:\t" + bestIteration);
                 System.out.println("Best FMeasure\t:\t" + bestFMeasure);
 
@@ -1271,6 +2598,8 @@ public class WorkflowManager {
                 if (model.getEntityClusteringConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG)) {
                     ec.setNumberedRandomConfiguration(bestIteration);
                 }
+                saveCachedConfiguration(JedaiOptions.STEP_LABEL_ENTITY_MATCHING, cacheContext, bestFMeasure,
+                        new int[]{-1, -1}, entityMatchingMethod.getMethodConfiguration(), ec.getMethodConfiguration());
             } else {
                 // Optimize entity matching and clustering with grid search
                 boolean emAutoConfig = model.getEntityMatchingConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG);
@@ -1283,30 +2612,101 @@ public class WorkflowManager {
                 int outerLoops = (emAutoConfig) ? entityMatchingMethod.getNumberOfGridConfigurations() : 1;
                 int innerLoops = (ecAutoConfig) ? ec.getNumberOfGridConfigurations() : 1;
 
-                // Iterate all entity matching configurations
-                for (int j = 0; j < outerLoops; j++) {
-                    if (emAutoConfig) {
-                        entityMatchingMethod.setNumberedGridConfiguration(j);
-                    }
-                    final SimilarityPairs sims = entityMatchingMethod.executeComparisons(finalBlocks);
-
-                    // Iterate all entity clustering configurations
-                    for (int k = 0; k < innerLoops; k++) {
+                // The cached entry has a grid index for each automatically configured method
+                boolean useCached = cached != null
+                        && (!emAutoConfig || setCachedConfiguration(cached, 0, entityMatchingMethod))
+                        && (!ecAutoConfig || setCachedConfiguration(cached, 1, ec));
+                if (useCached) {
+                    // Skip the search
+                    bestOuterIteration = emAutoConfig ? cached.getIndex(0) : 0;
+                    bestInnerIteration = ecAutoConfig ? cached.getIndex(1) : 0;
+                    bestFMeasure = cached.getObjective();
+                    System.out.println("\nCached configuration\t:\t" + cached.getConfiguration());
+                } else if (isAdaptiveGridSearch) {
+                    // Search the grid of matching & clustering configurations, keeping the similarity pairs of the
+                    // last used matching configurations, so that the points of the same matching configuration reuse
+                    // its comparisons without keeping the pairs of every configuration until the search ends. The
+                    // comparisons of a matching configuration that is used again after it was dropped are executed
+                    // (and counted in the budget) again.
+                    Map<Integer, SimilarityPairs> simsPerMatching =
+                            new LinkedHashMap<Integer, SimilarityPairs>(16, 0.75f, true) {
+                                @Override
+                                protected boolean removeEldestEntry(Map.Entry<Integer, SimilarityPairs> eldest) {
+                                    return CACHED_MATCHING_RUNS < size();
+                                }
+                            };
+                    // Time and allocated bytes of each matching run, which trials that reuse it are charged for
+                    Map<Integer, double[]> matchingCosts = new HashMap<>();
+                    final long finalMatchingComparisons = matchingComparisons;
+                    AdaptiveGridSearch search = new AdaptiveGridSearch(outerLoops, innerLoops);
+                    final int finalInnerLoops = innerLoops;
+                    int[] bestPoint = search.search(point -> {
+                        TrialLog.Trial trial = trialLog.startTrial(searchName, point[0] * finalInnerLoops + point[1]);
+                        SimilarityPairs sims = simsPerMatching.get(point[0]);
+                        if (sims == null) {
+                            double matchingStart = System.currentTimeMillis();
+                            long matchingStartBytes = TrialLog.getAllocatedBytes();
+                            if (emAutoConfig) {
+                                entityMatchingMethod.setNumberedGridConfiguration(point[0]);
+                            }
+                            sims = entityMatchingMethod.executeComparisons(finalBlocks);
+                            simsPerMatching.put(point[0], sims);
+                            budget.addComparisons(finalMatchingComparisons);
+                            matchingCosts.put(point[0], new double[]{System.currentTimeMillis() - matchingStart,
+                                    TrialLog.getAllocatedBytes() - matchingStartBytes});
+                        } else {
+                            double[] matchingCost = matchingCosts.get(point[0]);
+                            trial.addSharedCost(matchingCost[0], (long) matchingCost[1]);
+                            if (emAutoConfig) {
+                                entityMatchingMethod.setNumberedGridConfiguration(point[0]);
+                            }
+                        }
                         if (ecAutoConfig) {
-                            ec.setNumberedGridConfiguration(k);
+                            ec.setNumberedGridConfiguration(point[1]);
                         }
-                        final EquivalenceCluster[] clusters = ec.getDuplicates(sims);
 
-                        final ClustersPerformance clp = new ClustersPerformance(clusters, duplicatePropagation);
+                        final ClustersPerformance clp =
+                                new ClustersPerformance(ec.getDuplicates(sims), duplicatePropagation);
                         clp.setStatistics();
-                        double fMeasure = clp.getFMeasure();
+                        trial.finish(entityMatchingMethod.getMethodConfiguration() + " | " +
+                                        ec.getMethodConfiguration(), clp.getFMeasure(), clp.getRecall(),
+                                clp.getPrecision(), finalMatchingComparisons);
+                        return clp.getFMeasure();
+                    }, budget::tryStartTrial);
+                    simsPerMatching.clear();
+                    bestOuterIteration = bestPoint[0];
+                    bestInnerIteration = bestPoint[1];
+                    bestFMeasure = search.getBestValue();
+                    System.out.println("\nEvaluated configurations\t:\t" + search.getEvaluations() + "/" +
+                            search.getSpaceSize());
+                } else {
+                    // Run the entity matching configurations in parallel, each one with its own clustering sweep
+                    double[][] results = runMatchingGridInParallel(finalBlocks, emAutoConfig, ecAutoConfig,
+                            outerLoops, innerLoops, budget, matchingComparisons, searchName);
+
+                    // Keep the best configuration, checking them in the same order as the sequential grid search
+                    for (int j = 0; j < outerLoops; j++) {
+                        if (results[j] == null) {
+                            continue;
+                        }
+
+                        double fMeasure = results[j][0];
                         if (bestFMeasure < fMeasure) {
-                            bestInnerIteration = k;
+                            bestInnerIteration = (int) results[j][1];
                             bestOuterIteration = j;
                             bestFMeasure = fMeasure;
                         }
                     }
                 }
+                budget.printStatistics("\nEntity matching & clustering");
+
+                // Select the configuration by its cost too, if needed (the trial index is its grid position)
+                TrialRecord selected = useCached ? null : selectTrial(searchName);
+                if (selected != null) {
+                    bestOuterIteration = selected.getTrial() / innerLoops;
+                    bestInnerIteration = selected.getTrial() % innerLoops;
+                    bestFMeasure = selected.getObjective();
+                }
                 System.out.println("\nBest Inner Iteration\t:\t" + bestInnerIteration);
                 System.out.println("\nBest Outer Iteration\t:\t" + bestOuterIteration);
                 System.out.println("Best FMeasure\t:\t" + bestFMeasure);
@@ -1318,12 +2718,17 @@ public class WorkflowManager {
                 if (model.getEntityClusteringConfigType().equals(JedaiOptions.AUTOMATIC_CONFIG)) {
                     ec.setNumberedGridConfiguration(bestInnerIteration);
                 }
+                if (!useCached) {
+                    saveCachedConfiguration(JedaiOptions.STEP_LABEL_ENTITY_MATCHING, cacheContext, bestFMeasure,
+                            new int[]{emAutoConfig ? bestOuterIteration : -1, ecAutoConfig ? bestInnerIteration : -1},
+                            entityMatchingMethod.getMethodConfiguration(), ec.getMethodConfiguration());
+                }
             }
         }
 
         // Run entity matching with final configuration
         Platform.runLater(() -> statusLabel.setText("Running entity matching..."));
-        final SimilarityPairs sims = entityMatchingMethod.executeComparisons(finalBlocks);
+        final SimilarityPairs sims = executeComparisons(entityMatchingMethod, finalBlocks, true);
 
         // Run entity clustering with final configuration
         Platform.runLater(() -> statusLabel.setText("Running entity clustering..."));
@@ -1339,4 +2744,327 @@ public class WorkflowManager {
 
         return clp;
     }
+
+    /**
+     * Run the entity matching grid configurations on a bounded thread pool. Each worker thread has its own entity
+     * matching and clustering instances, executes the comparisons of a matching configuration and then runs all
+     * clustering configurations on its similarity pairs.
+     *
+     * @param finalBlocks         Blocks with the comparisons to execute (not modified)
+     * @param emAutoConfig        True if entity matching is configured automatically
+     * @param ecAutoConfig        True if entity clustering is configured automatically
+     * @param outerLoops          Number of entity matching configurations
+     * @param innerLoops          Number of entity clustering configurations
+     * @param budget              Budget of the search
+     * @param matchingComparisons Number of comparisons that each matching run executes
+     * @param searchName          Name of the search, for the trial log
+     * @return For each matching configuration, its best F-measure and the clustering configuration that gave it, or
+     * null if it was skipped because the budget ran out
+     * @throws Exception When running a configuration fails
+     */
+    private double[][] runMatchingGridInParallel(List<AbstractBlock> finalBlocks, boolean emAutoConfig,
+                                                 boolean ecAutoConfig, int outerLoops, int innerLoops,
+                                                 SearchBudget budget, long matchingComparisons, String searchName)
+            throws Exception {
+        ThreadLocal<WorkflowManager> workers = ThreadLocal.withInitial(() -> newTrialWorker(null));
+        ExecutorService pool = Executors.newFixedThreadPool(
+                Math.min(outerLoops, Runtime.getRuntime().availableProcessors()));
+
+        double[][] results = new double[outerLoops][];
+        try {
+            List<Future<double[]>> futures = new ArrayList<>();
+            for (int j = 0; j < outerLoops; j++) {
+                int outerIteration = j;
+                futures.add(pool.submit(() -> workers.get().runMatchingGridIteration(finalBlocks, outerIteration,
+                        emAutoConfig, ecAutoConfig, innerLoops, budget, matchingComparisons, searchName)));
+            }
+
+            // Wait for the configurations to finish, in order
+            for (int j = 0; j < outerLoops; j++) {
+                try {
+                    results[j] = futures.get(j).get();
+                } catch (ExecutionException e) {
+                    throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return results;
+    }
+
+    /**
+     * Run one entity matching grid configuration with this manager's method instances, and all the entity clustering
+     * configurations on its similarity pairs
+     *
+     * @param finalBlocks         Blocks with the comparisons to execute (not modified)
+     * @param outerIteration      Index of the entity matching grid configuration
+     * @param emAutoConfig        True if entity matching is configured automatically
+     * @param ecAutoConfig        True if entity clustering is configured automatically
+     * @param innerLoops          Number of entity clustering configurations
+     * @param budget              Budget of the search
+     * @param matchingComparisons Number of comparisons that the matching run executes
+     * @param searchName          Name of the search, for the trial log
+     * @return Best F-measure and the clustering configuration that gave it (the first one in case of ties), or null if
+     * the budget ran out before running the configuration
+     */
+    private double[] runMatchingGridIteration(List<AbstractBlock> finalBlocks, int outerIteration,
+                                              boolean emAutoConfig, boolean ecAutoConfig, int innerLoops,
+                                              SearchBudget budget, long matchingComparisons, String searchName) {
+        if (budget.isExhausted()) {
+            return null;
+        }
+
+        // Measure the cost of matching, which every clustering configuration's trial is charged for
+        double matchingStart = System.currentTimeMillis();
+        long matchingStartBytes = TrialLog.getAllocatedBytes();
+        if (emAutoConfig) {
+            trialEntityMatching.setNumberedGridConfiguration(outerIteration);
+        }
+        final SimilarityPairs sims = trialEntityMatching.executeComparisons(finalBlocks);
+        budget.addComparisons(matchingComparisons);
+        double matchingMillis = System.currentTimeMillis() - matchingStart;
+        long matchingBytes = TrialLog.getAllocatedBytes() - matchingStartBytes;
+
+        // Iterate all entity clustering configurations
+        double bestFMeasure = 0;
+        int bestInnerIteration = 0;
+        for (int k = 0; k < innerLoops; k++) {
+            if (!budget.tryStartTrial()) {
+                break;
+            }
+            TrialLog.Trial trial = trialLog.startTrial(searchName, outerIteration * innerLoops + k);
+            trial.addSharedCost(matchingMillis, matchingBytes);
+            if (ecAutoConfig) {
+                ec.setNumberedGridConfiguration(k);
+            }
+            final EquivalenceCluster[] clusters = ec.getDuplicates(sims);
+
+            final ClustersPerformance clp = new ClustersPerformance(clusters, duplicatePropagation);
+            clp.setStatistics();
+            double fMeasure = clp.getFMeasure();
+            trial.finish(trialEntityMatching.getMethodConfiguration() + " | " + ec.getMethodConfiguration(),
+                    fMeasure, clp.getRecall(), clp.getPrecision(), matchingComparisons);
+            if (bestFMeasure < fMeasure) {
+                bestInnerIteration = k;
+                bestFMeasure = fMeasure;
+            }
+        }
+
+        return new double[]{bestFMeasure, bestInnerIteration};
+    }
+
+    /**
+     * State of a worker that evaluates block processing configurations
+     */
+    private static class BlockProcessingWorker {
+        private final WorkflowManager manager;
+        private final IBlockProcessing method;
+        private final List<AbstractBlock> blocks;
+
+        private BlockProcessingWorker(WorkflowManager manager, IBlockProcessing method, List<AbstractBlock> blocks) {
+            this.manager = manager;
+            this.method = method;
+            this.blocks = blocks;
+        }
+    }
+
+    /**
+     * Output of the stages of a blocking-based workflow that are the same in all auto-configuration trials: the blocks,
+     * and if entity matching is fixed too, its similarity pairs and the comparisons it executed. The trials share it,
+     * so it must not be modified; each trial processes its own copy of the blocks.
+     */
+    private static class PipelinePrefix {
+        // First stage that each trial should run
+        private final int nextStage;
+
+        private List<AbstractBlock> blocks;
+        private SimilarityPairs simPairs;
+        // Comparisons executed by entity matching, if it is part of the prefix
+        private long comparisons;
+        private boolean failed;
+
+        private PipelinePrefix(int nextStage) {
+            this.nextStage = nextStage;
+        }
+    }
+
+    /**
+     * Runs holistic auto-configuration trials on a bounded number of worker threads. Each worker gets its own workflow
+     * manager with its own method instances (and ground truth), which share the entity profiles and fixed workflow
+     * steps of this one.
+     * <p>
+     * A random configuration can only be set again on the instances that drew it, so each trial always runs on the
+     * same worker (trial % number of workers): its configuration is drawn the first time the worker runs it, and set
+     * again when it is run with a larger budget or chosen as the best one. The number of workers is TRIAL_WORKERS (or
+     * the number of trials, if that is smaller), not the number of processors, so that every trial gets the same
+     * configuration on every machine.
+     * <p>
+     * The trials run ahead in parallel, but they are counted in the budget in trial order, as if they ran one after
+     * the other: a trial is kept only if the budget allows it to start after the trials before it, and the trials
+     * after the first one that is not kept are dropped. The kept trials, and so the best one, are those of the
+     * sequential search, except that the time budget is checked when the results are counted.
+     */
+    private class HolisticTrialRunner {
+        private final Label statusLabel;
+        private final PipelinePrefix prefix;
+        private final WorkflowManager[] workers;
+        private final ExecutorService[] threads;
+
+        private HolisticTrialRunner(Label statusLabel, PipelinePrefix prefix) {
+            this.statusLabel = statusLabel;
+            this.prefix = prefix;
+
+            int noOfWorkers = Math.max(1, Math.min(noOfTrials, TRIAL_WORKERS));
+            this.workers = new WorkflowManager[noOfWorkers];
+            this.threads = new ExecutorService[noOfWorkers];
+            for (int i = 0; i < noOfWorkers; i++) {
+                this.threads[i] = Executors.newSingleThreadExecutor();
+            }
+        }
+
+        /**
+         * Get the worker of a trial, creating its method instances the first time. Must be called from the worker's
+         * thread.
+         *
+         * @param trial Index of the trial
+         * @return Workflow manager of the worker
+         */
+        private WorkflowManager getWorker(int trial) {
+            int index = trial % workers.length;
+            if (workers[index] == null) {
+                workers[index] = newTrialWorker(prefix);
+            }
+            return workers[index];
+        }
+
+        /**
+         * Set the configuration of a trial on the method instances of its worker (drawing it, if the trial did not
+         * run), to run the final workflow with them
+         *
+         * @param trial Index of the trial
+         * @return Workflow manager of the worker, with the configuration of the trial
+         * @throws Exception When setting the configuration fails
+         */
+        private WorkflowManager configureWorker(int trial) throws Exception {
+            Future<WorkflowManager> future = threads[trial % threads.length].submit(() -> {
+                WorkflowManager worker = getWorker(trial);
+                worker.setTrialConfiguration(trial);
+                return worker;
+            });
+
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+            }
+        }
+
+        /**
+         * Run the given trials and wait for them to finish. Only the trials that the budget allows are submitted, and
+         * the workers skip the rest of their trials once the budget runs out.
+         *
+         * @param trials       Indices of the trials to run
+         * @param budget       Fraction of the comparisons to execute in entity matching (1 for all of them)
+         * @param searchName   Name of the search, for the status label and the trial log
+         * @param searchBudget Budget of the search (trials that cannot start in it are skipped)
+         * @return Result of each trial, in the same order, or null for the trials that did not produce a result
+         * @throws Exception When running a trial fails
+         */
+        private TrialResult[] run(int[] trials, double budget, String searchName, SearchBudget searchBudget)
+                throws Exception {
+            AtomicInteger finishedTrials = new AtomicInteger();
+            AtomicBoolean stopped = new AtomicBoolean();
+
+            // The trials after the remaining ones could never start
+            int allowedTrials = Math.min(trials.length, searchBudget.getRemainingTrials());
+            List<Future<TrialResult>> futures = new ArrayList<>();
+            for (int i = 0; i < allowedTrials; i++) {
+                int trial = trials[i];
+                futures.add(threads[trial % threads.length].submit(() -> {
+                    // Exhaustion is final, so the budget would not allow this trial to start either
+                    if (stopped.get() || searchBudget.isExhausted()) {
+                        return TrialResult.SKIPPED;
+                    }
+
+                    WorkflowManager worker = getWorker(trial);
+                    TrialLog.Trial loggedTrial = trialLog.startTrial(searchName, trial);
+                    TrialResult result = worker.runHolisticTrial(trial, budget);
+                    if (result != null) {
+                        result.record = loggedTrial.measure(
+                                worker.getWorkflowConfiguration(worker.trialEntityMatching),
+                                result.fMeasure, result.recall, result.precision, result.comparisons);
+                    }
+
+                    int finished = finishedTrials.incrementAndGet();
+                    Platform.runLater(() -> statusLabel.setText(searchName + ": " + finished + "/" + trials.length));
+
+                    return result;
+                }));
+            }
+
+            // Count the trials in the budget in order, keeping them until the first one that cannot start
+            TrialResult[] results = new TrialResult[trials.length];
+            for (int i = 0; i < futures.size(); i++) {
+                TrialResult result;
+                try {
+                    result = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+                }
+
+                if (stopped.get() || !searchBudget.tryStartTrial() || result == TrialResult.SKIPPED) {
+                    stopped.set(true);
+                    continue;
+                }
+                if (result != null) {
+                    searchBudget.addComparisons(result.comparisons);
+                    trialLog.add(result.record);
+
+                    // Only results on the full input are comparable to the target objective
+                    if (budget == 1) {
+                        searchBudget.reportObjective(result.fMeasure);
+                    }
+                }
+                results[i] = result;
+            }
+            if (!stopped.get() && allowedTrials < trials.length) {
+                // The next trial cannot start, which marks the budget as stopped early
+                searchBudget.tryStartTrial();
+            }
+
+            return results;
+        }
+
+        private void shutdown() {
+            for (ExecutorService thread : threads) {
+                thread.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Performance of one auto-configuration trial
+     */
+    private static class TrialResult {
+        // Result of a trial that was skipped because the budget ran out
+        private static final TrialResult SKIPPED = new TrialResult(-1, 0, 0, 0, 0);
+
+        private final int trial;
+        private final double recall;
+        private final double precision;
+        private final double fMeasure;
+        private final long comparisons;
+        // Measurements of the trial, added to the trial log if the search keeps the trial
+        private TrialRecord record;
+
+        private TrialResult(int trial, double recall, double precision, double fMeasure, long comparisons) {
+            this.trial = trial;
+            this.recall = recall;
+            this.precision = precision;
+            this.fMeasure = fMeasure;
+            this.comparisons = comparisons;
+        }
+    }
 }
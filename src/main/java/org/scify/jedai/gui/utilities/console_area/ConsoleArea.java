@@ -4,21 +4,186 @@ import javafx.application.Platform;
 import javafx.scene.control.TextArea;
 
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Helper class to show an OutputStream in a JavaFX TextArea
  * <p>
- * Source: http://stackoverflow.com/q/13841884
+ * Written bytes are collected in a lock-free queue, and the text area is updated with all of them at most once per
+ * UPDATE_INTERVAL_MS, instead of once per write. The bytes are decoded as UTF-8 (keeping incomplete characters for the
+ * next update), and only the last lines of the output are kept in the text area. No output is dropped here, since
+ * each update takes all the pending bytes; the console is a sink of LogFanOut, which drops whole lines if needed and
+ * counts them.
  */
 public class ConsoleArea extends OutputStream {
-    private TextArea output;
+    public static final int DEFAULT_MAX_LINES = 5000;
+    private static final long UPDATE_INTERVAL_MS = 100;
+
+    // Shared by all console areas, only used to delay the updates to the update interval
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Console area updates");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final TextArea output;
+    private final int maxLines;
+
+    // Written by any thread
+    private final ConcurrentLinkedQueue<byte[]> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final AtomicBoolean updateScheduled = new AtomicBoolean();
+    private volatile long lastUpdate = 0;
+
+    // Used on the JavaFX application thread only: the decoder with the bytes of an incomplete character, and the
+    // length of each line in the text area (the last one without a line break)
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private byte[] undecoded = new byte[0];
+    private final Deque<Integer> lineLengths = new ArrayDeque<>();
 
     public ConsoleArea(TextArea ta) {
+        this(ta, DEFAULT_MAX_LINES);
+    }
+
+    /**
+     * Create a console area that keeps the given number of lines
+     *
+     * @param ta       Text area to show the output in
+     * @param maxLines Maximum number of lines to keep
+     */
+    public ConsoleArea(TextArea ta, int maxLines) {
         this.output = ta;
+        this.maxLines = maxLines;
+        lineLengths.add(0);
     }
 
     @Override
     public void write(int i) {
-        Platform.runLater(() -> output.appendText(String.valueOf((char) i)));
+        write(new byte[]{(byte) i}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (len == 0) {
+            return;
+        }
+
+        byte[] chunk = new byte[len];
+        System.arraycopy(b, off, chunk, 0, len);
+        pending.add(chunk);
+        pendingBytes.addAndGet(len);
+
+        scheduleUpdate();
+    }
+
+    /**
+     * Remove all text from the text area. Must be called from the JavaFX application thread.
+     */
+    public void clear() {
+        output.clear();
+        lineLengths.clear();
+        lineLengths.add(0);
+    }
+
+    /**
+     * Schedule an update of the text area, if there isn't one already, at least UPDATE_INTERVAL_MS after the last one
+     */
+    private void scheduleUpdate() {
+        if (updateScheduled.compareAndSet(false, true)) {
+            long delay = Math.max(0, lastUpdate + UPDATE_INTERVAL_MS - System.currentTimeMillis());
+            SCHEDULER.schedule(() -> Platform.runLater(this::update), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Add the pending output to the text area
+     */
+    private void update() {
+        // Output written from now on schedules another update
+        updateScheduled.set(false);
+        lastUpdate = System.currentTimeMillis();
+
+        // Take the pending bytes, after the incomplete character of the previous update (chunks that are written
+        // meanwhile and do not fit are left for the next update)
+        ByteBuffer bytes = ByteBuffer.allocate((int) (undecoded.length + pendingBytes.get()));
+        bytes.put(undecoded);
+        byte[] chunk;
+        while (bytes.remaining() > 0 && (chunk = pending.peek()) != null && chunk.length <= bytes.remaining()) {
+            pending.poll();
+            pendingBytes.addAndGet(-chunk.length);
+            bytes.put(chunk);
+        }
+        if (!pending.isEmpty()) {
+            scheduleUpdate();
+        }
+
+        // Decode them, keeping the bytes of an incomplete character at the end
+        bytes.flip();
+        CharBuffer chars = CharBuffer.allocate(bytes.remaining());
+        decoder.decode(bytes, chars, false);
+        undecoded = new byte[bytes.remaining()];
+        bytes.get(undecoded);
+        chars.flip();
+
+        if (0 < chars.length()) {
+            appendText(chars.toString());
+        }
+    }
+
+    /**
+     * Append text to the text area and remove the oldest lines above the maximum
+     *
+     * @param text Text to append
+     */
+    private void appendText(String text) {
+        // If the new text alone has more lines than the maximum, replace everything with its last lines
+        int newLines = 0;
+        int cut = text.length();
+        for (int i = text.length() - 1; 0 <= i; i--) {
+            if (text.charAt(i) == '\n' && maxLines <= ++newLines) {
+                cut = i + 1;
+                break;
+            }
+        }
+        if (cut < text.length()) {
+            clear();
+            text = text.substring(cut);
+        }
+
+        // Update the line lengths
+        int lineStart = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lineLengths.addLast(lineLengths.pollLast() + i + 1 - lineStart);
+                lineLengths.addLast(0);
+                lineStart = i + 1;
+            }
+        }
+        lineLengths.addLast(lineLengths.pollLast() + text.length() - lineStart);
+
+        // Remove the oldest lines
+        int removed = 0;
+        while (maxLines < lineLengths.size()) {
+            removed += lineLengths.pollFirst();
+        }
+
+        output.appendText(text);
+        if (0 < removed) {
+            output.deleteText(0, removed);
+        }
     }
 }
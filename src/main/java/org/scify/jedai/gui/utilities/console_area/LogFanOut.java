@@ -0,0 +1,373 @@
+package org.scify.jedai.gui.utilities.console_area;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the standard output and error of the application to several sinks (e.g. the original console, the UI console
+ * and a log file), with a buffer per sink so that the writing threads rarely wait for them.
+ * <p>
+ * Each write to the output or error stream is copied into a log record, which is put in a bounded ring buffer of
+ * every sink. A consumer thread per sink writes the records of its buffer, so a slow sink does not hold back the
+ * others. Lossless sinks (the original console) always make the writing thread wait for space. For the other sinks,
+ * a full buffer either drops output or makes the writing thread wait, depending on the overflow policy. Output is
+ * only dropped from the start of a line to its end, so a sink never gets part of a line. The number of dropped and
+ * delayed records is counted.
+ * <p>
+ * The standard streams are redirected once, with install(), and the fan-out is shared by everything that shows the
+ * output.
+ */
+public class LogFanOut {
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    // Record that stops the consumer thread of a sink
+    private static final LogRecord POISON = new LogRecord(new byte[0], false);
+
+    private static LogFanOut installed = null;
+
+    /**
+     * What to do with a record when the buffer of a sink is full
+     */
+    public enum OverflowPolicy {
+        // Drop the record, so that writing never waits
+        DROP,
+        // Wait until the sink has space, so that no output is lost
+        BLOCK
+    }
+
+    private final int capacity;
+    private volatile OverflowPolicy policy;
+    private final List<Sink> sinks = new CopyOnWriteArrayList<>();
+    private final AtomicLong droppedRecords = new AtomicLong();
+    private final AtomicLong delayedRecords = new AtomicLong();
+
+    private final SourceStream output = new SourceStream(false);
+    private final SourceStream error = new SourceStream(true);
+
+    /**
+     * Create a fan-out without any sinks
+     *
+     * @param capacity Number of records that the buffer of each sink can hold
+     * @param policy   Overflow policy of the sinks that are not lossless
+     */
+    public LogFanOut(int capacity, OverflowPolicy policy) {
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    /**
+     * Redirect the standard output and error to a fan-out, with the original streams as a lossless sink. Only the
+     * first call redirects them, the later ones return the same fan-out.
+     *
+     * @return The fan-out of the standard streams
+     */
+    public static synchronized LogFanOut install() {
+        if (installed == null) {
+            installed = new LogFanOut(DEFAULT_CAPACITY, OverflowPolicy.DROP);
+            installed.addLosslessSink("console", System.out, System.err);
+
+            System.setOut(new PrintStream(installed.getOutput()));
+            System.setErr(new PrintStream(installed.getError()));
+        }
+        return installed;
+    }
+
+    /**
+     * Add a sink that gets the output and the error records, replacing the sink with the same name
+     *
+     * @param name   Name of the sink, for its consumer thread
+     * @param stream Stream to write the records to
+     * @return The sink, which can be closed to remove it
+     */
+    public Sink addSink(String name, OutputStream stream) {
+        return addSink(name, stream, stream, false);
+    }
+
+    /**
+     * Add a sink that never loses output, writing the output and the error records to different streams, and
+     * replacing the sink with the same name
+     *
+     * @param name         Name of the sink, for its consumer thread
+     * @param outputStream Stream to write the output records to
+     * @param errorStream  Stream to write the error records to
+     * @return The sink, which can be closed to remove it
+     */
+    public Sink addLosslessSink(String name, OutputStream outputStream, OutputStream errorStream) {
+        return addSink(name, outputStream, errorStream, true);
+    }
+
+    private synchronized Sink addSink(String name, OutputStream outputStream, OutputStream errorStream,
+                                      boolean lossless) {
+        removeSink(name);
+
+        Sink sink = new Sink(name, outputStream, errorStream, lossless);
+        sinks.add(sink);
+        sink.consumer.start();
+        return sink;
+    }
+
+    /**
+     * Close the sink with the given name, if there is one
+     *
+     * @param name Name of the sink
+     */
+    public synchronized void removeSink(String name) {
+        for (Sink sink : sinks) {
+            if (sink.name.equals(name)) {
+                sink.close();
+            }
+        }
+    }
+
+    /**
+     * Check whether there is a sink with the given name
+     *
+     * @param name Name of the sink
+     * @return True if the sink exists
+     */
+    public boolean hasSink(String name) {
+        for (Sink sink : sinks) {
+            if (sink.name.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Put a record in the buffer of each sink. Called by one thread at a time for each source stream.
+     *
+     * @param record Log record
+     */
+    private void publish(LogRecord record) {
+        for (Sink sink : sinks) {
+            LineState state = sink.lineStates[record.isError ? 1 : 0];
+            LogRecord remaining = record;
+
+            // Drop the rest of a line that was dropped, and give the sink the lines after it
+            if (state.dropping) {
+                int lineEnd = lastIndexOfLineBreak(record.data) + 1;
+                if (lineEnd == 0) {
+                    droppedRecords.incrementAndGet();
+                    continue;
+                }
+                state.dropping = false;
+                state.atLineStart = true;
+                if (lineEnd == record.data.length) {
+                    droppedRecords.incrementAndGet();
+                    continue;
+                }
+                remaining = new LogRecord(Arrays.copyOfRange(record.data, lineEnd, record.data.length),
+                        record.isError);
+            }
+
+            boolean added = sink.buffer.offer(remaining);
+            if (!added && !sink.lossless && policy == OverflowPolicy.DROP && state.atLineStart) {
+                // Drop the record and the rest of its line
+                droppedRecords.incrementAndGet();
+                state.dropping = (lastIndexOfLineBreak(remaining.data) != remaining.data.length - 1);
+                continue;
+            }
+
+            if (!added) {
+                // Wait in steps, to stop waiting if the sink is closed meanwhile
+                delayedRecords.incrementAndGet();
+                try {
+                    while (!added && !sink.closed) {
+                        added = sink.buffer.offer(remaining, 100, TimeUnit.MILLISECONDS);
+                    }
+                } catch (InterruptedException e) {
+                    droppedRecords.incrementAndGet();
+                    Thread.currentThread().interrupt();
+                }
+            }
+            state.atLineStart = (lastIndexOfLineBreak(remaining.data) == remaining.data.length - 1);
+        }
+    }
+
+    private static int lastIndexOfLineBreak(byte[] data) {
+        for (int i = data.length - 1; 0 <= i; i--) {
+            if (data[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reset the numbers of dropped and delayed records
+     */
+    public void resetStatistics() {
+        droppedRecords.set(0);
+        delayedRecords.set(0);
+    }
+
+    public void setOverflowPolicy(OverflowPolicy policy) {
+        this.policy = policy;
+    }
+
+    // Automatically generated getters below
+
+    public OutputStream getOutput() {
+        return output;
+    }
+
+    public OutputStream getError() {
+        return error;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return policy;
+    }
+
+    public long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    public long getDelayedRecords() {
+        return delayedRecords.get();
+    }
+
+    /**
+     * A write to the output or error stream
+     */
+    private static class LogRecord {
+        private final byte[] data;
+        private final boolean isError;
+
+        private LogRecord(byte[] data, boolean isError) {
+            this.data = data;
+            this.isError = isError;
+        }
+    }
+
+    /**
+     * Where a sink is in the lines of a source stream: whether the last record it got ended a line, and whether the
+     * rest of the current line is being dropped
+     */
+    private static class LineState {
+        private boolean atLineStart = true;
+        private boolean dropping = false;
+    }
+
+    /**
+     * Output or error stream, which turns each write into a log record
+     */
+    private class SourceStream extends OutputStream {
+        private final boolean isError;
+
+        private SourceStream(boolean isError) {
+            this.isError = isError;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            publish(new LogRecord(new byte[]{(byte) b}, isError));
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            if (len == 0) {
+                return;
+            }
+
+            byte[] data = new byte[len];
+            System.arraycopy(b, off, data, 0, len);
+            publish(new LogRecord(data, isError));
+        }
+    }
+
+    /**
+     * A sink, with its ring buffer and consumer thread
+     */
+    public class Sink {
+        private final String name;
+        private final OutputStream outputStream;
+        private final OutputStream errorStream;
+        private final boolean lossless;
+        private final BlockingQueue<LogRecord> buffer = new ArrayBlockingQueue<>(capacity);
+        private final Thread consumer;
+        private volatile boolean closed = false;
+
+        // Line state for the output and the error stream, guarded by the source stream
+        private final LineState[] lineStates = {new LineState(), new LineState()};
+
+        private Sink(String name, OutputStream outputStream, OutputStream errorStream, boolean lossless) {
+            this.name = name;
+            this.outputStream = outputStream;
+            this.errorStream = errorStream;
+            this.lossless = lossless;
+            this.consumer = new Thread(this::consume, "Log sink: " + name);
+            this.consumer.setDaemon(true);
+        }
+
+        /**
+         * Write the records of the buffer, in batches, and flush the streams after each batch, until the poison
+         * record
+         */
+        private void consume() {
+            List<LogRecord> batch = new ArrayList<>();
+            boolean stopped = false;
+            while (!stopped) {
+                try {
+                    batch.add(buffer.take());
+                } catch (InterruptedException e) {
+                    // Only the poison record stops the sink
+                    continue;
+                }
+                buffer.drainTo(batch);
+
+                // Records after the poison one were added while the sink was being closed
+                int poison = batch.indexOf(POISON);
+                if (0 <= poison) {
+                    stopped = true;
+                    batch.subList(poison, batch.size()).clear();
+                }
+
+                try {
+                    for (LogRecord record : batch) {
+                        (record.isError ? errorStream : outputStream).write(record.data);
+                    }
+                    outputStream.flush();
+                    errorStream.flush();
+                } catch (IOException e) {
+                    // The error cannot be logged through the sinks, so count the batch as dropped
+                    droppedRecords.addAndGet(batch.size());
+                }
+                batch.clear();
+            }
+        }
+
+        /**
+         * Remove the sink: stop giving it records, write the ones it has and close its streams
+         */
+        public void close() {
+            if (!sinks.remove(this)) {
+                return;
+            }
+            closed = true;
+
+            try {
+                buffer.put(POISON);
+                consumer.join();
+                outputStream.close();
+                if (errorStream != outputStream) {
+                    errorStream.close();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                // Nothing to do, the sink is removed anyway
+            }
+        }
+    }
+}
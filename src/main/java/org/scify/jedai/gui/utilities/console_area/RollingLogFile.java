@@ -0,0 +1,110 @@
+package org.scify.jedai.gui.utilities.console_area;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Log file that rolls over when it reaches a maximum size: the full file is renamed to name.1 (the older ones to
+ * name.2 and so on, up to a maximum number of old files), and a new file is started.
+ */
+public class RollingLogFile extends OutputStream {
+    public static final Path DEFAULT_FILE = Paths.get(System.getProperty("user.home"), ".jedai", "logs", "jedai.log");
+    public static final long DEFAULT_MAX_SIZE = 10 << 20;
+    public static final int DEFAULT_MAX_OLD_FILES = 5;
+
+    private final Path file;
+    private final long maxSize;
+    private final int maxOldFiles;
+
+    private OutputStream out;
+    private long size;
+
+    /**
+     * Open the default log file, with the default size and number of old files
+     *
+     * @throws IOException When the file cannot be opened
+     */
+    public RollingLogFile() throws IOException {
+        this(DEFAULT_FILE, DEFAULT_MAX_SIZE, DEFAULT_MAX_OLD_FILES);
+    }
+
+    /**
+     * Open a log file, appending to it if it exists
+     *
+     * @param file        Log file
+     * @param maxSize     Size in bytes after which the file rolls over
+     * @param maxOldFiles Number of old files to keep
+     * @throws IOException When the file cannot be opened
+     */
+    public RollingLogFile(Path file, long maxSize, int maxOldFiles) throws IOException {
+        this.file = file;
+        this.maxSize = maxSize;
+        this.maxOldFiles = maxOldFiles;
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        open();
+    }
+
+    private void open() throws IOException {
+        out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND));
+        size = Files.size(file);
+    }
+
+    /**
+     * Close the file, shift the old files and start a new one
+     *
+     * @throws IOException When renaming or opening the files fails
+     */
+    private void rollOver() throws IOException {
+        out.close();
+
+        Files.deleteIfExists(getOldFile(maxOldFiles));
+        for (int i = maxOldFiles - 1; 1 <= i; i--) {
+            if (Files.exists(getOldFile(i))) {
+                Files.move(getOldFile(i), getOldFile(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (0 < maxOldFiles) {
+            Files.move(file, getOldFile(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+
+        open();
+    }
+
+    private Path getOldFile(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (0 < size && maxSize < size + len) {
+            rollOver();
+        }
+        out.write(b, off, len);
+        size += len;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -6,6 +6,16 @@ import javafx.collections.ObservableList;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.scify.jedai.gui.model.JedaiMethodConfiguration;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public class WizardData {
     // Boolean that indicates whether a workflow is currently running
     private final SimpleBooleanProperty workflowRunning = new SimpleBooleanProperty(false);
@@ -67,6 +77,23 @@ public class WizardData {
     private final StringProperty autoConfigType = new SimpleStringProperty();
     private final StringProperty searchType = new SimpleStringProperty();
 
+    // Automatic Configuration budgets, per step & for the whole configuration (0 means no limit)
+    private final IntegerProperty stageTrialBudget = new SimpleIntegerProperty(100);
+    private final IntegerProperty stageTimeBudget = new SimpleIntegerProperty(0);
+    private final IntegerProperty stageComparisonBudget = new SimpleIntegerProperty(0);
+    private final IntegerProperty totalTrialBudget = new SimpleIntegerProperty(0);
+    private final IntegerProperty totalTimeBudget = new SimpleIntegerProperty(0);
+    private final IntegerProperty totalComparisonBudget = new SimpleIntegerProperty(0);
+
+    // Automatic Configuration objective, and limits per trial for constrained search (0 means no limit)
+    private final StringProperty objectiveMode = new SimpleStringProperty();
+    private final IntegerProperty maxTrialTime = new SimpleIntegerProperty(0);
+    private final IntegerProperty maxTrialComparisons = new SimpleIntegerProperty(0);
+
+    // Execution options
+    private final BooleanProperty streamingMatching = new SimpleBooleanProperty(false);
+    private final BooleanProperty warmStart = new SimpleBooleanProperty(false);
+
     /**
      * Clone a WizardData object (return a new WizardData object, with the same properties of the given one)
      *
@@ -155,9 +182,128 @@ public class WizardData {
             clone.setEntityClusteringParameters(
                     FXCollections.observableArrayList(data.getEntityClusteringParameters()));
 
+        // Automatic Configuration budgets
+        clone.setStageTrialBudget(data.getStageTrialBudget());
+        clone.setStageTimeBudget(data.getStageTimeBudget());
+        clone.setStageComparisonBudget(data.getStageComparisonBudget());
+        clone.setTotalTrialBudget(data.getTotalTrialBudget());
+        clone.setTotalTimeBudget(data.getTotalTimeBudget());
+        clone.setTotalComparisonBudget(data.getTotalComparisonBudget());
+
+        // Automatic Configuration objective
+        clone.setObjectiveMode(data.getObjectiveMode());
+        clone.setMaxTrialTime(data.getMaxTrialTime());
+        clone.setMaxTrialComparisons(data.getMaxTrialComparisons());
+
+        // Execution options
+        clone.setStreamingMatching(data.isStreamingMatching());
+        clone.setWarmStart(data.isWarmStart());
+
         return clone;
     }
 
+    /**
+     * Write the properties of a WizardData object (except whether a workflow is running) to a stream. The properties
+     * are found by reflection, so that new ones are saved without changing this method, and their values are written
+     * with Java serialization (method parameters can be numbers, strings, sets or enumerations).
+     *
+     * @param data WizardData object to write
+     * @param out  Stream to write to
+     * @throws IOException When writing fails
+     */
+    public static void writeData(WizardData data, ObjectOutputStream out) throws IOException {
+        Map<String, Object> values = new HashMap<>();
+        try {
+            for (Field field : WizardData.class.getDeclaredFields()) {
+                if (Property.class.isAssignableFrom(field.getType()) && !field.getName().equals("workflowRunning")) {
+                    values.put(field.getName(), toSerializable(((Property<?>) field.get(data)).getValue()));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IOException("Could not read the configuration", e);
+        }
+        out.writeObject(values);
+    }
+
+    /**
+     * Read a WizardData object that was written with writeData(). Properties that do not exist anymore are ignored.
+     *
+     * @param in Stream to read from
+     * @return New WizardData object
+     * @throws IOException When reading fails
+     */
+    @SuppressWarnings("unchecked")
+    public static WizardData readData(ObjectInputStream in) throws IOException {
+        WizardData data = new WizardData();
+        try {
+            Map<String, Object> values = (Map<String, Object>) in.readObject();
+            for (Field field : WizardData.class.getDeclaredFields()) {
+                if (Property.class.isAssignableFrom(field.getType()) && values.containsKey(field.getName())) {
+                    ((Property<Object>) field.get(data)).setValue(fromSerializable(values.get(field.getName())));
+                }
+            }
+        } catch (ClassNotFoundException | ClassCastException | IllegalAccessException e) {
+            throw new IOException("Could not read the configuration", e);
+        }
+        return data;
+    }
+
+    private static Object toSerializable(Object value) {
+        if (!(value instanceof List)) {
+            return value;
+        }
+
+        // Copy lists to plain ones, with the method configurations in serializable form
+        ArrayList<Object> list = new ArrayList<>();
+        for (Object item : (List<?>) value) {
+            list.add((item instanceof JedaiMethodConfiguration) ?
+                    new SavedMethodConfiguration((JedaiMethodConfiguration) item) : item);
+        }
+        return list;
+    }
+
+    private static Object fromSerializable(Object value) {
+        if (!(value instanceof List)) {
+            return value;
+        }
+
+        ObservableList<Object> list = FXCollections.observableArrayList();
+        for (Object item : (List<?>) value) {
+            if (item instanceof SavedMethodConfiguration) {
+                SavedMethodConfiguration saved = (SavedMethodConfiguration) item;
+                JedaiMethodConfiguration method = new JedaiMethodConfiguration(saved.name);
+                method.setEnabled(saved.enabled);
+                method.setConfigurationType(saved.configurationType);
+                method.setManualParameters(FXCollections.observableArrayList(saved.manualParameters));
+                list.add(method);
+            } else {
+                list.add(item);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Serializable copy of a JedaiMethodConfiguration
+     */
+    private static class SavedMethodConfiguration implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final boolean enabled;
+        private final String configurationType;
+        private final ArrayList<MutablePair<String, Object>> manualParameters = new ArrayList<>();
+
+        SavedMethodConfiguration(JedaiMethodConfiguration method) {
+            this.name = method.getName();
+            this.enabled = method.isEnabled();
+            this.configurationType = method.getConfigurationType();
+            if (method.getManualParameters() != null) {
+                this.manualParameters.addAll(method.getManualParameters());
+            }
+        }
+    }
+
     ///////////////////////////////////////////////////
     // Automatically generated getters/setters below //
     ///////////////////////////////////////////////////
@@ -557,4 +703,136 @@ public class WizardData {
     public void setSearchType(String searchType) {
         this.searchType.set(searchType);
     }
+
+    public int getStageTrialBudget() {
+        return stageTrialBudget.get();
+    }
+
+    public IntegerProperty stageTrialBudgetProperty() {
+        return stageTrialBudget;
+    }
+
+    public void setStageTrialBudget(int stageTrialBudget) {
+        this.stageTrialBudget.set(stageTrialBudget);
+    }
+
+    public int getStageTimeBudget() {
+        return stageTimeBudget.get();
+    }
+
+    public IntegerProperty stageTimeBudgetProperty() {
+        return stageTimeBudget;
+    }
+
+    public void setStageTimeBudget(int stageTimeBudget) {
+        this.stageTimeBudget.set(stageTimeBudget);
+    }
+
+    public int getStageComparisonBudget() {
+        return stageComparisonBudget.get();
+    }
+
+    public IntegerProperty stageComparisonBudgetProperty() {
+        return stageComparisonBudget;
+    }
+
+    public void setStageComparisonBudget(int stageComparisonBudget) {
+        this.stageComparisonBudget.set(stageComparisonBudget);
+    }
+
+    public int getTotalTrialBudget() {
+        return totalTrialBudget.get();
+    }
+
+    public IntegerProperty totalTrialBudgetProperty() {
+        return totalTrialBudget;
+    }
+
+    public void setTotalTrialBudget(int totalTrialBudget) {
+        this.totalTrialBudget.set(totalTrialBudget);
+    }
+
+    public int getTotalTimeBudget() {
+        return totalTimeBudget.get();
+    }
+
+    public IntegerProperty totalTimeBudgetProperty() {
+        return totalTimeBudget;
+    }
+
+    public void setTotalTimeBudget(int totalTimeBudget) {
+        this.totalTimeBudget.set(totalTimeBudget);
+    }
+
+    public int getTotalComparisonBudget() {
+        return totalComparisonBudget.get();
+    }
+
+    public IntegerProperty totalComparisonBudgetProperty() {
+        return totalComparisonBudget;
+    }
+
+    public void setTotalComparisonBudget(int totalComparisonBudget) {
+        this.totalComparisonBudget.set(totalComparisonBudget);
+    }
+
+    public String getObjectiveMode() {
+        return objectiveMode.get();
+    }
+
+    public StringProperty objectiveModeProperty() {
+        return objectiveMode;
+    }
+
+    public void setObjectiveMode(String objectiveMode) {
+        this.objectiveMode.set(objectiveMode);
+    }
+
+    public int getMaxTrialTime() {
+        return maxTrialTime.get();
+    }
+
+    public IntegerProperty maxTrialTimeProperty() {
+        return maxTrialTime;
+    }
+
+    public void setMaxTrialTime(int maxTrialTime) {
+        this.maxTrialTime.set(maxTrialTime);
+    }
+
+    public int getMaxTrialComparisons() {
+        return maxTrialComparisons.get();
+    }
+
+    public IntegerProperty maxTrialComparisonsProperty() {
+        return maxTrialComparisons;
+    }
+
+    public void setMaxTrialComparisons(int maxTrialComparisons) {
+        this.maxTrialComparisons.set(maxTrialComparisons);
+    }
+
+    public boolean isStreamingMatching() {
+        return streamingMatching.get();
+    }
+
+    public BooleanProperty streamingMatchingProperty() {
+        return streamingMatching;
+    }
+
+    public void setStreamingMatching(boolean streamingMatching) {
+        this.streamingMatching.set(streamingMatching);
+    }
+
+    public boolean isWarmStart() {
+        return warmStart.get();
+    }
+
+    public BooleanProperty warmStartProperty() {
+        return warmStart;
+    }
+
+    public void setWarmStart(boolean warmStart) {
+        this.warmStart.set(warmStart);
+    }
 }